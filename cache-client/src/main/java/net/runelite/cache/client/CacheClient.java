@@ -38,11 +38,15 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
@@ -71,6 +75,7 @@ public class CacheClient implements AutoCloseable
 
 	private final Store store; // store cache will be written to
 	private final String host;
+	private final int port;
 	private final int clientRevision;
 	private DownloadWatcher watcher;
 
@@ -80,7 +85,11 @@ public class CacheClient implements AutoCloseable
 	private Channel channel;
 
 	private CompletableFuture<HandshakeResponseType> handshakeFuture;
-	private final Queue<PendingFileRequest> requests = new ArrayDeque<>();
+
+	// in flight requests, keyed by index << 16 | archive. A permit of the
+	// window is held from sending a request until its response is handled.
+	private final Map<Integer, PendingFileRequest> requests = new ConcurrentHashMap<>();
+	private final Semaphore window = new Semaphore(MAX_REQUESTS);
 
 	public CacheClient(Store store, int clientRevision)
 	{
@@ -88,9 +97,15 @@ public class CacheClient implements AutoCloseable
 	}
 
 	public CacheClient(Store store, String host, int clientRevision)
+	{
+		this(store, host, PORT, clientRevision);
+	}
+
+	public CacheClient(Store store, String host, int port, int clientRevision)
 	{
 		this.store = store;
 		this.host = host;
+		this.port = port;
 		this.clientRevision = clientRevision;
 	}
 
@@ -131,8 +146,9 @@ public class CacheClient implements AutoCloseable
 			});
 
 		// Start the client.
-		ChannelFuture f = b.connect(host, PORT).syncUninterruptibly();
+		ChannelFuture f = b.connect(host, port).syncUninterruptibly();
 		channel = f.channel();
+		channel.closeFuture().addListener(future -> failRequests());
 	}
 
 	public CompletableFuture<HandshakeResponseType> handshake()
@@ -201,8 +217,26 @@ public class CacheClient implements AutoCloseable
 	}
 
 	public void download() throws IOException
+	{
+		download(false);
+	}
+
+	/**
+	 * Download the archives which are out of date in the store. Archives
+	 * are written to the storage, or handed to the download watcher, as
+	 * soon as they arrive.
+	 *
+	 * @param delta if true, indexes whose crc and revision match the
+	 * server's are skipped without requesting their index data, and archives
+	 * which are no longer on the server are removed from the store
+	 * @throws IOException
+	 */
+	public void download(boolean delta) throws IOException
 	{
 		Stopwatch stopwatch = Stopwatch.createStarted();
+		AtomicInteger downloaded = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		int requested = 0;
 
 		List<IndexInfo> indexes = requestIndexes();
 		for (IndexInfo indexInfo : indexes)
@@ -231,7 +265,12 @@ public class CacheClient implements AutoCloseable
 			else if (index.getCrc() != crc)
 			{
 				logger.warn("Index {} CRC has changed! (our crc {}, their crc {})",
-					index.getCrc(), index.getCrc(), crc);
+					index.getId(), index.getCrc(), crc);
+			}
+			else if (delta)
+			{
+				logger.info("Index {} is up to date, skipping", index.getId());
+				continue;
 			}
 			else
 			{
@@ -267,21 +306,19 @@ public class CacheClient implements AutoCloseable
 			index.setCrc(crc);
 			index.setRevision(revision);
 
-			logger.info("Index {} has {} archives", i, indexData.getArchives().length);
+			if (delta)
+			{
+				removeDeletedArchives(index, indexData);
+			}
+
+			List<ArchiveData> stale = getStaleArchives(index, indexData);
 
-			for (ArchiveData ad : indexData.getArchives())
+			logger.info("Index {} has {} archives, {} out of date", i, indexData.getArchives().length, stale.size());
+
+			for (ArchiveData ad : stale)
 			{
 				Archive existing = index.getArchive(ad.getId());
 
-				if (existing != null && existing.getRevision() == ad.getRevision()
-					&& existing.getCrc() == ad.getCrc()
-					&& existing.getNameHash() == ad.getNameHash())
-				{
-					logger.debug("Archive {}/{} in index {} is up to date",
-						ad.getId(), indexData.getArchives().length, index.getId());
-					continue;
-				}
-
 				if (existing == null)
 				{
 					logger.info("Archive {}/{} in index {} is out of date, downloading",
@@ -314,9 +351,19 @@ public class CacheClient implements AutoCloseable
 				// Add files
 				archive.setFileData(ad.getFiles());
 
+				++requested;
 				CompletableFuture<FileResult> future = requestFile(index.getId(), ad.getId(), false);
-				future.handle((fr, ex) ->
+				// runs on the event loop before the request's window permit is
+				// released, so the window also bounds archives waiting to be saved
+				future.whenComplete((fr, ex) ->
 				{
+					if (ex != null)
+					{
+						logger.warn("unable to download archive {}/{}", archive.getIndex().getId(), archive.getArchiveId(), ex);
+						failed.incrementAndGet();
+						return;
+					}
+
 					byte[] data = fr.getCompressedData();
 
 					Crc32 crc32 = new Crc32();
@@ -328,7 +375,8 @@ public class CacheClient implements AutoCloseable
 						logger.warn("crc mismatch on downloaded archive {}/{}: {} != {}",
 							archive.getIndex().getId(), archive.getArchiveId(),
 							hash, archive.getCrc());
-						throw new RuntimeException("crc mismatch");
+						failed.incrementAndGet();
+						return;
 					}
 
 					if (watcher != null)
@@ -345,58 +393,78 @@ public class CacheClient implements AutoCloseable
 						catch (IOException ex1)
 						{
 							logger.warn("unable to save archive data", ex1);
+							failed.incrementAndGet();
+							return;
 						}
 					}
-					return null;
+
+					downloaded.incrementAndGet();
 				});
 			}
 		}
 
-		// flush any pending requests
-		channel.flush();
+		awaitRequests();
+
+		stopwatch.stop();
+		logger.info("Download completed in {}, downloaded {}/{} archives, {} failed",
+			stopwatch, downloaded.get(), requested, failed.get());
+	}
 
-		while (!requests.isEmpty())
+	/**
+	 * Get the archives of an index whose revision, crc, or name differ
+	 * from the server's index data, or which do not exist yet
+	 */
+	static List<ArchiveData> getStaleArchives(Index index, IndexData indexData)
+	{
+		List<ArchiveData> stale = new ArrayList<>();
+		for (ArchiveData ad : indexData.getArchives())
 		{
-			// wait for pending requests
-			synchronized (this)
+			Archive existing = index.getArchive(ad.getId());
+
+			if (existing != null && existing.getRevision() == ad.getRevision()
+				&& existing.getCrc() == ad.getCrc()
+				&& existing.getNameHash() == ad.getNameHash())
 			{
-				try
-				{
-					wait();
-				}
-				catch (InterruptedException ex)
-				{
-					logger.warn(null, ex);
-				}
+				logger.debug("Archive {}/{} in index {} is up to date",
+					ad.getId(), indexData.getArchives().length, index.getId());
+				continue;
 			}
+
+			stale.add(ad);
 		}
+		return stale;
+	}
 
-		stopwatch.stop();
-		logger.info("Download completed in {}", stopwatch);
+	private static void removeDeletedArchives(Index index, IndexData indexData)
+	{
+		Set<Integer> ids = new HashSet<>();
+		for (ArchiveData ad : indexData.getArchives())
+		{
+			ids.add(ad.getId());
+		}
+
+		for (Archive archive : new ArrayList<>(index.getArchives()))
+		{
+			if (!ids.contains(archive.getArchiveId()))
+			{
+				logger.info("Archive {} in index {} no longer exists, removing", archive.getArchiveId(), index.getId());
+				index.removeArchive(archive);
+			}
+		}
 	}
 
-	private synchronized CompletableFuture<FileResult> requestFile(int index, int fileId, boolean flush)
+	private CompletableFuture<FileResult> requestFile(int index, int fileId, boolean flush)
 	{
 		if (state != ClientState.CONNECTED)
 		{
 			throw new IllegalStateException("Can't request files until connected!");
 		}
 
-		if (!flush)
+		if (!window.tryAcquire())
 		{
-			while (requests.size() >= MAX_REQUESTS)
-			{
-				channel.flush();
-
-				try
-				{
-					wait();
-				}
-				catch (InterruptedException ex)
-				{
-					logger.warn("interrupted while waiting for requests", ex);
-				}
-			}
+			// send what is queued so responses can free up the window
+			channel.flush();
+			window.acquireUninterruptibly();
 		}
 
 		ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
@@ -408,9 +476,13 @@ public class CacheClient implements AutoCloseable
 		PendingFileRequest pf = new PendingFileRequest(index,
 			fileId, future);
 
-		logger.trace("Sending request for {}/{}", index, fileId);
+		if (requests.putIfAbsent(key(index, fileId), pf) != null)
+		{
+			window.release();
+			throw new IllegalStateException("Request for " + index + "/" + fileId + " is already in flight");
+		}
 
-		requests.add(pf);
+		logger.trace("Sending request for {}/{}", index, fileId);
 
 		if (!flush)
 		{
@@ -421,24 +493,52 @@ public class CacheClient implements AutoCloseable
 			channel.writeAndFlush(archiveRequest);
 		}
 
+		if (!channel.isActive())
+		{
+			// the close listener may have run before the request was added
+			failRequests();
+		}
+
 		return future;
 	}
 
-	private PendingFileRequest findRequest(int index, int file)
+	/**
+	 * Wait for all requests in flight to be handled
+	 */
+	private void awaitRequests()
+	{
+		channel.flush();
+		window.acquireUninterruptibly(MAX_REQUESTS);
+		window.release(MAX_REQUESTS);
+	}
+
+	private void failRequests()
 	{
-		for (PendingFileRequest pr : requests)
+		for (Integer key : requests.keySet())
 		{
-			if (pr.getIndex() == index && pr.getArchive() == file)
+			PendingFileRequest pr = requests.remove(key);
+			if (pr != null)
 			{
-				return pr;
+				try
+				{
+					pr.getFuture().completeExceptionally(new IOException("connection closed"));
+				}
+				finally
+				{
+					window.release();
+				}
 			}
 		}
-		return null;
 	}
 
-	protected synchronized void onFileFinish(int index, int file, byte[] compressedData)
+	private static int key(int index, int file)
 	{
-		PendingFileRequest pr = findRequest(index, file);
+		return index << 16 | file;
+	}
+
+	protected void onFileFinish(int index, int file, byte[] compressedData)
+	{
+		PendingFileRequest pr = requests.remove(key(index, file));
 
 		if (pr == null)
 		{
@@ -446,14 +546,17 @@ public class CacheClient implements AutoCloseable
 			return;
 		}
 
-		requests.remove(pr);
-
-		notify();
-
 		FileResult result = new FileResult(index, file, compressedData);
 
 		logger.debug("File download finished for index {} file {}, length {}", index, file, compressedData.length);
 
-		pr.getFuture().complete(result);
+		try
+		{
+			pr.getFuture().complete(result);
+		}
+		finally
+		{
+			window.release();
+		}
 	}
 }
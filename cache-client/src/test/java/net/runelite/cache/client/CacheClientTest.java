@@ -25,14 +25,23 @@
 package net.runelite.cache.client;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import net.runelite.cache.CacheProperties;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
 import net.runelite.protocol.api.login.HandshakeResponseType;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.impl.SimpleLogger;
@@ -41,6 +50,11 @@ public class CacheClientTest
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheClientTest.class);
 
+	private static final int ARCHIVES = 64;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
 	@Before
 	public void before()
 	{
@@ -71,4 +85,97 @@ public class CacheClientTest
 			store.save();
 		}
 	}
+
+	@Test
+	public void testDeltaSync() throws Exception
+	{
+		Random random = new Random(42L);
+
+		try (Store serverStore = new Store(folder.newFolder());
+			Store clientStore = new Store(folder.newFolder()))
+		{
+			for (int i = 0; i < 2; ++i)
+			{
+				Index index = serverStore.addIndex(i);
+				for (int j = 0; j < ARCHIVES; ++j)
+				{
+					Archive archive = index.addArchive(j);
+					archive.setFileData(new FileData[]{new FileData()});
+					serverStore.updateArchive(archive, randomBytes(random));
+				}
+			}
+			serverStore.save();
+
+			try (TestCacheServer server = new TestCacheServer(serverStore))
+			{
+				sync(clientStore, server);
+				assertSynced(serverStore, clientStore);
+				// the index table, both indexes and every archive
+				Assert.assertEquals(3 + 2 * ARCHIVES, server.getRequests().size());
+
+				// change, add and remove archives of index 0 only
+				Index index = serverStore.findIndex(0);
+				for (int j : new int[]{3, 7})
+				{
+					Archive archive = index.getArchive(j);
+					archive.setRevision(archive.getRevision() + 1);
+					serverStore.updateArchive(archive, randomBytes(random));
+				}
+
+				Archive added = index.addArchive(ARCHIVES);
+				added.setFileData(new FileData[]{new FileData()});
+				serverStore.updateArchive(added, randomBytes(random));
+
+				index.removeArchive(index.getArchive(10));
+				index.setRevision(index.getRevision() + 1);
+				serverStore.save();
+
+				server.refresh();
+				server.clearRequests();
+
+				sync(clientStore, server);
+				assertSynced(serverStore, clientStore);
+
+				Assert.assertEquals(new HashSet<>(Arrays.asList("255/255", "255/0", "0/3", "0/7", "0/" + ARCHIVES)),
+					new HashSet<>(server.getRequests()));
+				Assert.assertNull(clientStore.findIndex(0).getArchive(10));
+			}
+		}
+	}
+
+	private static void sync(Store store, TestCacheServer server) throws Exception
+	{
+		try (CacheClient client = new CacheClient(store, "localhost", server.getPort(), 0))
+		{
+			client.connect();
+			Assert.assertEquals(HandshakeResponseType.RESPONSE_OK, client.handshake().get());
+			client.download(true);
+		}
+		store.save();
+	}
+
+	private static void assertSynced(Store serverStore, Store clientStore) throws Exception
+	{
+		Assert.assertEquals(serverStore.getIndexes().size(), clientStore.getIndexes().size());
+		for (Index serverIndex : serverStore.getIndexes())
+		{
+			Index clientIndex = clientStore.findIndex(serverIndex.getId());
+			Assert.assertEquals(serverIndex.getArchives().size(), clientIndex.getArchives().size());
+
+			for (Archive serverArchive : serverIndex.getArchives())
+			{
+				Archive clientArchive = clientIndex.getArchive(serverArchive.getArchiveId());
+				Assert.assertEquals(serverArchive.getCrc(), clientArchive.getCrc());
+				Assert.assertEquals(serverArchive.getRevision(), clientArchive.getRevision());
+				Assert.assertArrayEquals(serverStore.decompressArchive(serverArchive), clientStore.decompressArchive(clientArchive));
+			}
+		}
+	}
+
+	private static byte[] randomBytes(Random random)
+	{
+		byte[] data = new byte[random.nextInt(4096)];
+		random.nextBytes(data);
+		return data;
+	}
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.protocol.api.handshake.HandshakeResponsePacket;
+import net.runelite.protocol.api.handshake.UpdateHandshakePacket;
+import net.runelite.protocol.api.login.HandshakeResponseType;
+import net.runelite.protocol.api.update.ArchiveRequestPacket;
+import net.runelite.protocol.api.update.ArchiveResponsePacket;
+import net.runelite.protocol.handshake.HandshakeDecoder;
+import net.runelite.protocol.handshake.HandshakeResponseEncoder;
+import net.runelite.protocol.update.decoders.UpdateOpcodes;
+import net.runelite.protocol.update.encoders.ArchiveResponseEncoder;
+
+/**
+ * A minimal update server serving a store on the loopback interface, for
+ * testing the cache client
+ */
+class TestCacheServer implements AutoCloseable
+{
+	private final Store store;
+	private final EventLoopGroup group = new NioEventLoopGroup(1);
+	private final Channel channel;
+
+	// requested index/archive pairs, in request order
+	private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+	private volatile byte[] indexTable;
+	private volatile Map<Integer, byte[]> indexContainers;
+
+	TestCacheServer(Store store) throws IOException
+	{
+		this.store = store;
+		refresh();
+
+		ServerBootstrap b = new ServerBootstrap();
+		b.group(group)
+			.channel(NioServerSocketChannel.class)
+			.childHandler(new ChannelInitializer<SocketChannel>()
+			{
+				@Override
+				public void initChannel(SocketChannel ch) throws Exception
+				{
+					ChannelPipeline p = ch.pipeline();
+					p.addLast("decoder", new HandshakeDecoder());
+					p.addLast(
+						new HandshakeResponseEncoder(),
+						new ArchiveResponseEncoder()
+					);
+					p.addLast(new RequestHandler());
+				}
+			});
+
+		channel = b.bind(InetAddress.getLoopbackAddress(), 0).syncUninterruptibly().channel();
+	}
+
+	int getPort()
+	{
+		return ((InetSocketAddress) channel.localAddress()).getPort();
+	}
+
+	List<String> getRequests()
+	{
+		synchronized (requests)
+		{
+			return new ArrayList<>(requests);
+		}
+	}
+
+	void clearRequests()
+	{
+		requests.clear();
+	}
+
+	/**
+	 * Rebuild the index data served after the store has been modified
+	 */
+	void refresh() throws IOException
+	{
+		Map<Integer, byte[]> containers = new HashMap<>();
+		ByteBuf table = Unpooled.buffer();
+
+		for (Index index : store.getIndexes())
+		{
+			byte[] indexData = index.toIndexData().writeIndexData();
+
+			Container container = new Container(index.getCompression(), -1);
+			container.compress(indexData, null);
+			containers.put(index.getId(), container.data);
+
+			table.writeInt(container.crc);
+			table.writeInt(index.getRevision());
+		}
+
+		Container container = new Container(CompressionType.NONE, -1);
+		container.compress(Arrays.copyOf(table.array(), table.writerIndex()), null);
+
+		indexContainers = containers;
+		indexTable = container.data;
+	}
+
+	@Override
+	public void close()
+	{
+		channel.close().syncUninterruptibly();
+		group.shutdownGracefully();
+	}
+
+	private byte[] getArchive(int indexId, int archiveId) throws IOException
+	{
+		if (indexId == 255)
+		{
+			return archiveId == 255 ? indexTable : indexContainers.get(archiveId);
+		}
+
+		Index index = store.findIndex(indexId);
+		Archive archive = index == null ? null : index.getArchive(archiveId);
+		if (archive == null)
+		{
+			return null;
+		}
+
+		byte[] data = store.getStorage().loadArchive(archive);
+		if (data == null)
+		{
+			return null;
+		}
+
+		// archives are sent without the trailing revision
+		int compression = data[0];
+		int compressedLength = ((data[1] & 0xFF) << 24) | ((data[2] & 0xFF) << 16) | ((data[3] & 0xFF) << 8) | (data[4] & 0xFF);
+		int length = 5 + compressedLength + (compression != CompressionType.NONE ? 4 : 0);
+		return Arrays.copyOf(data, length);
+	}
+
+	private class RequestHandler extends SimpleChannelInboundHandler<Object>
+	{
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception
+		{
+			if (msg instanceof UpdateHandshakePacket)
+			{
+				ctx.pipeline().replace("decoder", "decoder", new RequestDecoder());
+
+				HandshakeResponsePacket response = new HandshakeResponsePacket();
+				response.setResponse(HandshakeResponseType.RESPONSE_OK);
+				ctx.writeAndFlush(response);
+				return;
+			}
+
+			if (msg instanceof ArchiveRequestPacket)
+			{
+				ArchiveRequestPacket request = (ArchiveRequestPacket) msg;
+				requests.add(request.getIndex() + "/" + request.getArchive());
+
+				byte[] data = getArchive(request.getIndex(), request.getArchive());
+				if (data == null)
+				{
+					ctx.close();
+					return;
+				}
+
+				ArchiveResponsePacket response = new ArchiveResponsePacket();
+				response.setIndex(request.getIndex());
+				response.setArchive(request.getArchive());
+				response.setData(data);
+				ctx.writeAndFlush(response);
+			}
+		}
+	}
+
+	/**
+	 * Decodes the fixed size update requests, ignoring all but archive
+	 * requests
+	 */
+	private static class RequestDecoder extends ByteToMessageDecoder
+	{
+		@Override
+		protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception
+		{
+			while (in.readableBytes() >= 4)
+			{
+				int opcode = in.readUnsignedByte();
+				if (opcode != UpdateOpcodes.ARCHIVE_REQUEST_LOW && opcode != UpdateOpcodes.ARCHIVE_REQUEST_HIGH)
+				{
+					in.skipBytes(3);
+					continue;
+				}
+
+				ArchiveRequestPacket request = new ArchiveRequestPacket();
+				request.setPriority(opcode == UpdateOpcodes.ARCHIVE_REQUEST_HIGH);
+				request.setIndex(in.readUnsignedByte());
+				request.setArchive(in.readUnsignedShort());
+				out.add(request);
+			}
+		}
+	}
+}
@@ -27,6 +27,8 @@ package net.runelite.cache;
 import java.io.File;
 import java.io.IOException;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompactionResult;
+import net.runelite.cache.fs.jagex.DataFileCompactor;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -40,6 +42,7 @@ public class Cache
 		Options options = new Options();
 
 		options.addOption("c", "cache", true, "cache base");
+		options.addOption(null, "compact", false, "compact the cache data file");
 
 		options.addOption(null, "items", true, "directory to dump items to");
 		options.addOption(null, "npcs", true, "directory to dump npcs to");
@@ -61,6 +64,15 @@ public class Cache
 
 		String cache = cmd.getOptionValue("cache");
 
+		if (cmd.hasOption("compact"))
+		{
+			System.out.println("Compacting " + cache);
+			CompactionResult result = new DataFileCompactor(new File(cache)).compact();
+			System.out.println("Reclaimed " + result.getReclaimed() + " bytes from " + result.getArchives() + " archives, "
+				+ "fragmentation " + result.getFragmentationBefore() + " -> " + result.getFragmentationAfter());
+			return;
+		}
+
 		Store store = loadStore(cache);
 
 		if (cmd.hasOption("items"))
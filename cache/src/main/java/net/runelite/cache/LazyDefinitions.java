@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+
+/**
+ * The definitions of a config archive, which keeps the raw file contents
+ * and decodes each definition the first time it is looked up. Lookups
+ * are thread safe.
+ *
+ * @param <T> definition type
+ */
+public class LazyDefinitions<T>
+{
+	@FunctionalInterface
+	public interface Loader<T>
+	{
+		T load(int id, byte[] b);
+	}
+
+	private final Loader<T> loader;
+	private final byte[][] contents;
+	private final AtomicReferenceArray<T> definitions;
+	private final int count;
+
+	private LazyDefinitions(Loader<T> loader, byte[][] contents, int count)
+	{
+		this.loader = loader;
+		this.contents = contents;
+		this.definitions = new AtomicReferenceArray<>(contents.length);
+		this.count = count;
+	}
+
+	/**
+	 * Read the files of a config archive, without decoding them
+	 *
+	 * @param store
+	 * @param type config archive to read
+	 * @param loader loader to decode definitions with, which must be thread safe
+	 * @throws IOException
+	 */
+	public static <T> LazyDefinitions<T> load(Store store, ConfigType type, Loader<T> loader) throws IOException
+	{
+		Index index = store.getIndex(IndexType.CONFIGS);
+		Archive archive = index.getArchive(type.getId());
+
+		ArchiveFiles files = store.getArchiveFiles(archive);
+
+		int maxId = -1;
+		for (FSFile f : files.getFiles())
+		{
+			maxId = Math.max(maxId, f.getFileId());
+		}
+
+		byte[][] contents = new byte[maxId + 1][];
+		for (FSFile f : files.getFiles())
+		{
+			contents[f.getFileId()] = f.getContents();
+		}
+
+		return new LazyDefinitions<>(loader, contents, files.getFiles().size());
+	}
+
+	/**
+	 * Get a definition, decoding it if this is the first time it is used
+	 *
+	 * @param id
+	 * @return the definition, or null if there is no definition with the id
+	 */
+	public T get(int id)
+	{
+		if (id < 0 || id >= contents.length)
+		{
+			return null;
+		}
+
+		T definition = definitions.get(id);
+		if (definition != null)
+		{
+			return definition;
+		}
+
+		byte[] b = contents[id];
+		if (b == null)
+		{
+			return null;
+		}
+
+		definition = loader.load(id, b);
+		if (!definitions.compareAndSet(id, null, definition))
+		{
+			// another thread decoded it first, use theirs so there is only one instance
+			definition = definitions.get(id);
+		}
+		return definition;
+	}
+
+	/**
+	 * Get all definitions in id order, decoding any which have not been used yet
+	 */
+	public Collection<T> getAll()
+	{
+		List<T> all = new ArrayList<>(count);
+		for (int id = 0; id < contents.length; ++id)
+		{
+			T definition = get(id);
+			if (definition != null)
+			{
+				all.add(definition);
+			}
+		}
+		return all;
+	}
+
+	/**
+	 * Get the number of definitions, without decoding them
+	 */
+	public int size()
+	{
+		return count;
+	}
+}
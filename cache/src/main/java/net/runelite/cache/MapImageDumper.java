@@ -27,10 +27,25 @@ package net.runelite.cache;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
 import lombok.Getter;
 import lombok.Setter;
 import net.runelite.cache.definitions.AreaDefinition;
@@ -45,7 +60,6 @@ import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.item.ColorPalette;
 import net.runelite.cache.item.RSTextureProvider;
@@ -64,6 +78,7 @@ public class MapImageDumper
 	private static final int MAPICON_MAX_WIDTH = 5; // scale minimap icons down to this size so they fit..
 	private static final int MAPICON_MAX_HEIGHT = 6;
 	private static final int BLEND = 5; // number of surrounding tiles for ground blending
+	private static final int TILE_SIZE = Region.X * MAP_SCALE; // one region per tile at the highest zoom level
 
 	private static int[] colorPalette = new ColorPalette(0.9d, 0, 512).getColorPalette();
 
@@ -79,6 +94,12 @@ public class MapImageDumper
 	private final Map<Integer, OverlayDefinition> overlays = new HashMap<>();
 	private final Map<Integer, Image> scaledMapIcons = new HashMap<>();
 
+	/**
+	 * Per thread scratch buffers, so rendering a region does not allocate
+	 * its intermediate pixel arrays and tile images every time.
+	 */
+	private final ThreadLocal<RenderBuffers> renderBuffers = ThreadLocal.withInitial(RenderBuffers::new);
+
 	private RegionLoader regionLoader;
 	private final AreaManager areas;
 	private final SpriteManager sprites;
@@ -144,6 +165,354 @@ public class MapImageDumper
 		return image;
 	}
 
+	/**
+	 * Draws the map as a slippy map tile pyramid, written to
+	 * {@code outDir/<zoom>/<x>/<y>.png}. The highest zoom level has one
+	 * {@value #TILE_SIZE}px tile per region, and each lower level is
+	 * downsampled from the tiles already written to disk, so memory use
+	 * depends on the tile size rather than the size of the world.
+	 *
+	 * @param z plane to draw
+	 * @param outDir directory to write tiles to
+	 * @param executor executor the regions and tiles are rendered on
+	 * @return the highest zoom level
+	 * @throws IOException
+	 */
+	public int drawMapTiles(int z, File outDir, ExecutorService executor) throws IOException
+	{
+		return drawMapTiles(z, outDir, executor, false);
+	}
+
+	/**
+	 * Draws the map as a slippy map tile pyramid, as
+	 * {@link #drawMapTiles(int, File, ExecutorService)}. A manifest of the
+	 * region archive crcs and definitions each tile was drawn from is kept in
+	 * {@code outDir}, and when {@code incremental} is set only the regions
+	 * whose inputs changed since the previous render, and their neighbours,
+	 * are redrawn along with the lower zoom tiles covering them.
+	 *
+	 * @param z plane to draw
+	 * @param outDir directory to write tiles to
+	 * @param executor executor the regions and tiles are rendered on
+	 * @param incremental whether to reuse the tiles of a previous render
+	 * @return the highest zoom level
+	 * @throws IOException
+	 */
+	public int drawMapTiles(int z, File outDir, ExecutorService executor, boolean incremental) throws IOException
+	{
+		int minRegionX = regionLoader.getLowestX().getRegionX();
+		int maxRegionY = regionLoader.getHighestY().getRegionY();
+
+		int dimX = regionLoader.getHighestX().getRegionX() - minRegionX + 1;
+		int dimY = maxRegionY - regionLoader.getLowestY().getRegionY() + 1;
+
+		int maxZoom = 32 - Integer.numberOfLeadingZeros(Math.max(dimX, dimY) - 1);
+
+		MapTileManifest manifest = buildManifest(z, minRegionX, maxRegionY, maxZoom);
+		MapTileManifest previous = incremental ? MapTileManifest.read(outDir) : null;
+
+		Set<Integer> dirty;
+		Set<Integer> removed;
+		if (manifest.isCompatible(previous))
+		{
+			dirty = manifest.getDirtyRegions(previous);
+			removed = manifest.getRemovedRegions(previous);
+		}
+		else
+		{
+			if (incremental)
+			{
+				logger.info("No compatible manifest in {}, drawing all regions", outDir);
+			}
+
+			dirty = manifest.getRegions().keySet();
+			removed = Collections.emptySet();
+		}
+
+		logger.info("Drawing {} of {}x{} regions as zoom levels 0-{} of {}px tiles", dirty.size(), dimX, dimY, maxZoom, TILE_SIZE);
+
+		Set<Long> tiles = new HashSet<>();
+		Set<Long> changed = new HashSet<>();
+		List<Future<?>> futures = new ArrayList<>();
+		for (Region region : regionLoader.getRegions())
+		{
+			int tileX = manifest.tileX(region.getRegionID());
+			int tileY = manifest.tileY(region.getRegionID());
+
+			tiles.add(packTile(tileX, tileY));
+			if (!dirty.contains(region.getRegionID()))
+			{
+				continue;
+			}
+
+			changed.add(packTile(tileX, tileY));
+			futures.add(executor.submit(() ->
+			{
+				writeTile(drawRegionTile(region, z), tileFile(outDir, maxZoom, tileX, tileY));
+				return null;
+			}));
+		}
+		awaitAll(futures);
+
+		for (int regionId : removed)
+		{
+			int tileX = manifest.tileX(regionId);
+			int tileY = manifest.tileY(regionId);
+
+			changed.add(packTile(tileX, tileY));
+			tileFile(outDir, maxZoom, tileX, tileY).delete();
+		}
+
+		for (int zoom = maxZoom - 1; zoom >= 0; --zoom)
+		{
+			Set<Long> parents = new HashSet<>();
+			for (long tile : tiles)
+			{
+				parents.add(packTile(unpackTileX(tile) >> 1, unpackTileY(tile) >> 1));
+			}
+
+			Set<Long> changedParents = new HashSet<>();
+			for (long tile : changed)
+			{
+				changedParents.add(packTile(unpackTileX(tile) >> 1, unpackTileY(tile) >> 1));
+			}
+
+			final int childZoom = zoom + 1;
+			final int parentZoom = zoom;
+			final Set<Long> children = tiles;
+			for (long tile : changedParents)
+			{
+				File file = tileFile(outDir, parentZoom, unpackTileX(tile), unpackTileY(tile));
+				if (!parents.contains(tile))
+				{
+					file.delete();
+					continue;
+				}
+
+				futures.add(executor.submit(() ->
+				{
+					writeTile(downsampleTile(outDir, childZoom, children, unpackTileX(tile), unpackTileY(tile)), file);
+					return null;
+				}));
+			}
+			awaitAll(futures);
+
+			tiles = parents;
+			changed = changedParents;
+		}
+
+		manifest.write(outDir);
+
+		return maxZoom;
+	}
+
+	private MapTileManifest buildManifest(int z, int minRegionX, int maxRegionY, int maxZoom)
+	{
+		MapTileManifest manifest = new MapTileManifest();
+		manifest.setPlane(z);
+		manifest.setMinRegionX(minRegionX);
+		manifest.setMaxRegionY(maxRegionY);
+		manifest.setMaxZoom(maxZoom);
+		manifest.setGlobalCrcs(new int[]{
+			store.getIndex(IndexType.SPRITES).getCrc(),
+			store.getIndex(IndexType.TEXTURES).getCrc()
+		});
+
+		Index maps = store.getIndex(IndexType.MAPS);
+		for (Region region : regionLoader.getRegions())
+		{
+			Archive map = maps.findArchiveByName("m" + region.getRegionX() + "_" + region.getRegionY());
+			Archive land = maps.findArchiveByName("l" + region.getRegionX() + "_" + region.getRegionY());
+
+			manifest.getRegions().put(region.getRegionID(), new MapTileManifest.RegionInputs(
+				map.getCrc(),
+				land != null ? land.getCrc() : 0,
+				hashDefinitions(region)
+			));
+		}
+
+		return manifest;
+	}
+
+	/**
+	 * Hash the definitions used to draw a region. Definitions of
+	 * neighbouring regions which are blended in are covered by marking
+	 * the neighbours of changed regions dirty.
+	 */
+	private int hashDefinitions(Region region)
+	{
+		Set<Integer> underlayIds = new TreeSet<>();
+		Set<Integer> overlayIds = new TreeSet<>();
+		Set<Integer> objectIds = new TreeSet<>();
+
+		for (int z = 0; z < Region.Z; ++z)
+		{
+			for (int x = 0; x < Region.X; ++x)
+			{
+				for (int y = 0; y < Region.Y; ++y)
+				{
+					int underlayId = region.getUnderlayId(z, x, y);
+					if (underlayId > 0)
+					{
+						underlayIds.add(underlayId - 1);
+					}
+
+					int overlayId = region.getOverlayId(z, x, y);
+					if (overlayId > 0)
+					{
+						overlayIds.add(overlayId - 1);
+					}
+				}
+			}
+		}
+
+		for (Location location : region.getLocations())
+		{
+			objectIds.add(location.getId());
+		}
+
+		int hash = 1;
+		for (int id : underlayIds)
+		{
+			hash = 31 * hash + Objects.hash(id, findUnderlay(id));
+		}
+		for (int id : overlayIds)
+		{
+			hash = 31 * hash + Objects.hash(id, findOverlay(id));
+		}
+		for (int id : objectIds)
+		{
+			ObjectDefinition object = findObject(id);
+			hash = 31 * hash + Objects.hash(id, object);
+
+			if (object != null && object.getMapAreaId() != -1)
+			{
+				hash = 31 * hash + Objects.hashCode(areas.getArea(object.getMapAreaId()));
+			}
+		}
+		return hash;
+	}
+
+	private BufferedImage drawRegionTile(Region region, int z)
+	{
+		BufferedImage image = renderBuffers.get().tile;
+		Arrays.fill(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0);
+
+		drawMap(image, 0, 0, z, region);
+		drawObjects(image, 0, 0, region, z);
+		drawMapIcons(image, 0, 0, region, z);
+
+		// icons near the edges of neighbouring regions can overlap into this tile
+		Graphics2D graphics = image.createGraphics();
+		for (int dx = -1; dx <= 1; ++dx)
+		{
+			for (int dy = -1; dy <= 1; ++dy)
+			{
+				if (dx == 0 && dy == 0)
+				{
+					continue;
+				}
+
+				Region neighbour = regionLoader.findRegionForWorldCoordinates(region.getBaseX() + dx * Region.X, region.getBaseY() + dy * Region.Y);
+				if (neighbour != null)
+				{
+					drawMapIcons(graphics, neighbour, z, dx * Region.X, -dy * Region.Y);
+				}
+			}
+		}
+		graphics.dispose();
+
+		return image;
+	}
+
+	private BufferedImage downsampleTile(File outDir, int childZoom, Set<Long> children, int tileX, int tileY) throws IOException
+	{
+		BufferedImage image = renderBuffers.get().tile;
+		Arrays.fill(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0);
+
+		Graphics2D graphics = image.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+		int half = TILE_SIZE / 2;
+		for (int i = 0; i < 2; ++i)
+		{
+			for (int j = 0; j < 2; ++j)
+			{
+				int childX = tileX << 1 | i;
+				int childY = tileY << 1 | j;
+				if (!children.contains(packTile(childX, childY)))
+				{
+					continue;
+				}
+
+				BufferedImage child = ImageIO.read(tileFile(outDir, childZoom, childX, childY));
+				graphics.drawImage(child, i * half, j * half, half, half, null);
+			}
+		}
+
+		graphics.dispose();
+		return image;
+	}
+
+	private static void writeTile(BufferedImage image, File file) throws IOException
+	{
+		file.getParentFile().mkdirs();
+		ImageIO.write(image, "png", file);
+	}
+
+	private static File tileFile(File outDir, int zoom, int tileX, int tileY)
+	{
+		return new File(outDir, zoom + File.separator + tileX + File.separator + tileY + ".png");
+	}
+
+	private static long packTile(int tileX, int tileY)
+	{
+		return (long) tileX << 32 | tileY;
+	}
+
+	private static int unpackTileX(long tile)
+	{
+		return (int) (tile >>> 32);
+	}
+
+	private static int unpackTileY(long tile)
+	{
+		return (int) tile;
+	}
+
+	private static void awaitAll(List<Future<?>> futures) throws IOException
+	{
+		try
+		{
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(ex);
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+		finally
+		{
+			for (Future<?> future : futures)
+			{
+				future.cancel(false);
+			}
+			futures.clear();
+		}
+	}
+
 	public BufferedImage drawRegion(Region region, int z)
 	{
 		int pixelsX = Region.X * MAP_SCALE;
@@ -160,13 +529,17 @@ public class MapImageDumper
 
 	private void drawMap(BufferedImage image, int drawBaseX, int drawBaseY, int z, Region region)
 	{
-		int[][] map = new int[Region.X * MAP_SCALE][Region.Y * MAP_SCALE];
+		RenderBuffers buffers = renderBuffers.get();
+		int[] raster = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int width = image.getWidth();
+
+		int[][] map = buffers.clear(buffers.map);
 		drawMap(map, region, z);
 
 		int[][] above = null;
 		if (z < 3)
 		{
-			above = new int[Region.X * MAP_SCALE][Region.Y * MAP_SCALE];
+			above = buffers.clear(buffers.above);
 			drawMap(above, region, z + 1);
 		}
 
@@ -179,12 +552,12 @@ public class MapImageDumper
 				int tileSetting = region.getTileSetting(z, x, Region.Y - y - 1);
 				if (!isBridge && ((tileSetting & 24) == 0))
 				{
-					drawTile(image, map, drawBaseX, drawBaseY, x, y);
+					drawTile(raster, width, map, drawBaseX, drawBaseY, x, y);
 				}
 
 				if (z < 3 && isBridge) // client also has a check for &8 != 0 here
 				{
-					drawTile(image, above, drawBaseX, drawBaseY, x, y);
+					drawTile(raster, width, above, drawBaseX, drawBaseY, x, y);
 				}
 			}
 		}
@@ -208,15 +581,16 @@ public class MapImageDumper
 		}
 	}
 
-	private void drawTile(BufferedImage to, int[][] pixels, int drawBaseX, int drawBaseY, int x, int y)
+	private void drawTile(int[] to, int width, int[][] pixels, int drawBaseX, int drawBaseY, int x, int y)
 	{
 		for (int i = 0; i < MAP_SCALE; ++i)
 		{
+			int[] column = pixels[x * MAP_SCALE + i];
+			int offset = (drawBaseY * MAP_SCALE + y * MAP_SCALE) * width + drawBaseX * MAP_SCALE + x * MAP_SCALE + i;
+
 			for (int j = 0; j < MAP_SCALE; ++j)
 			{
-				to.setRGB(drawBaseX * MAP_SCALE + x * MAP_SCALE + i,
-					drawBaseY * MAP_SCALE + y * MAP_SCALE + j,
-					pixels[x * MAP_SCALE + i][y * MAP_SCALE + j]);
+				to[offset + j * width] = column[y * MAP_SCALE + j];
 			}
 		}
 	}
@@ -905,12 +1279,10 @@ public class MapImageDumper
 
 	private void loadUnderlays(Store store) throws IOException
 	{
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.UNDERLAY.getId());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.getArchiveFiles(archive);
 
 		for (FSFile file : files.getFiles())
 		{
@@ -928,12 +1300,10 @@ public class MapImageDumper
 
 	private void loadOverlays(Store store) throws IOException
 	{
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.OVERLAY.getId());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.getArchiveFiles(archive);
 
 		for (FSFile file : files.getFiles())
 		{
@@ -951,13 +1321,12 @@ public class MapImageDumper
 
 	private void loadSprites() throws IOException
 	{
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.SPRITES);
 		final int mapsceneHash = Djb2.hash("mapscene");
 
 		for (Archive a : index.getArchives())
 		{
-			byte[] contents = a.decompress(storage.loadArchive(a));
+			byte[] contents = store.decompressArchive(a);
 
 			SpriteLoader loader = new SpriteLoader();
 			SpriteDefinition[] sprites = loader.load(a.getArchiveId(), contents);
@@ -974,8 +1343,13 @@ public class MapImageDumper
 					BufferedImage spriteImage = new BufferedImage(sprite.getWidth(), sprite.getHeight(), BufferedImage.TYPE_INT_ARGB);
 					spriteImage.setRGB(0, 0, sprite.getWidth(), sprite.getHeight(), sprite.getPixels(), 0, sprite.getWidth());
 
-					// scale image down so it fits
-					Image scaledImage = spriteImage.getScaledInstance(MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, 0);
+					// scale image down so it fits. This is drawn into a BufferedImage up front as
+					// the scaled instance is produced lazily, which doesn't work well when drawing
+					// from several threads
+					BufferedImage scaledImage = new BufferedImage(MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+					Graphics2D graphics = scaledImage.createGraphics();
+					graphics.drawImage(spriteImage, 0, 0, MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, null);
+					graphics.dispose();
 
 					assert scaledMapIcons.containsKey(sprite.getFrame()) == false;
 					scaledMapIcons.put(sprite.getFrame(), scaledImage);
@@ -984,4 +1358,19 @@ public class MapImageDumper
 		}
 	}
 
+	private static class RenderBuffers
+	{
+		private final int[][] map = new int[Region.X * MAP_SCALE][Region.Y * MAP_SCALE];
+		private final int[][] above = new int[Region.X * MAP_SCALE][Region.Y * MAP_SCALE];
+		private final BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+
+		private int[][] clear(int[][] pixels)
+		{
+			for (int[] column : pixels)
+			{
+				Arrays.fill(column, 0);
+			}
+			return pixels;
+		}
+	}
 }
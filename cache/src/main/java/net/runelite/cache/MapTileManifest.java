@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Records the inputs each region tile of a {@link MapImageDumper} tile
+ * pyramid was drawn from, so a later cache only needs to redraw the
+ * regions whose inputs have changed.
+ */
+@Data
+class MapTileManifest
+{
+	static final String FILE_NAME = "manifest.json";
+
+	private static final Gson GSON = new Gson();
+
+	/**
+	 * Regions are blended with, and have icons overlapping into, their
+	 * immediate neighbours
+	 */
+	private static final int[][] NEIGHBOURS = {
+		{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}
+	};
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	static class RegionInputs
+	{
+		/**
+		 * crc of the m{x}_{y} archive
+		 */
+		private int mapCrc;
+		/**
+		 * crc of the l{x}_{y} archive, or 0 if it has no locations
+		 */
+		private int landCrc;
+		/**
+		 * digest of the underlay, overlay and object definitions used
+		 * by the region
+		 */
+		private int definitions;
+	}
+
+	private int plane;
+	private int minRegionX;
+	private int maxRegionY;
+	private int maxZoom;
+	/**
+	 * crcs of the indexes of shared inputs, such as sprites and textures,
+	 * which force a full redraw when they change
+	 */
+	private int[] globalCrcs;
+	private Map<Integer, RegionInputs> regions = new HashMap<>();
+
+	/**
+	 * Whether tiles drawn from {@code other} are laid out the same as
+	 * this manifest, and were drawn from the same shared inputs
+	 */
+	boolean isCompatible(MapTileManifest other)
+	{
+		return other != null
+			&& plane == other.plane
+			&& minRegionX == other.minRegionX
+			&& maxRegionY == other.maxRegionY
+			&& maxZoom == other.maxZoom
+			&& Arrays.equals(globalCrcs, other.globalCrcs);
+	}
+
+	/**
+	 * Find the regions which have to be redrawn given the manifest of
+	 * the previous render. This is every region whose inputs changed, and
+	 * the neighbours of regions which changed, were added, or were removed.
+	 *
+	 * @param previous
+	 * @return region ids to redraw
+	 */
+	Set<Integer> getDirtyRegions(MapTileManifest previous)
+	{
+		Set<Integer> changed = new HashSet<>();
+		for (Map.Entry<Integer, RegionInputs> entry : regions.entrySet())
+		{
+			if (!entry.getValue().equals(previous.regions.get(entry.getKey())))
+			{
+				changed.add(entry.getKey());
+			}
+		}
+		changed.addAll(getRemovedRegions(previous));
+
+		Set<Integer> dirty = new HashSet<>();
+		for (int regionId : changed)
+		{
+			dirty.add(regionId);
+
+			int regionX = regionId >> 8;
+			int regionY = regionId & 0xFF;
+			for (int[] offset : NEIGHBOURS)
+			{
+				int x = regionX + offset[0];
+				int y = regionY + offset[1];
+				if (x >= 0 && y >= 0 && y <= 0xFF)
+				{
+					dirty.add(x << 8 | y);
+				}
+			}
+		}
+
+		dirty.retainAll(regions.keySet());
+		return dirty;
+	}
+
+	/**
+	 * Find the regions which were in the previous render but no longer exist
+	 *
+	 * @param previous
+	 * @return region ids
+	 */
+	Set<Integer> getRemovedRegions(MapTileManifest previous)
+	{
+		Set<Integer> removed = new HashSet<>(previous.regions.keySet());
+		removed.removeAll(regions.keySet());
+		return removed;
+	}
+
+	static MapTileManifest read(File outDir) throws IOException
+	{
+		File file = new File(outDir, FILE_NAME);
+		if (!file.exists())
+		{
+			return null;
+		}
+
+		try (Reader reader = new FileReader(file))
+		{
+			return GSON.fromJson(reader, MapTileManifest.class);
+		}
+		catch (JsonParseException ex)
+		{
+			throw new IOException("unable to parse " + file, ex);
+		}
+	}
+
+	void write(File outDir) throws IOException
+	{
+		File file = new File(outDir, FILE_NAME);
+		File tmp = new File(outDir, FILE_NAME + ".tmp");
+
+		try (Writer writer = new FileWriter(tmp))
+		{
+			GSON.toJson(this, writer);
+		}
+
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Tile x coordinate of a region at the highest zoom level
+	 */
+	int tileX(int regionId)
+	{
+		return (regionId >> 8) - minRegionX;
+	}
+
+	/**
+	 * Tile y coordinate of a region at the highest zoom level
+	 */
+	int tileY(int regionId)
+	{
+		return maxRegionY - (regionId & 0xFF);
+	}
+}
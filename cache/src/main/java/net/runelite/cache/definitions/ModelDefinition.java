@@ -632,4 +632,49 @@ public class ModelDefinition
 			}
 		}
 	}
+
+	/**
+	 * Create a copy of this model which can be resized, recolored,
+	 * retextured, moved, rotated or mirrored without affecting this model. Arrays which are
+	 * never modified in place are shared, and derived data such as normals
+	 * is recomputed on demand.
+	 *
+	 * @return the copy
+	 */
+	public ModelDefinition copy()
+	{
+		ModelDefinition copy = new ModelDefinition();
+		copy.id = id;
+		copy.vertexCount = vertexCount;
+		copy.vertexPositionsX = vertexPositionsX == null ? null : vertexPositionsX.clone();
+		copy.vertexPositionsY = vertexPositionsY == null ? null : vertexPositionsY.clone();
+		copy.vertexPositionsZ = vertexPositionsZ == null ? null : vertexPositionsZ.clone();
+		copy.faceCount = faceCount;
+		copy.faceVertexIndices1 = faceVertexIndices1 == null ? null : faceVertexIndices1.clone();
+		copy.faceVertexIndices2 = faceVertexIndices2;
+		copy.faceVertexIndices3 = faceVertexIndices3 == null ? null : faceVertexIndices3.clone();
+		copy.faceAlphas = faceAlphas;
+		copy.faceColors = faceColors == null ? null : faceColors.clone();
+		copy.faceRenderPriorities = faceRenderPriorities;
+		copy.faceRenderTypes = faceRenderTypes;
+		copy.textureTriangleCount = textureTriangleCount;
+		copy.textureTriangleVertexIndices1 = textureTriangleVertexIndices1;
+		copy.textureTriangleVertexIndices2 = textureTriangleVertexIndices2;
+		copy.textureTriangleVertexIndices3 = textureTriangleVertexIndices3;
+		copy.texturePrimaryColors = texturePrimaryColors;
+		copy.faceTextures = faceTextures == null ? null : faceTextures.clone();
+		copy.textureCoordinates = textureCoordinates;
+		copy.textureRenderTypes = textureRenderTypes;
+		copy.vertexSkins = vertexSkins;
+		copy.faceSkins = faceSkins;
+		copy.priority = priority;
+		copy.aShortArray2574 = aShortArray2574;
+		copy.aShortArray2575 = aShortArray2575;
+		copy.aShortArray2577 = aShortArray2577;
+		copy.aShortArray2578 = aShortArray2578;
+		copy.aByteArray2580 = aByteArray2580;
+		copy.aShortArray2586 = aShortArray2586;
+		copy.maxPriority = maxPriority;
+		return copy;
+	}
 }
@@ -40,6 +40,7 @@ public class Archive
 	private int crc;
 	private int revision;
 	private int compression;
+	private boolean compressionKnown; // whether compression was set, or is just the default
 	private FileData[] fileData;
 	private byte[] hash; // used by webservice, sha256 hash of content
 
@@ -145,7 +146,18 @@ public class Archive
 	public ArchiveFiles getFiles(byte[] data, int[] keys) throws IOException
 	{
 		byte[] decompressedData = decompress(data, keys);
+		return loadFiles(decompressedData);
+	}
 
+	/**
+	 * Split already decompressed archive contents into the archive's files
+	 *
+	 * @param decompressedData decompressed archive contents
+	 * @return
+	 * @throws IOException
+	 */
+	public ArchiveFiles loadFiles(byte[] decompressedData) throws IOException
+	{
 		ArchiveFiles files = new ArchiveFiles();
 		for (FileData fileEntry : fileData)
 		{
@@ -169,7 +181,11 @@ public class Archive
 
 	public void setNameHash(int nameHash)
 	{
-		this.nameHash = nameHash;
+		if (this.nameHash != nameHash)
+		{
+			this.nameHash = nameHash;
+			index.nameHashChanged();
+		}
 	}
 
 	public int getCrc()
@@ -200,6 +216,17 @@ public class Archive
 	public void setCompression(int compression)
 	{
 		this.compression = compression;
+		this.compressionKnown = true;
+	}
+
+	/**
+	 * Whether the compression of this archive is known. Storages which do
+	 * not keep the compression in the index only learn it when the archive
+	 * is decompressed.
+	 */
+	boolean isCompressionKnown()
+	{
+		return compressionKnown;
 	}
 
 	public FileData[] getFileData()
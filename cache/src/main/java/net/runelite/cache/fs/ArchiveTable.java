@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table of int keys to archives, used by
+ * {@link Index} to look up archives by id and name hash without
+ * boxing keys.
+ */
+class ArchiveTable
+{
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] keys;
+	private Archive[] values; // null marks an empty slot
+	private int mask;
+	private int size;
+
+	ArchiveTable()
+	{
+		allocate(DEFAULT_CAPACITY);
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new int[capacity];
+		values = new Archive[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int slot(int key, int mask)
+	{
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	Archive get(int key)
+	{
+		for (int i = slot(key, mask); ; i = (i + 1) & mask)
+		{
+			Archive value = values[i];
+			if (value == null || keys[i] == key)
+			{
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Map key to value, unless key is already mapped.
+	 *
+	 * @return the existing value for key, or null if value was inserted
+	 */
+	Archive putIfAbsent(int key, Archive value)
+	{
+		int i = slot(key, mask);
+		for (; values[i] != null; i = (i + 1) & mask)
+		{
+			if (keys[i] == key)
+			{
+				return values[i];
+			}
+		}
+
+		keys[i] = key;
+		values[i] = value;
+
+		// keep load factor at or under 0.5
+		if (++size > values.length >> 1)
+		{
+			rehash(values.length << 1);
+		}
+		return null;
+	}
+
+	Archive remove(int key)
+	{
+		int i = slot(key, mask);
+		for (; values[i] != null; i = (i + 1) & mask)
+		{
+			if (keys[i] == key)
+			{
+				break;
+			}
+		}
+
+		Archive removed = values[i];
+		if (removed == null)
+		{
+			return null;
+		}
+
+		// shift back following entries of the probe run into the hole
+		for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask)
+		{
+			int home = slot(keys[j], mask);
+			if (((j - home) & mask) >= ((j - i) & mask))
+			{
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+
+		values[i] = null;
+		--size;
+		return removed;
+	}
+
+	void clear()
+	{
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	private void rehash(int capacity)
+	{
+		int[] oldKeys = keys;
+		Archive[] oldValues = values;
+
+		allocate(capacity);
+		size = 0;
+
+		for (int i = 0; i < oldValues.length; ++i)
+		{
+			if (oldValues[i] != null)
+			{
+				putIfAbsent(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
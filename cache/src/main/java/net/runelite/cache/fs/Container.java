@@ -24,12 +24,11 @@
  */
 package net.runelite.cache.fs;
 
-import static com.google.common.primitives.Bytes.concat;
 import com.google.common.primitives.Ints;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import net.runelite.cache.fs.jagex.CompressionType;
-import net.runelite.cache.io.InputStream;
-import net.runelite.cache.io.OutputStream;
 import net.runelite.cache.util.BZip2;
 import net.runelite.cache.util.Crc32;
 import net.runelite.cache.util.GZip;
@@ -41,10 +40,24 @@ public class Container
 {
 	private static final Logger logger = LoggerFactory.getLogger(Container.class);
 
+	/**
+	 * Upper bound on the decompressed length read from a container header.
+	 * The buffer for the decompressed data is allocated before the payload
+	 * is decoded, so a corrupt header or a wrong xtea key must not be able
+	 * to request an arbitrarily large allocation.
+	 */
+	private static final int MAX_DECOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
+	/**
+	 * Maximum compression ratio of deflate
+	 */
+	private static final int MAX_GZIP_RATIO = 1032;
+
 	public byte[] data;
 	public int compression; // compression
 	public int revision;
 	public int crc; // crc of compressed data
+	private int length = -1; // length of decompressed data, if decompressed
 
 	public Container(int compression, int revision)
 	{
@@ -54,163 +67,232 @@ public class Container
 
 	public void compress(byte[] data, int[] keys) throws IOException
 	{
-		OutputStream stream = new OutputStream();
-
 		byte[] compressedData;
-		int length;
 		switch (compression)
 		{
 			case CompressionType.NONE:
 				compressedData = data;
-				length = compressedData.length;
 				break;
 			case CompressionType.BZ2:
-				compressedData = concat(Ints.toByteArray(data.length), BZip2.compress(data));
-				length = compressedData.length - 4;
+				compressedData = BZip2.compress(data);
 				break;
 			case CompressionType.GZ:
-				compressedData = concat(Ints.toByteArray(data.length), GZip.compress(data));
-				length = compressedData.length - 4;
+				compressedData = GZip.compress(data);
 				break;
 			default:
 				throw new RuntimeException("Unknown compression type");
 		}
 
-		compressedData = encrypt(compressedData, compressedData.length, keys);
+		// compressed payload is prefixed with the decompressed length
+		int length = compressedData.length;
+		int payloadLength = compression == CompressionType.NONE ? length : length + 4;
 
-		stream.writeByte(compression);
-		stream.writeInt(length);
-
-		stream.writeBytes(compressedData);
+		// build the container in one exactly sized buffer and encrypt it in place
+		ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + payloadLength + (revision != -1 ? 2 : 0));
+		buffer.put((byte) compression);
+		buffer.putInt(length);
+		if (compression != CompressionType.NONE)
+		{
+			buffer.putInt(data.length);
+		}
+		buffer.put(compressedData);
 		if (revision != -1)
 		{
-			stream.writeShort(revision);
+			buffer.putShort((short) revision);
 		}
 
-		this.data = stream.flip();
+		byte[] out = buffer.array();
+		if (keys != null)
+		{
+			new Xtea(keys).encrypt(out, 5, payloadLength);
+		}
+
+		// the appended revision is not part of the crc
+		Crc32 crc32 = new Crc32();
+		crc32.update(out, 0, 5 + payloadLength);
+
+		this.data = out;
+		this.crc = crc32.getHash();
 	}
 
 	public static Container decompress(byte[] b, int[] keys) throws IOException
 	{
-		InputStream stream = new InputStream(b);
+		if (keys != null)
+		{
+			// decrypt a copy so the caller's data is left untouched
+			b = Arrays.copyOf(b, b.length);
+		}
+
+		Container container = new Container(0, -1);
+		container.read(b, keys, null);
+		return container;
+	}
+
+	/**
+	 * Get the decompressed length of an unencrypted container
+	 *
+	 * @param b container data
+	 * @return
+	 */
+	public static int getDecompressedLength(byte[] b)
+	{
+		int compression = b[0] & 0xFF;
+		int compressedLength = Ints.fromBytes(b[1], b[2], b[3], b[4]);
+		if (compression == CompressionType.NONE)
+		{
+			return compressedLength;
+		}
+		return Ints.fromBytes(b[5], b[6], b[7], b[8]);
+	}
+
+	/**
+	 * Read the compression type and revision of a container without
+	 * decrypting or decompressing its payload
+	 *
+	 * @param b container data
+	 * @return a container without data
+	 */
+	public static Container readHeader(byte[] b)
+	{
+		int compression = b[0] & 0xFF;
+		int compressedLength = Ints.fromBytes(b[1], b[2], b[3], b[4]);
+		int payloadLength = compression == CompressionType.NONE ? compressedLength : compressedLength + 4;
 
-		int compression = stream.readUnsignedByte();
-		int compressedLength = stream.readInt();
-		if (compressedLength < 0 || compressedLength > 1000000)
+		int revision = -1;
+		if (compressedLength >= 0 && b.length - 5 - payloadLength >= 2)
+		{
+			int pos = 5 + payloadLength;
+			revision = ((b[pos] & 0xFF) << 8) | (b[pos + 1] & 0xFF);
+		}
+		return new Container(compression, revision);
+	}
+
+	/**
+	 * Decompress a container into a caller supplied buffer, without copying
+	 * the compressed payload. Unlike {@link #decompress(byte[], int[])} this
+	 * decrypts b in place if keys are given.
+	 *
+	 * @param b container data
+	 * @param keys xtea keys, or null
+	 * @param out buffer to decompress into. If null or too small, a buffer of
+	 * the exact decompressed length is allocated.
+	 * @return the container, whose data is the buffer decompressed into. The
+	 * decompressed length is {@link #getLength()}.
+	 * @throws IOException
+	 */
+	public static Container decompressInto(byte[] b, int[] keys, byte[] out) throws IOException
+	{
+		Container container = new Container(0, -1);
+		container.read(b, keys, out);
+		return container;
+	}
+
+	/**
+	 * @return length of the decompressed data, which may be less than the
+	 * length of data when decompressed into a caller supplied buffer
+	 */
+	public int getLength()
+	{
+		return length;
+	}
+
+	private void read(byte[] b, int[] keys, byte[] out) throws IOException
+	{
+		if (b.length < 5)
+		{
+			throw new RuntimeException("Invalid data");
+		}
+
+		int compression = b[0] & 0xFF;
+		int compressedLength = Ints.fromBytes(b[1], b[2], b[3], b[4]);
+
+		// compressed payload, including the decompressed length for compressed containers
+		int payloadLength = compression == CompressionType.NONE ? compressedLength : compressedLength + 4;
+		if (compressedLength < 0 || payloadLength > b.length - 5)
 		{
 			throw new RuntimeException("Invalid data");
 		}
 
 		Crc32 crc32 = new Crc32();
-		crc32.update(b, 0, 5); // compression + length
+		crc32.update(b, 0, 5 + payloadLength); // compression + length + payload
+
+		if (keys != null)
+		{
+			new Xtea(keys).decrypt(b, 5, payloadLength);
+		}
 
-		byte[] data;
 		int revision = -1;
+		if (b.length - 5 - payloadLength >= 2)
+		{
+			int pos = 5 + payloadLength;
+			revision = ((b[pos] & 0xFF) << 8) | (b[pos + 1] & 0xFF);
+		}
+
+		int decompressedLength;
 		switch (compression)
 		{
 			case CompressionType.NONE:
 			{
-				byte[] encryptedData = new byte[compressedLength];
-				stream.readBytes(encryptedData, 0, compressedLength);
-
-				crc32.update(encryptedData, 0, compressedLength);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
+				decompressedLength = compressedLength;
+				if (out == null || out.length < decompressedLength)
 				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
+					out = new byte[decompressedLength];
 				}
-
-				data = decryptedData;
-
+				System.arraycopy(b, 5, out, 0, decompressedLength);
 				break;
 			}
 			case CompressionType.BZ2:
 			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
+				decompressedLength = Ints.fromBytes(b[5], b[6], b[7], b[8]);
+				checkDecompressedLength(decompressedLength, MAX_DECOMPRESSED_LENGTH);
+				// an empty stream has no blocks, only the end of stream marker
+				if (decompressedLength > 0 && !BZip2.isBlockHeader(b, 9, compressedLength))
 				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
+					throw new IOException("Invalid BZip2 data");
 				}
 
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = BZip2.decompress(stream.getRemaining(), compressedLength);
-
-				if (data == null)
+				if (out == null || out.length < decompressedLength)
 				{
-					return null;
+					out = new byte[decompressedLength];
+				}
+				if (decompressedLength > 0)
+				{
+					BZip2.decompress(b, 9, compressedLength, out, decompressedLength);
 				}
-
-				assert data.length == decompressedLength;
-
 				break;
 			}
 			case CompressionType.GZ:
 			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
+				decompressedLength = Ints.fromBytes(b[5], b[6], b[7], b[8]);
+				checkDecompressedLength(decompressedLength, (int) Math.min(MAX_DECOMPRESSED_LENGTH, (long) compressedLength * MAX_GZIP_RATIO));
+				if (!GZip.isHeader(b, 9, compressedLength))
 				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
+					throw new IOException("Invalid GZip data");
 				}
 
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = GZip.decompress(stream.getRemaining(), compressedLength);
-
-				if (data == null)
+				if (out == null || out.length < decompressedLength)
 				{
-					return null;
+					out = new byte[decompressedLength];
 				}
-
-				assert data.length == decompressedLength;
-
+				GZip.decompress(b, 9, compressedLength, out, decompressedLength);
 				break;
 			}
 			default:
 				throw new RuntimeException("Unknown decompression type");
 		}
 
-		Container container = new Container(compression, revision);
-		container.data = data;
-		container.crc = crc32.getHash();
-		return container;
-	}
-
-	private static byte[] decrypt(byte[] data, int length, int[] keys)
-	{
-		if (keys == null)
-		{
-			return data;
-		}
-
-		Xtea xtea = new Xtea(keys);
-		return xtea.decrypt(data, length);
+		this.compression = compression;
+		this.revision = revision;
+		this.data = out;
+		this.length = decompressedLength;
+		this.crc = crc32.getHash();
 	}
 
-	private static byte[] encrypt(byte[] data, int length, int[] keys)
+	private static void checkDecompressedLength(int decompressedLength, int max) throws IOException
 	{
-		if (keys == null)
+		if (decompressedLength < 0 || decompressedLength > max)
 		{
-			return data;
+			throw new IOException("Invalid decompressed length " + decompressedLength);
 		}
-
-		Xtea xtea = new Xtea(keys);
-		return xtea.encrypt(data, length);
 	}
 }
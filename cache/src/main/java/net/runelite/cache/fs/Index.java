@@ -47,6 +47,9 @@ public class Index
 	private int compression; // compression method of this index's data in 255
 
 	private final List<Archive> archives = new ArrayList<>();
+	private final ArchiveTable archivesById = new ArchiveTable();
+	private final ArchiveTable archivesByName = new ArchiveTable();
+	private volatile boolean namesValid = true; // whether archivesByName is up to date
 
 	public Index(int id)
 	{
@@ -145,6 +148,11 @@ public class Index
 		this.compression = compression;
 	}
 
+	/**
+	 * Get the archives of this index. Archives should be added and removed
+	 * through {@link #addArchive(int)} and {@link #removeArchive(Archive)}
+	 * so the lookup tables stay in sync.
+	 */
 	public List<Archive> getArchives()
 	{
 		return archives;
@@ -154,32 +162,79 @@ public class Index
 	{
 		Archive archive = new Archive(this, id);
 		this.archives.add(archive);
+		archivesById.putIfAbsent(id, archive);
+		if (namesValid)
+		{
+			archivesByName.putIfAbsent(archive.getNameHash(), archive);
+		}
 		return archive;
 	}
 
-	public Archive getArchive(int id)
+	public void removeArchive(Archive archive)
 	{
-		for (Archive a : archives)
+		if (!archives.remove(archive))
+		{
+			return;
+		}
+
+		int id = archive.getArchiveId();
+		if (archivesById.get(id) == archive)
 		{
-			if (a.getArchiveId() == id)
+			archivesById.remove(id);
+			for (Archive a : archives)
 			{
-				return a;
+				if (a.getArchiveId() == id)
+				{
+					archivesById.putIfAbsent(id, a);
+					break;
+				}
 			}
 		}
-		return null;
+
+		if (archivesByName.get(archive.getNameHash()) == archive)
+		{
+			namesValid = false;
+		}
+	}
+
+	/**
+	 * Called when the name hash of an archive in this index changes
+	 */
+	void nameHashChanged()
+	{
+		namesValid = false;
+	}
+
+	public Archive getArchive(int id)
+	{
+		return archivesById.get(id);
 	}
 
 	public Archive findArchiveByName(String name)
 	{
 		int hash = Djb2.hash(name);
+		if (!namesValid)
+		{
+			rebuildNames();
+		}
+		return archivesByName.get(hash);
+	}
+
+	private synchronized void rebuildNames()
+	{
+		if (namesValid)
+		{
+			return;
+		}
+
+		// names are typically all set right after the archives are added,
+		// so the table is rebuilt once on the first lookup afterwards
+		archivesByName.clear();
 		for (Archive a : archives)
 		{
-			if (a.getNameHash() == hash)
-			{
-				return a;
-			}
+			archivesByName.putIfAbsent(a.getNameHash(), a);
 		}
-		return null;
+		namesValid = true;
 	}
 
 	public IndexData toIndexData()
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * An {@link ArchiveCache} bounded by the total size of the cached archive
+ * contents, evicting the least recently used archives first.
+ */
+public class LruArchiveCache implements ArchiveCache
+{
+	private final Cache<ArchiveCacheKey, byte[]> cache;
+
+	/**
+	 * @param maxBytes maximum total size of cached archive contents
+	 */
+	public LruArchiveCache(long maxBytes)
+	{
+		cache = CacheBuilder.newBuilder()
+			.maximumWeight(maxBytes)
+			.weigher((ArchiveCacheKey k, byte[] v) -> v.length)
+			.recordStats()
+			.build();
+	}
+
+	@Override
+	public byte[] get(int indexId, int archiveId, int crc)
+	{
+		return cache.getIfPresent(new ArchiveCacheKey(indexId, archiveId, crc));
+	}
+
+	@Override
+	public void put(int indexId, int archiveId, int crc, byte[] data)
+	{
+		cache.put(new ArchiveCacheKey(indexId, archiveId, crc), data);
+	}
+
+	@Override
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+	}
+
+	public long size()
+	{
+		return cache.size();
+	}
+
+	public long getHitCount()
+	{
+		return cache.stats().hitCount();
+	}
+
+	public long getMissCount()
+	{
+		return cache.stats().missCount();
+	}
+
+	public long getEvictionCount()
+	{
+		return cache.stats().evictionCount();
+	}
+
+	public CacheStats stats()
+	{
+		return cache.stats();
+	}
+}
@@ -25,6 +25,7 @@
 package net.runelite.cache.fs;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 public interface Storage extends AutoCloseable
 {
@@ -37,6 +38,19 @@ public interface Storage extends AutoCloseable
 
 	void save(Store store) throws IOException;
 
+	/**
+	 * Save the store, doing any compression on the given executor. Storages
+	 * which do not compress in parallel save from the calling thread.
+	 *
+	 * @param store store to save
+	 * @param executor executor to compress on
+	 * @throws IOException
+	 */
+	default void save(Store store, ExecutorService executor) throws IOException
+	{
+		save(store);
+	}
+
 	byte[] loadArchive(Archive archive) throws IOException;
 
 	void saveArchive(Archive archive, byte[] data) throws IOException;
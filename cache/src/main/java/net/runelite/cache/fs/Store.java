@@ -24,13 +24,22 @@
  */
 package net.runelite.cache.fs;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.fs.jagex.DiskStorage;
 import org.slf4j.Logger;
@@ -42,6 +51,23 @@ public final class Store implements Closeable
 
 	private final Storage storage;
 	private final List<Index> indexes = new ArrayList<>();
+	private ArchiveCache archiveCache;
+	// archives with new contents not yet written to the storage, in update order
+	private final Map<Long, DirtyArchive> dirtyArchives = new LinkedHashMap<>();
+
+	private static final class DirtyArchive
+	{
+		private final Archive archive;
+		private final byte[] contents;
+		private final int[] keys;
+
+		private DirtyArchive(Archive archive, byte[] contents, int[] keys)
+		{
+			this.archive = archive;
+			this.contents = contents;
+			this.keys = keys;
+		}
+	}
 
 	public Store(File folder) throws IOException
 	{
@@ -61,6 +87,22 @@ public final class Store implements Closeable
 		return storage;
 	}
 
+	public ArchiveCache getArchiveCache()
+	{
+		return archiveCache;
+	}
+
+	/**
+	 * Set the cache used for decompressed archive contents loaded through
+	 * this store. The cache may be shared between stores.
+	 *
+	 * @param archiveCache archive cache, or null to disable caching
+	 */
+	public void setArchiveCache(ArchiveCache archiveCache)
+	{
+		this.archiveCache = archiveCache;
+	}
+
 	@Override
 	public void close() throws IOException
 	{
@@ -123,7 +165,275 @@ public final class Store implements Closeable
 
 	public void save() throws IOException
 	{
-		storage.save(this);
+		save(MoreExecutors.newDirectExecutorService());
+	}
+
+	/**
+	 * Save the store. Archives updated with
+	 * {@link #updateArchive(Archive, byte[], int[])} are compressed in
+	 * parallel on the executor and then written to the storage in update
+	 * order from the calling thread, followed by the indexes. Archives which
+	 * have not been updated are not rewritten, and storages which support it
+	 * only rewrite the indexes which changed.
+	 *
+	 * @param executor executor to compress archives on
+	 * @throws IOException
+	 */
+	public void save(ExecutorService executor) throws IOException
+	{
+		List<DirtyArchive> dirty;
+		synchronized (this)
+		{
+			dirty = new ArrayList<>(dirtyArchives.values());
+		}
+
+		List<Future<Container>> futures = new ArrayList<>(dirty.size());
+		for (DirtyArchive d : dirty)
+		{
+			Archive archive = d.archive;
+			if (!archive.isCompressionKnown())
+			{
+				loadContainerHeader(archive);
+			}
+
+			int compression = archive.getCompression();
+			int revision = archive.getRevision();
+			futures.add(executor.submit(() ->
+			{
+				Container container = new Container(compression, revision);
+				container.compress(d.contents, d.keys);
+				return container;
+			}));
+		}
+
+		for (int i = 0; i < dirty.size(); ++i)
+		{
+			DirtyArchive d = dirty.get(i);
+			Container container = await(futures.get(i), futures);
+			d.archive.setCrc(container.crc);
+			storage.saveArchive(d.archive, container.data);
+
+			synchronized (this)
+			{
+				// keep the entry if the archive was updated again while saving
+				dirtyArchives.remove(key(d.archive), d);
+			}
+
+			logger.trace("Saved archive {}/{}", d.archive.getIndex().getId(), d.archive.getArchiveId());
+		}
+
+		storage.save(this, executor);
+	}
+
+	/**
+	 * Take the compression and revision of an archive from its container in
+	 * the storage. Archives which are updated without being decompressed
+	 * first, or whose contents came from the archive cache, otherwise have
+	 * no compression set and would be rewritten uncompressed.
+	 */
+	private void loadContainerHeader(Archive archive) throws IOException
+	{
+		byte[] data = storage.loadArchive(archive);
+		if (data == null)
+		{
+			// new archive
+			return;
+		}
+
+		Container header = Container.readHeader(data);
+		archive.setCompression(header.compression);
+		if (header.revision != -1)
+		{
+			archive.setRevision(header.revision);
+		}
+	}
+
+	/**
+	 * Replace the contents of an archive. The contents are compressed and
+	 * written to the storage on the next {@link #save()}, until then they
+	 * are returned by {@link #decompressArchive(Archive, int[])}.
+	 *
+	 * @param archive archive to update
+	 * @param contents new decompressed contents
+	 */
+	public void updateArchive(Archive archive, byte[] contents)
+	{
+		updateArchive(archive, contents, null);
+	}
+
+	/**
+	 * Replace the contents of an encrypted archive.
+	 *
+	 * @param archive archive to update
+	 * @param contents new decompressed contents
+	 * @param keys xtea keys to encrypt the archive with, or null
+	 * @see #updateArchive(Archive, byte[])
+	 */
+	public synchronized void updateArchive(Archive archive, byte[] contents, int[] keys)
+	{
+		dirtyArchives.put(key(archive), new DirtyArchive(archive, contents, keys));
+	}
+
+	/**
+	 * Check whether an archive has been updated since the last save
+	 *
+	 * @param archive
+	 * @return
+	 */
+	public synchronized boolean isDirty(Archive archive)
+	{
+		return dirtyArchives.containsKey(key(archive));
+	}
+
+	private synchronized DirtyArchive getDirtyArchive(Archive archive)
+	{
+		if (dirtyArchives.isEmpty())
+		{
+			return null;
+		}
+		return dirtyArchives.get(key(archive));
+	}
+
+	private static long key(Archive archive)
+	{
+		return (long) archive.getIndex().getId() << 32 | archive.getArchiveId();
+	}
+
+	/**
+	 * Load and decompress an archive, going through the archive cache if
+	 * one is set.
+	 *
+	 * @param archive archive to load
+	 * @return decompressed archive contents, or null if the archive is
+	 * missing from the storage
+	 * @throws IOException
+	 */
+	public byte[] decompressArchive(Archive archive) throws IOException
+	{
+		return decompressArchive(archive, null);
+	}
+
+	/**
+	 * Load and decompress an archive. Encrypted archives are not cached.
+	 *
+	 * @param archive archive to load
+	 * @param keys xtea keys, or null
+	 * @return decompressed archive contents
+	 * @throws IOException
+	 */
+	public byte[] decompressArchive(Archive archive, int[] keys) throws IOException
+	{
+		DirtyArchive dirty = getDirtyArchive(archive);
+		if (dirty != null)
+		{
+			return dirty.contents;
+		}
+
+		final ArchiveCache cache = this.archiveCache;
+		if (cache == null || keys != null)
+		{
+			return archive.decompress(storage.loadArchive(archive), keys);
+		}
+
+		final int indexId = archive.getIndex().getId();
+		byte[] data = cache.get(indexId, archive.getArchiveId(), archive.getCrc());
+		if (data != null)
+		{
+			return data.clone();
+		}
+
+		data = archive.decompress(storage.loadArchive(archive));
+		if (data != null)
+		{
+			cache.put(indexId, archive.getArchiveId(), archive.getCrc(), data.clone());
+		}
+		return data;
+	}
+
+	/**
+	 * Load, decompress, and split an archive into its files
+	 *
+	 * @param archive archive to load
+	 * @return the archive's files, or null if the archive is missing from
+	 * the storage
+	 * @throws IOException
+	 * @see #decompressArchive(Archive)
+	 */
+	public ArchiveFiles getArchiveFiles(Archive archive) throws IOException
+	{
+		byte[] data = decompressArchive(archive);
+		if (data == null)
+		{
+			return null;
+		}
+		return archive.loadFiles(data);
+	}
+
+	/**
+	 * Load and decompress a batch of archives in parallel. The storage must
+	 * support concurrent {@link Storage#loadArchive(Archive)} calls, which
+	 * {@link DiskStorage} and the flat storages do.
+	 *
+	 * @param archives archives to load
+	 * @param executor executor to load and decompress the archives on
+	 * @return decompressed contents of the archives, in the same order as
+	 * archives. Archives missing from the storage have null contents.
+	 * @throws IOException
+	 */
+	public List<byte[]> loadArchives(List<Archive> archives, ExecutorService executor) throws IOException
+	{
+		return loadArchives(archives, a -> null, executor);
+	}
+
+	/**
+	 * Load and decompress a batch of archives in parallel.
+	 *
+	 * @param archives archives to load
+	 * @param keys xtea keys to decrypt each archive with, or null
+	 * @param executor executor to load and decompress the archives on
+	 * @return decompressed contents of the archives, in the same order as
+	 * archives
+	 * @throws IOException
+	 * @see #loadArchives(List, ExecutorService)
+	 */
+	public List<byte[]> loadArchives(List<Archive> archives, Function<Archive, int[]> keys, ExecutorService executor) throws IOException
+	{
+		List<Future<byte[]>> futures = new ArrayList<>(archives.size());
+		for (Archive archive : archives)
+		{
+			futures.add(executor.submit(() -> decompressArchive(archive, keys.apply(archive))));
+		}
+
+		List<byte[]> contents = new ArrayList<>(futures.size());
+		for (Future<byte[]> future : futures)
+		{
+			contents.add(await(future, futures));
+		}
+		return contents;
+	}
+
+	/**
+	 * Wait for a future, cancelling all of the batch's futures if it fails
+	 */
+	private static <T> T await(Future<T> future, List<? extends Future<?>> batch) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException ex)
+		{
+			batch.forEach(f -> f.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted waiting for archives");
+		}
+		catch (ExecutionException ex)
+		{
+			batch.forEach(f -> f.cancel(true));
+			Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new IOException(ex.getCause());
+		}
 	}
 
 	public List<Index> getIndexes()
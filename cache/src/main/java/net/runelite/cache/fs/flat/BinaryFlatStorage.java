@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A binary companion to {@link FlatStorage}. Each index is stored in one
+ * file holding a metadata table, with the offset and length of each
+ * archive's contents, followed by the raw archive contents.
+ * <p>
+ * Loading only parses the metadata tables. The files are memory mapped and
+ * archive contents are copied out of the mappings on demand, so the heap
+ * does not grow with the size of the cache.
+ *
+ * @see FlatStorageConverter
+ */
+public class BinaryFlatStorage implements Storage
+{
+	private static final Logger logger = LoggerFactory.getLogger(BinaryFlatStorage.class);
+
+	static final String EXTENSION = ".flatbin";
+
+	private static final int MAGIC = 0x464c4154; // FLAT
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 4 * 7 + 1;
+	private static final int ARCHIVE_HEADER_SIZE = 4 * 5 + 8 + 4 + 4 + 4;
+	private static final int FILE_SIZE = 4 + 4;
+
+	private final File directory;
+
+	private final Map<Integer, MappedByteBuffer> maps = new ConcurrentHashMap<>();
+	// (index id << 32 | archive id) -> (offset << 32 | length) of the contents
+	private final Map<Long, Long> locations = new ConcurrentHashMap<>();
+	// archives saved since the index files were last written
+	private final Map<Long, byte[]> saved = new ConcurrentHashMap<>();
+
+	public BinaryFlatStorage(File directory)
+	{
+		this.directory = directory;
+	}
+
+	@Override
+	public void init(Store store) throws IOException
+	{
+		String[] idxs = directory.list((dir, name) -> name.endsWith(EXTENSION));
+		if (idxs == null)
+		{
+			throw new IOException("unable to list " + directory);
+		}
+
+		for (String idx : idxs)
+		{
+			int id = Integer.parseInt(idx.substring(0, idx.length() - EXTENSION.length()));
+			store.addIndex(id);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		maps.clear();
+		locations.clear();
+	}
+
+	@Override
+	public void load(Store store) throws IOException
+	{
+		for (Index idx : store.getIndexes())
+		{
+			String file = idx.getId() + EXTENSION;
+			MappedByteBuffer map = map(new File(directory, file));
+			try
+			{
+				loadIndex(idx, map);
+			}
+			catch (RuntimeException ex)
+			{
+				throw new IOException("error reading binary flatcache " + file, ex);
+			}
+			maps.put(idx.getId(), map);
+		}
+	}
+
+	private static MappedByteBuffer map(File file) throws IOException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+		{
+			long length = raf.length();
+			if (length > Integer.MAX_VALUE)
+			{
+				throw new IOException("binary flatcache " + file + " is too large to map");
+			}
+			return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+		}
+	}
+
+	private void loadIndex(Index idx, ByteBuffer buf) throws IOException
+	{
+		if (buf.getInt() != MAGIC)
+		{
+			throw new IOException("not a binary flatcache");
+		}
+
+		int version = buf.getInt();
+		if (version != VERSION)
+		{
+			throw new IOException("unsupported binary flatcache version " + version);
+		}
+
+		idx.setProtocol(buf.getInt());
+		idx.setRevision(buf.getInt());
+		idx.setCompression(buf.getInt());
+		idx.setCrc(buf.getInt());
+		idx.setNamed(buf.get() != 0);
+
+		int archiveCount = buf.getInt();
+		for (int i = 0; i < archiveCount; ++i)
+		{
+			Archive archive = idx.addArchive(buf.getInt());
+			archive.setNameHash(buf.getInt());
+			archive.setRevision(buf.getInt());
+			archive.setCrc(buf.getInt());
+			archive.setCompression(buf.getInt());
+
+			long offset = buf.getLong();
+			int length = buf.getInt();
+			if (offset != -1L)
+			{
+				if (offset + length > buf.capacity())
+				{
+					throw new IOException("contents of archive " + archive.getArchiveId() + " extend past the end of the file");
+				}
+				locations.put(key(idx.getId(), archive.getArchiveId()), offset << 32 | length);
+			}
+
+			int hashLength = buf.getInt();
+			if (hashLength != -1)
+			{
+				byte[] hash = new byte[hashLength];
+				buf.get(hash);
+				archive.setHash(hash);
+			}
+
+			int fileCount = buf.getInt();
+			FileData[] fileData = new FileData[fileCount];
+			for (int j = 0; j < fileCount; ++j)
+			{
+				FileData fd = fileData[j] = new FileData();
+				fd.setId(buf.getInt());
+				fd.setNameHash(buf.getInt());
+			}
+			archive.setFileData(fileData);
+		}
+	}
+
+	@Override
+	public void save(Store store) throws IOException
+	{
+		store.getIndexes().sort(Comparator.comparing(Index::getId));
+		for (Index idx : store.getIndexes())
+		{
+			File file = new File(directory, idx.getId() + EXTENSION);
+			File tmp = new File(directory, idx.getId() + EXTENSION + ".tmp");
+
+			idx.getArchives().sort(Comparator.comparing(Archive::getArchiveId));
+			List<Archive> archives = idx.getArchives();
+
+			int metadataSize = HEADER_SIZE;
+			for (Archive archive : archives)
+			{
+				metadataSize += ARCHIVE_HEADER_SIZE
+					+ (archive.getHash() != null ? archive.getHash().length : 0)
+					+ archive.getFileData().length * FILE_SIZE;
+			}
+
+			long[] offsets = new long[archives.size()];
+			int[] lengths = new int[archives.size()];
+
+			try (FileChannel channel = FileChannel.open(tmp.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+			{
+				// stream the contents after the metadata table one archive at a
+				// time, then go back and write the table with their locations
+				channel.position(metadataSize);
+				OutputStream contentsOut = new BufferedOutputStream(Channels.newOutputStream(channel));
+				long offset = metadataSize;
+				for (int i = 0; i < archives.size(); ++i)
+				{
+					byte[] data = store.getStorage().loadArchive(archives.get(i));
+					if (data != null)
+					{
+						contentsOut.write(data);
+						offsets[i] = offset;
+						lengths[i] = data.length;
+						offset += data.length;
+					}
+					else
+					{
+						offsets[i] = -1L;
+					}
+				}
+				contentsOut.flush();
+
+				channel.position(0);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(idx.getProtocol());
+				out.writeInt(idx.getRevision());
+				out.writeInt(idx.getCompression());
+				out.writeInt(idx.getCrc());
+				out.writeBoolean(idx.isNamed());
+				out.writeInt(archives.size());
+
+				for (int i = 0; i < archives.size(); ++i)
+				{
+					Archive archive = archives.get(i);
+
+					out.writeInt(archive.getArchiveId());
+					out.writeInt(archive.getNameHash());
+					out.writeInt(archive.getRevision());
+					out.writeInt(archive.getCrc());
+					out.writeInt(archive.getCompression());
+					out.writeLong(offsets[i]);
+					out.writeInt(lengths[i]);
+
+					byte[] hash = archive.getHash();
+					if (hash != null)
+					{
+						out.writeInt(hash.length);
+						out.write(hash);
+					}
+					else
+					{
+						out.writeInt(-1);
+					}
+
+					out.writeInt(archive.getFileData().length);
+					for (FileData fd : archive.getFileData())
+					{
+						out.writeInt(fd.getId());
+						out.writeInt(fd.getNameHash());
+					}
+				}
+				out.flush();
+
+				assert out.size() == metadataSize;
+			}
+
+			// the old file may still be mapped, so replace it instead of
+			// writing over it
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			MappedByteBuffer map = map(file);
+			loadLocations(idx, map);
+			maps.put(idx.getId(), map);
+		}
+
+		saved.clear();
+	}
+
+	/**
+	 * Reread the content locations of an index after it has been written
+	 */
+	private void loadLocations(Index idx, ByteBuffer buf)
+	{
+		buf.position(HEADER_SIZE - 4);
+		int archiveCount = buf.getInt();
+		for (int i = 0; i < archiveCount; ++i)
+		{
+			int archiveId = buf.getInt();
+			buf.position(buf.position() + 4 * 4);
+			long offset = buf.getLong();
+			int length = buf.getInt();
+
+			long key = key(idx.getId(), archiveId);
+			if (offset != -1L)
+			{
+				locations.put(key, offset << 32 | length);
+			}
+			else
+			{
+				locations.remove(key);
+			}
+
+			int hashLength = buf.getInt();
+			if (hashLength != -1)
+			{
+				buf.position(buf.position() + hashLength);
+			}
+			int fileCount = buf.getInt();
+			buf.position(buf.position() + fileCount * FILE_SIZE);
+		}
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		final int indexId = archive.getIndex().getId();
+		final long key = key(indexId, archive.getArchiveId());
+
+		byte[] data = saved.get(key);
+		if (data != null)
+		{
+			return data;
+		}
+
+		Long location = locations.get(key);
+		MappedByteBuffer map = maps.get(indexId);
+		if (location == null || map == null)
+		{
+			return null;
+		}
+
+		int offset = (int) (location >>> 32);
+		int length = (int) (long) location;
+
+		// read through a duplicate, the mapping is shared between readers
+		ByteBuffer buf = map.duplicate();
+		buf.position(offset);
+		data = new byte[length];
+		buf.get(data);
+		return data;
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] data) throws IOException
+	{
+		saved.put(key(archive.getIndex().getId(), archive.getArchiveId()), data);
+	}
+
+	private static long key(int indexId, int archiveId)
+	{
+		return (long) indexId << 32 | archiveId;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.File;
+import java.io.IOException;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+
+/**
+ * Converts caches between the {@link FlatStorage} text format and the
+ * {@link BinaryFlatStorage} format.
+ */
+public class FlatStorageConverter
+{
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 2)
+		{
+			System.err.println("usage: FlatStorageConverter <input directory> <output directory>");
+			System.exit(-1);
+			return;
+		}
+
+		File in = new File(args[0]);
+		File out = new File(args[1]);
+
+		if (isBinary(in))
+		{
+			System.out.println("Converting binary flatcache " + in + " to flatcache " + out);
+			toFlat(in, out);
+		}
+		else
+		{
+			System.out.println("Converting flatcache " + in + " to binary flatcache " + out);
+			toBinary(in, out);
+		}
+	}
+
+	/**
+	 * Check whether a directory holds a binary flatcache
+	 */
+	public static boolean isBinary(File directory)
+	{
+		String[] files = directory.list((dir, name) -> name.endsWith(BinaryFlatStorage.EXTENSION));
+		return files != null && files.length > 0;
+	}
+
+	public static void toBinary(File flatDirectory, File binaryDirectory) throws IOException
+	{
+		convert(new FlatStorage(flatDirectory), new BinaryFlatStorage(binaryDirectory), binaryDirectory);
+	}
+
+	public static void toFlat(File binaryDirectory, File flatDirectory) throws IOException
+	{
+		convert(new BinaryFlatStorage(binaryDirectory), new FlatStorage(flatDirectory), flatDirectory);
+	}
+
+	/**
+	 * Copy a cache between storages. Storages save archive contents by
+	 * loading them from the store's storage, so saving a store loaded from
+	 * one storage with another copies it.
+	 */
+	private static void convert(Storage from, Storage to, File directory) throws IOException
+	{
+		if (!directory.exists() && !directory.mkdirs())
+		{
+			throw new IOException("unable to create " + directory);
+		}
+
+		try (Store store = new Store(from))
+		{
+			store.load();
+			to.save(store);
+		}
+		finally
+		{
+			to.close();
+		}
+	}
+}
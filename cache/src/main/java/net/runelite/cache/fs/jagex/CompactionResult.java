@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import lombok.Value;
+
+/**
+ * Statistics of a {@link DataFileCompactor} run
+ */
+@Value
+public class CompactionResult
+{
+	/**
+	 * size of the data file before compaction, in bytes
+	 */
+	private final long sizeBefore;
+	/**
+	 * size of the data file after compaction, in bytes
+	 */
+	private final long sizeAfter;
+	/**
+	 * number of archives copied, including index data
+	 */
+	private final int archives;
+	/**
+	 * number of index entries dropped because their sector chain was
+	 * unreadable
+	 */
+	private final int dropped;
+	/**
+	 * average number of breaks per sector chain before compaction
+	 */
+	private final double fragmentationBefore;
+	/**
+	 * average number of breaks per sector chain after compaction
+	 */
+	private final double fragmentationAfter;
+
+	public long getReclaimed()
+	{
+		return sizeBefore - sizeAfter;
+	}
+}
@@ -30,6 +30,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,10 +42,34 @@ public class DataFile implements Closeable
 	private static final int SECTOR_SIZE = 520;
 
 	private final RandomAccessFile dat;
+	private final boolean mapped;
+
+	/**
+	 * read-only mapping of dat, lazily (re)created after writes
+	 */
+	private volatile MappedByteBuffer map;
 
 	public DataFile(File file) throws FileNotFoundException
+	{
+		this(file, false);
+	}
+
+	/**
+	 *
+	 * @param file data file
+	 * @param mapped whether reads should go through a memory mapping of
+	 * the file instead of seeking the underlying RandomAccessFile
+	 * @throws FileNotFoundException
+	 */
+	public DataFile(File file, boolean mapped) throws FileNotFoundException
 	{
 		this.dat = new RandomAccessFile(file, "rw");
+		this.mapped = mapped;
+	}
+
+	public boolean isMapped()
+	{
+		return mapped;
 	}
 
 	@Override
@@ -54,6 +80,7 @@ public class DataFile implements Closeable
 
 	public void clear() throws IOException
 	{
+		map = null;
 		dat.setLength(0L);
 	}
 
@@ -68,13 +95,28 @@ public class DataFile implements Closeable
 	 */
 	public byte[] read(int indexId, int archiveId, int sector, int size) throws IOException
 	{
-		if (sector <= 0L || dat.length() / SECTOR_SIZE < (long) sector)
+		if (mapped)
 		{
-			logger.warn("bad read, dat length {}, requested sector {}", dat.length(), sector);
+			ByteBuffer map = getMap();
+			if (map != null)
+			{
+				return readMapped(map, indexId, archiveId, sector, size);
+			}
+		}
+
+		// positional reads through the channel share no seek state, so
+		// reads may happen concurrently with each other and with writes
+		final FileChannel channel = dat.getChannel();
+		final long sectorCount = channel.size() / SECTOR_SIZE;
+
+		if (sector <= 0L || sectorCount < (long) sector)
+		{
+			logger.warn("bad read, dat length {}, requested sector {}", channel.size(), sector);
 			return null;
 		}
 
 		byte[] readBuffer = new byte[SECTOR_SIZE];
+		ByteBuffer readBuf = ByteBuffer.wrap(readBuffer);
 		ByteBuffer buffer = ByteBuffer.allocate(size);
 
 		for (int part = 0, readBytesCount = 0, nextSector;
@@ -87,7 +129,7 @@ public class DataFile implements Closeable
 				return null;
 			}
 
-			dat.seek(SECTOR_SIZE * sector);
+			long position = (long) SECTOR_SIZE * sector;
 
 			int dataBlockSize = size - readBytesCount;
 			byte headerSize;
@@ -102,7 +144,7 @@ public class DataFile implements Closeable
 					dataBlockSize = SECTOR_SIZE - headerSize;
 				}
 
-				int i = dat.read(readBuffer, 0, headerSize + dataBlockSize);
+				int i = readFully(channel, readBuf, position, headerSize + dataBlockSize);
 				if (i != headerSize + dataBlockSize)
 				{
 					logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
@@ -127,7 +169,7 @@ public class DataFile implements Closeable
 					dataBlockSize = SECTOR_SIZE - headerSize;
 				}
 
-				int i = dat.read(readBuffer, 0, headerSize + dataBlockSize);
+				int i = readFully(channel, readBuf, position, headerSize + dataBlockSize);
 				if (i != headerSize + dataBlockSize)
 				{
 					logger.warn("short read");
@@ -153,7 +195,7 @@ public class DataFile implements Closeable
 				return null;
 			}
 
-			if (nextSector < 0 || dat.length() / SECTOR_SIZE < (long) nextSector)
+			if (nextSector < 0 || sectorCount < (long) nextSector)
 			{
 				logger.warn("Invalid next sector");
 				return null;
@@ -169,7 +211,180 @@ public class DataFile implements Closeable
 		return buffer.array();
 	}
 
-	public DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData) throws IOException
+	/**
+	 * Count the breaks in a sector chain, that is the number of sectors
+	 * whose next sector does not directly follow them. Only the sector
+	 * headers are read.
+	 *
+	 * @param archiveId archive the chain belongs to
+	 * @param sector first sector of the chain
+	 * @param size size of the archive
+	 * @return number of breaks in the chain, or -1 if the chain is cut short
+	 * @throws IOException
+	 */
+	public int getFragmentCount(int archiveId, int sector, int size) throws IOException
+	{
+		final FileChannel channel = dat.getChannel();
+		final boolean largeArchive = archiveId > 0xFFFF;
+		final int headerSize = largeArchive ? 10 : 8;
+		final int nextSectorOffset = largeArchive ? 6 : 4;
+
+		ByteBuffer header = ByteBuffer.allocate(headerSize);
+		int fragments = 0;
+		for (int remaining = size - (SECTOR_SIZE - headerSize); remaining > 0; remaining -= SECTOR_SIZE - headerSize)
+		{
+			if (readFully(channel, header, (long) SECTOR_SIZE * sector, headerSize) != headerSize)
+			{
+				return -1;
+			}
+
+			int nextSector = ((header.get(nextSectorOffset) & 0xFF) << 16)
+				| ((header.get(nextSectorOffset + 1) & 0xFF) << 8)
+				| (header.get(nextSectorOffset + 2) & 0xFF);
+			if (nextSector <= 0)
+			{
+				return -1;
+			}
+
+			if (nextSector != sector + 1)
+			{
+				++fragments;
+			}
+			sector = nextSector;
+		}
+		return fragments;
+	}
+
+	private static int readFully(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException
+	{
+		buffer.clear();
+		buffer.limit(length);
+
+		int total = 0;
+		while (buffer.hasRemaining())
+		{
+			int i = channel.read(buffer, position + total);
+			if (i == -1)
+			{
+				break;
+			}
+			total += i;
+		}
+		return total;
+	}
+
+	private MappedByteBuffer getMap() throws IOException
+	{
+		MappedByteBuffer m = map;
+		if (m == null)
+		{
+			synchronized (this)
+			{
+				m = map;
+				if (m == null)
+				{
+					long length = dat.length();
+					if (length > Integer.MAX_VALUE)
+					{
+						logger.debug("data file too large to map ({} bytes), falling back to unmapped reads", length);
+						return null;
+					}
+
+					map = m = dat.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+				}
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Read the sector chain starting at the given sector directly out of the
+	 * mapped data file, copying each sector's payload once into an array of
+	 * exactly {@code size} bytes.
+	 */
+	private static byte[] readMapped(ByteBuffer map, int indexId, int archiveId, int sector, int size)
+	{
+		final int sectorCount = map.capacity() / SECTOR_SIZE;
+		if (sector <= 0 || sectorCount < sector)
+		{
+			logger.warn("bad read, dat length {}, requested sector {}", map.capacity(), sector);
+			return null;
+		}
+
+		final boolean largeArchive = archiveId > 0xFFFF;
+		final int headerSize = largeArchive ? 10 : 8;
+
+		// absolute gets only, the mapping itself is shared between readers
+		ByteBuffer buffer = map.duplicate();
+		byte[] data = new byte[size];
+
+		for (int part = 0, readBytesCount = 0, nextSector;
+			size > readBytesCount;
+			sector = nextSector)
+		{
+			if (sector == 0)
+			{
+				logger.warn("Unexpected end of file");
+				return null;
+			}
+
+			int pos = SECTOR_SIZE * sector;
+			int dataBlockSize = Math.min(size - readBytesCount, SECTOR_SIZE - headerSize);
+
+			if (pos + headerSize + dataBlockSize > buffer.capacity())
+			{
+				logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
+				return null;
+			}
+
+			int currentIndex;
+			int currentPart;
+			int currentArchive;
+			if (largeArchive)
+			{
+				currentArchive = buffer.getInt(pos);
+				currentPart = buffer.getShort(pos + 4) & 0xFFFF;
+				nextSector = ((buffer.get(pos + 6) & 0xFF) << 16)
+					| ((buffer.get(pos + 7) & 0xFF) << 8)
+					| (buffer.get(pos + 8) & 0xFF);
+				currentIndex = buffer.get(pos + 9) & 0xFF;
+			}
+			else
+			{
+				currentArchive = buffer.getShort(pos) & 0xFFFF;
+				currentPart = buffer.getShort(pos + 2) & 0xFFFF;
+				nextSector = ((buffer.get(pos + 4) & 0xFF) << 16)
+					| ((buffer.get(pos + 5) & 0xFF) << 8)
+					| (buffer.get(pos + 6) & 0xFF);
+				currentIndex = buffer.get(pos + 7) & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.warn("data mismatch {} != {}, {} != {}, {} != {}",
+					archiveId, currentArchive,
+					part, currentPart,
+					indexId, currentIndex);
+				return null;
+			}
+
+			if (nextSector < 0 || sectorCount < nextSector)
+			{
+				logger.warn("Invalid next sector");
+				return null;
+			}
+
+			buffer.position(pos + headerSize);
+			buffer.get(data, readBytesCount, dataBlockSize);
+			readBytesCount += dataBlockSize;
+
+			++part;
+		}
+
+		return data;
+	}
+
+	public synchronized DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData) throws IOException
 	{
 		int sector;
 		int startSector;
@@ -259,6 +474,9 @@ public class DataFile implements Closeable
 			sector = nextSector;
 		}
 
+		// the mapping no longer covers the file once it grows
+		map = null;
+
 		DataFileWriteResult res = new DataFileWriteResult();
 		res.sector = startSector;
 		res.compressedLength = compressedData.length;
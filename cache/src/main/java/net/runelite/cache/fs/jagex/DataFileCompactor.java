@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rewrites the live archives of a disk cache contiguously into a new data
+ * file. {@link DataFile#write(int, int, byte[])} always appends, so every
+ * update leaves the old sector chain behind as garbage and interleaves
+ * chains of different archives.
+ * <p>
+ * Archives are copied in index and archive order, index 255 first, into
+ * temporary data and index files, which then replace the originals. The
+ * cache must not be in use while it is being compacted.
+ * <p>
+ * The files can not be replaced as a set atomically, so the replacement is
+ * journaled: once every temporary file is written and synced, a commit
+ * marker is created, the temporary files are moved over the originals, and
+ * the marker is removed. {@link #recover(File)}, which {@link DiskStorage}
+ * runs when opening a cache, finishes an interrupted compaction. If the
+ * process dies before the marker exists the temporary files are deleted and
+ * the cache is left as it was before compacting; if it dies after, the
+ * remaining temporary files are moved into place and the cache is left
+ * fully compacted. Either way the data and index files are never mixed.
+ */
+public class DataFileCompactor
+{
+	private static final Logger logger = LoggerFactory.getLogger(DataFileCompactor.class);
+
+	private static final String MAIN_FILE_CACHE_DAT = "main_file_cache.dat2";
+	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
+	private static final String TMP_SUFFIX = ".tmp";
+	private static final String COMMIT_MARKER = "compact.commit";
+
+	private final File folder;
+
+	private int archives;
+	private int dropped;
+	private long fragmentsBefore;
+	private long fragmentsAfter;
+
+	public DataFileCompactor(File folder)
+	{
+		this.folder = folder;
+	}
+
+	public CompactionResult compact() throws IOException
+	{
+		archives = dropped = 0;
+		fragmentsBefore = fragmentsAfter = 0L;
+
+		recover(folder);
+
+		File datFile = new File(folder, MAIN_FILE_CACHE_DAT);
+		File newDatFile = new File(folder, MAIN_FILE_CACHE_DAT + TMP_SUFFIX);
+		long sizeBefore = datFile.length();
+
+		List<File> indexFiles = new ArrayList<>();
+
+		Files.deleteIfExists(newDatFile.toPath());
+		try
+		{
+			try (DataFile dat = new DataFile(datFile);
+				DataFile newDat = new DataFile(newDatFile);
+				IndexFile index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + 255)))
+			{
+				int indexCount = index255.getIndexCount();
+
+				indexFiles.add(copyIndex(dat, newDat, index255));
+
+				for (int i = 0; i < indexCount; ++i)
+				{
+					File file = new File(folder, MAIN_FILE_CACHE_IDX + i);
+					if (!file.exists())
+					{
+						continue;
+					}
+
+					try (IndexFile indexFile = new IndexFile(i, file))
+					{
+						indexFiles.add(copyIndex(dat, newDat, indexFile));
+					}
+				}
+			}
+
+			for (File file : indexFiles)
+			{
+				sync(tmpFile(file));
+			}
+			sync(newDatFile);
+		}
+		catch (IOException ex)
+		{
+			for (File file : indexFiles)
+			{
+				Files.deleteIfExists(tmpFile(file).toPath());
+			}
+			Files.deleteIfExists(newDatFile.toPath());
+			throw ex;
+		}
+
+		File marker = new File(folder, COMMIT_MARKER);
+		Files.createFile(marker.toPath());
+		syncDirectory(folder);
+
+		for (File file : indexFiles)
+		{
+			replace(tmpFile(file), file);
+		}
+		replace(newDatFile, datFile);
+		syncDirectory(folder);
+		Files.delete(marker.toPath());
+
+		long sizeAfter = datFile.length();
+		CompactionResult result = new CompactionResult(sizeBefore, sizeAfter, archives, dropped,
+			archives > 0 ? (double) fragmentsBefore / archives : 0d,
+			archives > 0 ? (double) fragmentsAfter / archives : 0d);
+
+		logger.info("Compacted {}: {} archives, reclaimed {} bytes, fragmentation {} -> {}",
+			folder, archives, result.getReclaimed(),
+			result.getFragmentationBefore(), result.getFragmentationAfter());
+		return result;
+	}
+
+	/**
+	 * Copy the archives of an index into the new data file, writing their
+	 * new entries to a temporary index file
+	 *
+	 * @return the index file to be replaced
+	 */
+	private File copyIndex(DataFile dat, DataFile newDat, IndexFile indexFile) throws IOException
+	{
+		final int indexId = indexFile.getIndexFileId();
+		final File file = new File(folder, MAIN_FILE_CACHE_IDX + indexId);
+		final File newFile = tmpFile(file);
+
+		Files.deleteIfExists(newFile.toPath());
+		try (IndexFile newIndexFile = new IndexFile(indexId, newFile))
+		{
+			int count = indexFile.getIndexCount();
+			for (int archiveId = 0; archiveId < count; ++archiveId)
+			{
+				IndexEntry entry = indexFile.read(archiveId);
+				if (entry == null)
+				{
+					continue;
+				}
+
+				byte[] data = dat.read(indexId, archiveId, entry.getSector(), entry.getLength());
+				if (data == null)
+				{
+					logger.warn("Dropping unreadable archive {}/{}", indexId, archiveId);
+					++dropped;
+					continue;
+				}
+
+				fragmentsBefore += Math.max(0, dat.getFragmentCount(archiveId, entry.getSector(), entry.getLength()));
+
+				DataFileWriteResult res = newDat.write(indexId, archiveId, data);
+				newIndexFile.write(new IndexEntry(newIndexFile, archiveId, res.sector, res.compressedLength));
+
+				fragmentsAfter += Math.max(0, newDat.getFragmentCount(archiveId, res.sector, res.compressedLength));
+				++archives;
+			}
+		}
+		return file;
+	}
+
+	private static File tmpFile(File file)
+	{
+		return new File(file.getParentFile(), file.getName() + TMP_SUFFIX);
+	}
+
+	/**
+	 * Finish or undo a compaction of the cache in folder which was
+	 * interrupted, depending on whether it got as far as creating its commit
+	 * marker. Does nothing if there is no interrupted compaction.
+	 *
+	 * @param folder cache folder
+	 * @throws IOException
+	 */
+	public static void recover(File folder) throws IOException
+	{
+		File[] tmpFiles = folder.listFiles((dir, name) -> name.startsWith("main_file_cache.") && name.endsWith(TMP_SUFFIX));
+		File marker = new File(folder, COMMIT_MARKER);
+		boolean committed = marker.exists();
+		if (tmpFiles == null || (tmpFiles.length == 0 && !committed))
+		{
+			return;
+		}
+
+		for (File tmp : tmpFiles)
+		{
+			if (committed)
+			{
+				String name = tmp.getName();
+				replace(tmp, new File(folder, name.substring(0, name.length() - TMP_SUFFIX.length())));
+			}
+			else
+			{
+				Files.delete(tmp.toPath());
+			}
+		}
+		Files.deleteIfExists(marker.toPath());
+
+		logger.warn("Recovered interrupted compaction of {} by {}", folder, committed ? "finishing it" : "discarding it");
+	}
+
+	private static void replace(File from, File to) throws IOException
+	{
+		Files.move(from.toPath(), to.toPath(),
+			StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void sync(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE))
+		{
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Make the creation and renaming of files in a directory durable. Not
+	 * every platform allows opening a directory, in which case this relies
+	 * on the file system to order the metadata updates.
+	 */
+	private static void syncDirectory(File dir)
+	{
+		try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ))
+		{
+			channel.force(true);
+		}
+		catch (IOException ex)
+		{
+			logger.debug("Unable to sync directory {}", dir, ex);
+		}
+	}
+}
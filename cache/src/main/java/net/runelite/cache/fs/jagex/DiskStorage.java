@@ -24,12 +24,21 @@
  */
 package net.runelite.cache.fs.jagex;
 
+import com.google.common.base.Throwables;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.Index;
@@ -49,17 +58,52 @@ public class DiskStorage implements Storage
 	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
 
 	private final File folder;
+	private final boolean mapped;
 
 	private final DataFile data;
 	private final IndexFile index255;
 	private final List<IndexFile> indexFiles = new ArrayList<>();
+	// index data as last read or written, by index id, so unchanged indexes are not rewritten
+	private final Map<Integer, SavedIndex> savedIndexes = new HashMap<>();
+
+	private static final class SavedIndex
+	{
+		private final byte[] data;
+		private final int compression;
+
+		private SavedIndex(byte[] data, int compression)
+		{
+			this.data = data;
+			this.compression = compression;
+		}
+
+		private boolean matches(byte[] data, int compression)
+		{
+			return this.compression == compression && Arrays.equals(this.data, data);
+		}
+	}
 
 	public DiskStorage(File folder) throws IOException
+	{
+		this(folder, false);
+	}
+
+	/**
+	 *
+	 * @param folder cache folder
+	 * @param mapped whether to read the data and index files through
+	 * memory mappings instead of seeking them
+	 * @throws IOException
+	 */
+	public DiskStorage(File folder, boolean mapped) throws IOException
 	{
 		this.folder = folder;
+		this.mapped = mapped;
+
+		DataFileCompactor.recover(folder);
 
-		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT));
-		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"));
+		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT), mapped);
+		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"), mapped);
 	}
 
 	@Override
@@ -85,7 +129,7 @@ public class DiskStorage implements Storage
 		}
 	}
 
-	private IndexFile getIndex(int i) throws FileNotFoundException
+	private synchronized IndexFile getIndex(int i) throws FileNotFoundException
 	{
 		for (IndexFile indexFile : indexFiles)
 		{
@@ -95,7 +139,7 @@ public class DiskStorage implements Storage
 			}
 		}
 
-		IndexFile indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i));
+		IndexFile indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i), mapped);
 		indexFiles.add(indexFile);
 		return indexFile;
 	}
@@ -145,6 +189,11 @@ public class DiskStorage implements Storage
 		index.setCrc(res.crc);
 		index.setCompression(res.compression);
 		assert res.revision == -1;
+
+		synchronized (savedIndexes)
+		{
+			savedIndexes.put(index.getId(), new SavedIndex(data, res.compression));
+		}
 	}
 
 	@Override
@@ -173,23 +222,71 @@ public class DiskStorage implements Storage
 
 	@Override
 	public void save(Store store) throws IOException
+	{
+		save(store, MoreExecutors.newDirectExecutorService());
+	}
+
+	/**
+	 * Save the indexes of the store. Only indexes whose data differs from
+	 * what was last read or written are rewritten; they are compressed in
+	 * parallel on the executor and then appended to the data file in order
+	 * from the calling thread.
+	 *
+	 * @param store store to save
+	 * @param executor executor to compress the index data on
+	 * @throws IOException
+	 */
+	@Override
+	public void save(Store store, ExecutorService executor) throws IOException
 	{
 		logger.debug("Saving store");
 
-		for (Index i : store.getIndexes())
+		List<Index> changed = new ArrayList<>();
+		List<byte[]> changedData = new ArrayList<>();
+		synchronized (savedIndexes)
 		{
-			saveIndex(i);
+			for (Index index : store.getIndexes())
+			{
+				byte[] indexData = index.toIndexData().writeIndexData();
+				SavedIndex saved = savedIndexes.get(index.getId());
+				if (saved == null || !saved.matches(indexData, index.getCompression()))
+				{
+					changed.add(index);
+					changedData.add(indexData);
+				}
+			}
 		}
+
+		List<Future<Container>> futures = new ArrayList<>(changed.size());
+		for (int i = 0; i < changed.size(); ++i)
+		{
+			int compression = changed.get(i).getCompression();
+			byte[] indexData = changedData.get(i);
+			futures.add(executor.submit(() ->
+			{
+				Container container = new Container(compression, -1); // index data revision is always -1
+				container.compress(indexData, null);
+				return container;
+			}));
+		}
+
+		for (int i = 0; i < changed.size(); ++i)
+		{
+			Index index = changed.get(i);
+			Container container = await(futures.get(i), futures);
+			saveIndex(index, container.data);
+
+			synchronized (savedIndexes)
+			{
+				savedIndexes.put(index.getId(), new SavedIndex(changedData.get(i), index.getCompression()));
+			}
+		}
+
+		logger.debug("Saved {} of {} indexes", changed.size(), store.getIndexes().size());
 	}
 
-	private void saveIndex(Index index) throws IOException
+	private void saveIndex(Index index, byte[] compressedData) throws IOException
 	{
-		IndexData indexData = index.toIndexData();
-		byte[] data = indexData.writeIndexData();
-
-		Container container = new Container(index.getCompression(), -1); // index data revision is always -1
-		container.compress(data, null);
-		byte[] compressedData = container.data;
 		DataFileWriteResult res = this.data.write(index255.getIndexFileId(), index.getId(), compressedData);
 
 		index255.write(new IndexEntry(index255, index.getId(), res.sector, res.compressedLength));
@@ -199,6 +296,27 @@ public class DiskStorage implements Storage
 		index.setCrc(crc.getHash());
 	}
 
+	private static <T> T await(Future<T> future, List<? extends Future<?>> batch) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException ex)
+		{
+			batch.forEach(f -> f.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted waiting for indexes");
+		}
+		catch (ExecutionException ex)
+		{
+			batch.forEach(f -> f.cancel(true));
+			Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new IOException(ex.getCause());
+		}
+	}
+
 	@Override
 	public void saveArchive(Archive a, byte[] archiveData) throws IOException
 	{
@@ -25,8 +25,17 @@
 package net.runelite.cache.io;
 
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
-
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the big endian encoding used by the cache. This reads straight from
+ * a byte array, and apart from bulk reads relies on the array bounds checks
+ * rather than checking reads against the limit. Moving the position is
+ * checked against the limit.
+ */
 public class InputStream extends java.io.InputStream
 {
 	private static final char[] CHARACTERS = new char[]
@@ -39,95 +48,136 @@ public class InputStream extends java.io.InputStream
 			'\u017e', '\u0178'
 		};
 
-	private final ByteBuffer buffer;
+	private final byte[] array;
+	private final int limit;
+	private int position;
 
 	public InputStream(byte[] buffer)
 	{
-		this.buffer = ByteBuffer.wrap(buffer);
+		this.array = buffer;
+		this.limit = buffer.length;
+	}
+
+	/**
+	 * Create a stream reading the remaining bytes of a buffer. Heap buffers
+	 * are read in place, with offsets relative to the start of the backing
+	 * array. Direct and mapped buffers are copied to an array in one bulk
+	 * read, as reading them byte by byte is far slower.
+	 *
+	 * @param buffer
+	 */
+	public InputStream(ByteBuffer buffer)
+	{
+		if (buffer.hasArray())
+		{
+			this.array = buffer.array();
+			this.position = buffer.arrayOffset() + buffer.position();
+			this.limit = buffer.arrayOffset() + buffer.limit();
+		}
+		else
+		{
+			this.array = new byte[buffer.remaining()];
+			buffer.duplicate().get(array);
+			this.limit = array.length;
+		}
 	}
 
 	public byte[] getArray()
 	{
-		assert buffer.hasArray();
-		return buffer.array();
+		return array;
 	}
 
 	@Override
 	public String toString()
 	{
-		return "InputStream{" + "buffer=" + buffer + '}';
+		return "InputStream{" + "position=" + position + ", limit=" + limit + '}';
 	}
 
 	public int read24BitInt()
 	{
-		return (this.readUnsignedByte() << 16) + (this.readUnsignedByte() << 8) + this.readUnsignedByte();
+		int pos = position;
+		position = pos + 3;
+		return ((array[pos] & 0xFF) << 16) | ((array[pos + 1] & 0xFF) << 8) | (array[pos + 2] & 0xFF);
 	}
 
 	public void skip(int length)
 	{
-		int pos = buffer.position();
-		pos += length;
-		buffer.position(pos);
+		setOffset(position + length);
 	}
 
 	public void setOffset(int offset)
 	{
-		buffer.position(offset);
+		if (offset < 0 || offset > limit)
+		{
+			throw new IllegalArgumentException("offset " + offset + " is out of bounds, limit " + limit);
+		}
+
+		position = offset;
 	}
 
 	public int getOffset()
 	{
-		return buffer.position();
+		return position;
 	}
 
 	public int getLength()
 	{
-		return buffer.limit();
+		return limit;
 	}
 
 	public int remaining()
 	{
-		return buffer.remaining();
+		return limit - position;
 	}
 
 	public byte readByte()
 	{
-		return buffer.get();
+		return array[position++];
 	}
 
 	public void readBytes(byte[] buffer, int off, int len)
 	{
-		this.buffer.get(buffer, off, len);
+		if (len > limit - position)
+		{
+			throw new BufferUnderflowException();
+		}
+
+		System.arraycopy(array, position, buffer, off, len);
+		position += len;
 	}
 
 	public void readBytes(byte[] buffer)
 	{
-		this.buffer.get(buffer);
+		readBytes(buffer, 0, buffer.length);
 	}
 
 	public int readUnsignedByte()
 	{
-		return this.readByte() & 0xFF;
+		return array[position++] & 0xFF;
 	}
 
 	public int readUnsignedShort()
 	{
-		return buffer.getShort() & 0xFFFF;
+		int pos = position;
+		position = pos + 2;
+		return ((array[pos] & 0xFF) << 8) | (array[pos + 1] & 0xFF);
 	}
 
 	public short readShort()
 	{
-		return buffer.getShort();
+		return (short) readUnsignedShort();
 	}
 
 	public int readInt()
 	{
-		return buffer.getInt();
+		int pos = position;
+		position = pos + 4;
+		return (array[pos] << 24) | ((array[pos + 1] & 0xFF) << 16) | ((array[pos + 2] & 0xFF) << 8) | (array[pos + 3] & 0xFF);
 	}
 
 	public byte peek()
 	{
-		return buffer.get(buffer.position());
+		return array[position];
 	}
 
 	public int readBigSmart()
@@ -173,16 +223,30 @@ public class InputStream extends java.io.InputStream
 
 	public String readString()
 	{
-		StringBuilder sb = new StringBuilder();
+		int start = position;
+		int end = start;
+		boolean ascii = true;
 
-		for (; ; )
+		for (int ch; (ch = array[end] & 0xFF) != 0; ++end)
 		{
-			int ch = this.readUnsignedByte();
-
-			if (ch == 0)
+			if (ch >= 128 && ch < 160)
 			{
-				break;
+				ascii = false;
 			}
+		}
+
+		position = end + 1;
+
+		if (ascii)
+		{
+			// the rest of cp1252 maps byte for byte onto latin-1
+			return new String(array, start, end - start, StandardCharsets.ISO_8859_1);
+		}
+
+		char[] chars = new char[end - start];
+		for (int i = 0; i < chars.length; ++i)
+		{
+			int ch = array[start + i] & 0xFF;
 
 			if (ch >= 128 && ch < 160)
 			{
@@ -195,9 +259,9 @@ public class InputStream extends java.io.InputStream
 				ch = var7;
 			}
 
-			sb.append((char) ch);
+			chars[i] = (char) ch;
 		}
-		return sb.toString();
+		return new String(chars);
 	}
 
 	public String readStringOrNull()
@@ -228,14 +292,37 @@ public class InputStream extends java.io.InputStream
 
 	public byte[] getRemaining()
 	{
-		byte[] b = new byte[buffer.remaining()];
-		buffer.get(b);
+		byte[] b = Arrays.copyOfRange(array, position, limit);
+		position = limit;
 		return b;
 	}
 
 	@Override
 	public int read() throws IOException
 	{
+		if (position >= limit)
+		{
+			return -1;
+		}
+
 		return this.readUnsignedByte();
 	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if (len == 0)
+		{
+			return 0;
+		}
+
+		int n = Math.min(len, limit - position);
+		if (n <= 0)
+		{
+			return -1;
+		}
+
+		readBytes(b, off, n);
+		return n;
+	}
 }
@@ -42,17 +42,82 @@ public class ItemSpriteFactory
 		int itemId, int quantity, int border, int shadowColor,
 		boolean noted) throws IOException
 	{
-		SpritePixels spritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
-			itemId, quantity, border, shadowColor, noted);
+		Context context = new Context(itemProvider, modelProvider, spriteProvider, textureProvider);
+		SpritePixels spritePixels = createSpritePixels(context, itemId, quantity, border, shadowColor, noted);
 		return spritePixels == null ? null : spritePixels.toBufferedImage();
 	}
 
-	private static final SpritePixels createSpritePixels(ItemProvider itemProvider, ModelProvider modelProvider,
-		SpriteProvider spriteProvider, TextureProvider textureProvider,
+	/**
+	 * Supplies the definitions, rasterizer and models used to draw an item
+	 * sprite. The default implementation loads everything fresh for each
+	 * sprite, and is overridden by {@link ItemSpriteRenderer} to reuse them.
+	 */
+	static class Context
+	{
+		final ItemProvider itemProvider;
+		final ModelProvider modelProvider;
+		final SpriteProvider spriteProvider;
+		final TextureProvider textureProvider;
+
+		Context(ItemProvider itemProvider, ModelProvider modelProvider, SpriteProvider spriteProvider, TextureProvider textureProvider)
+		{
+			this.itemProvider = itemProvider;
+			this.modelProvider = modelProvider;
+			this.spriteProvider = spriteProvider;
+			this.textureProvider = textureProvider;
+		}
+
+		ItemDefinition provideItem(int itemId) throws IOException
+		{
+			return itemProvider.provide(itemId);
+		}
+
+		/**
+		 * Copy the model and appearance of the noted template onto a noted item
+		 */
+		void updateNote(ItemDefinition item) throws IOException
+		{
+			item.updateNote(provideItem(item.notedTemplate), provideItem(item.notedID));
+		}
+
+		/**
+		 * Provide a model definition which the caller is free to modify
+		 */
+		ModelDefinition provideModel(int modelId) throws IOException
+		{
+			return modelProvider.provide(modelId);
+		}
+
+		Graphics3D getGraphics()
+		{
+			RSTextureProvider rsTextureProvider = new RSTextureProvider(textureProvider, spriteProvider);
+
+			Graphics3D graphics = new Graphics3D(rsTextureProvider);
+			graphics.setBrightness(0.6d);
+			return graphics;
+		}
+
+		Model createModel()
+		{
+			return new Model();
+		}
+
+		/**
+		 * Create the sprite of another item drawn as part of this one, such as
+		 * the item on a bank note
+		 */
+		SpritePixels createAuxSprite(int itemId, int quantity, int border, int shadowColor,
+			boolean noted) throws IOException
+		{
+			return createSpritePixels(this, itemId, quantity, border, shadowColor, noted);
+		}
+	}
+
+	static final SpritePixels createSpritePixels(Context context,
 		int itemId, int quantity, int border, int shadowColor,
 		boolean noted) throws IOException
 	{
-		ItemDefinition item = itemProvider.provide(itemId);
+		ItemDefinition item = context.provideItem(itemId);
 
 		if (quantity > 1 && item.countObj != null)
 		{
@@ -68,16 +133,16 @@ public class ItemSpriteFactory
 
 			if (stackItemID != -1)
 			{
-				item = itemProvider.provide(stackItemID);
+				item = context.provideItem(stackItemID);
 			}
 		}
 
 		if (item.notedTemplate != -1)
 		{
-			item.updateNote(itemProvider.provide(item.notedTemplate), itemProvider.provide(item.notedID));
+			context.updateNote(item);
 		}
 
-		Model itemModel = getModel(modelProvider, item);
+		Model itemModel = getModel(context, item);
 		if (itemModel == null)
 		{
 			return null;
@@ -86,8 +151,7 @@ public class ItemSpriteFactory
 		SpritePixels auxSpritePixels = null;
 		if (item.notedTemplate != -1)
 		{
-			auxSpritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
-				item.notedID, 10, 1, 0, true);
+			auxSpritePixels = context.createAuxSprite(item.notedID, 10, 1, 0, true);
 			if (auxSpritePixels == null)
 			{
 				return null;
@@ -95,8 +159,7 @@ public class ItemSpriteFactory
 		}
 		else if (item.boughtTemplateId != -1)
 		{
-			auxSpritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
-				item.boughtId, quantity, border, shadowColor, false);
+			auxSpritePixels = context.createAuxSprite(item.boughtId, quantity, border, shadowColor, false);
 			if (auxSpritePixels == null)
 			{
 				return null;
@@ -104,19 +167,15 @@ public class ItemSpriteFactory
 		}
 		else if (item.placeholderTemplateId != -1)
 		{
-			auxSpritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
-				item.placeholderId, quantity, 0, 0, false);
+			auxSpritePixels = context.createAuxSprite(item.placeholderId, quantity, 0, 0, false);
 			if (auxSpritePixels == null)
 			{
 				return null;
 			}
 		}
 
-		RSTextureProvider rsTextureProvider = new RSTextureProvider(textureProvider, spriteProvider);
-
 		SpritePixels spritePixels = new SpritePixels(36, 32);
-		Graphics3D graphics = new Graphics3D(rsTextureProvider);
-		graphics.setBrightness(0.6d);
+		Graphics3D graphics = context.getGraphics();
 		graphics.setRasterBuffer(spritePixels.pixels, 36, 32);
 		graphics.reset();
 		graphics.setRasterClipping();
@@ -183,10 +242,10 @@ public class ItemSpriteFactory
 		return spritePixels;
 	}
 
-	private static Model getModel(ModelProvider modelProvider, ItemDefinition item) throws IOException
+	private static Model getModel(Context context, ItemDefinition item) throws IOException
 	{
 		Model itemModel;
-		ModelDefinition inventoryModel = modelProvider.provide(item.inventoryModel);
+		ModelDefinition inventoryModel = context.provideModel(item.inventoryModel);
 		if (inventoryModel == null)
 		{
 			return null;
@@ -213,17 +272,16 @@ public class ItemSpriteFactory
 			}
 		}
 
-		itemModel = light(inventoryModel, item.ambient + 64, item.contrast + 768, -50, -10, -50);
+		itemModel = light(context.createModel(), inventoryModel, item.ambient + 64, item.contrast + 768, -50, -10, -50);
 		itemModel.isItemModel = true;
 		return itemModel;
 	}
 
-	private static Model light(ModelDefinition def, int ambient, int contrast, int x, int y, int z)
+	private static Model light(Model litModel, ModelDefinition def, int ambient, int contrast, int x, int y, int z)
 	{
 		def.computeNormals();
 		int somethingMagnitude = (int) Math.sqrt((double) (z * z + x * x + y * y));
 		int var7 = somethingMagnitude * contrast >> 8;
-		Model litModel = new Model();
 		litModel.field1856 = new int[def.faceCount];
 		litModel.field1854 = new int[def.faceCount];
 		litModel.field1823 = new int[def.faceCount];
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.item;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.Value;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.ModelDefinition;
+import net.runelite.cache.definitions.TextureDefinition;
+import net.runelite.cache.definitions.providers.ItemProvider;
+import net.runelite.cache.definitions.providers.ModelProvider;
+import net.runelite.cache.definitions.providers.SpriteProvider;
+import net.runelite.cache.definitions.providers.TextureProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Draws item sprites in bulk. Unlike {@link ItemSpriteFactory#createSprite},
+ * which loads everything fresh for each sprite, this memoizes item and model
+ * definitions, the sprites of noted, bought and placeholder templates, and
+ * the texture pixels, and keeps one rasterizer per thread. The sprites drawn
+ * are identical to those of {@link ItemSpriteFactory}.
+ * <p>
+ * This is thread safe, provided the given providers are.
+ */
+public class ItemSpriteRenderer
+{
+	private static final Logger logger = LoggerFactory.getLogger(ItemSpriteRenderer.class);
+
+	/**
+	 * Maximum number of item and model definitions and template sprites to keep,
+	 * so a long lived renderer does not eventually hold the whole cache
+	 */
+	private static final int MAX_CACHED = 4096;
+
+	public interface SpriteConsumer
+	{
+		void accept(int itemId, BufferedImage sprite) throws IOException;
+	}
+
+	@Value
+	private static class SpriteKey
+	{
+		private int itemId;
+		private int quantity;
+		private int border;
+		private int shadowColor;
+		private boolean noted;
+	}
+
+	private final Cache<Integer, ItemDefinition> items = CacheBuilder.newBuilder()
+		.maximumSize(MAX_CACHED)
+		.build();
+	private final Cache<Integer, Optional<ModelDefinition>> models = CacheBuilder.newBuilder()
+		.maximumSize(MAX_CACHED)
+		.build();
+	private final Cache<SpriteKey, Optional<SpritePixels>> auxSprites = CacheBuilder.newBuilder()
+		.maximumSize(MAX_CACHED)
+		.build();
+	private final ThreadLocal<Context> contexts;
+
+	public ItemSpriteRenderer(ItemProvider itemProvider, ModelProvider modelProvider,
+		SpriteProvider spriteProvider, TextureProvider textureProvider)
+	{
+		TextureDefinition[] textures = textureProvider.provide();
+		TextureProvider sharedTextures = () -> textures;
+
+		// Texture pixels are generated on first use and stored on the definition. Generate
+		// them all now, as the rasterizers on each thread share the definitions.
+		RSTextureProvider rsTextureProvider = new RSTextureProvider(sharedTextures, spriteProvider);
+		for (TextureDefinition texture : textures)
+		{
+			try
+			{
+				rsTextureProvider.load(texture.getId());
+			}
+			catch (RuntimeException ex)
+			{
+				logger.warn("unable to load texture {}", texture.getId(), ex);
+				texture.pixels = null;
+			}
+		}
+
+		contexts = ThreadLocal.withInitial(() -> new Context(itemProvider, modelProvider, spriteProvider, sharedTextures));
+	}
+
+	/**
+	 * Draw a single item sprite
+	 *
+	 * @see ItemSpriteFactory#createSprite
+	 */
+	public BufferedImage createSprite(int itemId, int quantity, int border, int shadowColor, boolean noted) throws IOException
+	{
+		SpritePixels spritePixels = ItemSpriteFactory.createSpritePixels(contexts.get(), itemId, quantity, border, shadowColor, noted);
+		return spritePixels == null ? null : spritePixels.toBufferedImage();
+	}
+
+	/**
+	 * Draw the sprites of many items in parallel. Items which fail to draw
+	 * or have no model are logged and skipped.
+	 *
+	 * @param itemIds items to draw
+	 * @param quantity
+	 * @param border
+	 * @param shadowColor
+	 * @param executor executor to draw the sprites on
+	 * @param consumer receives each sprite, on the thread which drew it
+	 * @return number of sprites drawn
+	 * @throws IOException if the consumer throws
+	 */
+	public int createSprites(Collection<Integer> itemIds, int quantity, int border, int shadowColor,
+		ExecutorService executor, SpriteConsumer consumer) throws IOException
+	{
+		long start = System.nanoTime();
+
+		List<Future<Boolean>> futures = new ArrayList<>(itemIds.size());
+		for (int itemId : itemIds)
+		{
+			futures.add(executor.submit(() ->
+			{
+				BufferedImage sprite;
+				try
+				{
+					sprite = createSprite(itemId, quantity, border, shadowColor, false);
+				}
+				catch (IOException | RuntimeException ex)
+				{
+					logger.warn("error drawing item {}", itemId, ex);
+					return false;
+				}
+
+				if (sprite == null)
+				{
+					return false;
+				}
+
+				consumer.accept(itemId, sprite);
+				return true;
+			}));
+		}
+
+		int count = 0;
+		try
+		{
+			for (Future<Boolean> future : futures)
+			{
+				if (future.get())
+				{
+					++count;
+				}
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(ex);
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+		finally
+		{
+			for (Future<Boolean> future : futures)
+			{
+				future.cancel(false);
+			}
+		}
+
+		long elapsed = System.nanoTime() - start;
+		logger.info("Drew {} of {} item sprites in {}ms ({} sprites/s)", count, itemIds.size(),
+			TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed > 0 ? count * TimeUnit.SECONDS.toNanos(1) / elapsed : count);
+		return count;
+	}
+
+	private class Context extends ItemSpriteFactory.Context
+	{
+		private final Graphics3D graphics;
+		private final Model buffers = new Model();
+
+		private Context(ItemProvider itemProvider, ModelProvider modelProvider, SpriteProvider spriteProvider, TextureProvider textureProvider)
+		{
+			super(itemProvider, modelProvider, spriteProvider, textureProvider);
+			graphics = super.getGraphics();
+		}
+
+		@Override
+		ItemDefinition provideItem(int itemId) throws IOException
+		{
+			ItemDefinition item = items.getIfPresent(itemId);
+			if (item == null)
+			{
+				item = itemProvider.provide(itemId);
+				if (item == null)
+				{
+					return null;
+				}
+
+				if (item.notedTemplate != -1)
+				{
+					// the provider may hand the same definition to several threads
+					synchronized (item)
+					{
+						item.updateNote(provideItem(item.notedTemplate), provideItem(item.notedID));
+					}
+				}
+
+				ItemDefinition existing = items.asMap().putIfAbsent(itemId, item);
+				if (existing != null)
+				{
+					item = existing;
+				}
+			}
+			return item;
+		}
+
+		@Override
+		void updateNote(ItemDefinition item)
+		{
+			// done once by provideItem
+		}
+
+		@Override
+		ModelDefinition provideModel(int modelId) throws IOException
+		{
+			Optional<ModelDefinition> model = models.getIfPresent(modelId);
+			if (model == null)
+			{
+				model = Optional.ofNullable(modelProvider.provide(modelId));
+				models.put(modelId, model);
+			}
+			// the item sprite factory resizes and recolors the model it is given
+			return model.map(ModelDefinition::copy).orElse(null);
+		}
+
+		@Override
+		Graphics3D getGraphics()
+		{
+			return graphics;
+		}
+
+		@Override
+		Model createModel()
+		{
+			return new Model(buffers);
+		}
+
+		@Override
+		SpritePixels createAuxSprite(int itemId, int quantity, int border, int shadowColor, boolean noted) throws IOException
+		{
+			SpriteKey key = new SpriteKey(itemId, quantity, border, shadowColor, noted);
+			Optional<SpritePixels> sprite = auxSprites.getIfPresent(key);
+			if (sprite == null)
+			{
+				// not a loading cache, as drawing the sprite may draw and cache other sprites
+				sprite = Optional.ofNullable(super.createAuxSprite(itemId, quantity, border, shadowColor, noted));
+				auxSprites.put(key, sprite);
+			}
+			return sprite.orElse(null);
+		}
+	}
+}
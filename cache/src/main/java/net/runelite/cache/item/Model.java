@@ -26,24 +26,25 @@ package net.runelite.cache.item;
 
 class Model extends Renderable
 {
-	boolean[] field1887 = new boolean[4700];
-	boolean[] field1885 = new boolean[4700];
-	int[] modelViewportYs = new int[4700];
-	int[] modelViewportXs = new int[4700];
-	int[] modelViewportZs = new int[4700];
-	int[] yViewportBuffer = new int[4700];
-	int[] field1839 = new int[4700];
-	int[] field1869 = new int[4700];
-	int[] field1871 = new int[1600];
-	int[][] field1868 = new int[1600][512];
-	int[] field1872 = new int[12];
-	int[][] field1874 = new int[12][2000];
-	int[] field1857 = new int[2000];
-	int[] field1863 = new int[2000];
-	int[] field1877 = new int[12];
-	int[] field1831 = new int[10];
-	int[] field1837 = new int[10];
-	int[] xViewportBuffer = new int[10];
+	// render scratch buffers, which may be shared between models drawn on the same thread
+	boolean[] field1887;
+	boolean[] field1885;
+	int[] modelViewportYs;
+	int[] modelViewportXs;
+	int[] modelViewportZs;
+	int[] yViewportBuffer;
+	int[] field1839;
+	int[] field1869;
+	int[] field1871;
+	int[][] field1868;
+	int[] field1872;
+	int[][] field1874;
+	int[] field1857;
+	int[] field1863;
+	int[] field1877;
+	int[] field1831;
+	int[] field1837;
+	int[] xViewportBuffer;
 	static int[] Model_sine;
 	static int[] Model_cosine;
 	static int[] field1890;
@@ -86,6 +87,60 @@ class Model extends Renderable
 
 	Model()
 	{
+		this(null);
+	}
+
+	/**
+	 * Create a model which shares its render scratch buffers with another
+	 * model. Models sharing buffers must not be drawn concurrently.
+	 *
+	 * @param buffers model to share buffers with, or null to allocate new buffers
+	 */
+	Model(Model buffers)
+	{
+		if (buffers == null)
+		{
+			this.field1887 = new boolean[4700];
+			this.field1885 = new boolean[4700];
+			this.modelViewportYs = new int[4700];
+			this.modelViewportXs = new int[4700];
+			this.modelViewportZs = new int[4700];
+			this.yViewportBuffer = new int[4700];
+			this.field1839 = new int[4700];
+			this.field1869 = new int[4700];
+			this.field1871 = new int[1600];
+			this.field1868 = new int[1600][512];
+			this.field1872 = new int[12];
+			this.field1874 = new int[12][2000];
+			this.field1857 = new int[2000];
+			this.field1863 = new int[2000];
+			this.field1877 = new int[12];
+			this.field1831 = new int[10];
+			this.field1837 = new int[10];
+			this.xViewportBuffer = new int[10];
+		}
+		else
+		{
+			this.field1887 = buffers.field1887;
+			this.field1885 = buffers.field1885;
+			this.modelViewportYs = buffers.modelViewportYs;
+			this.modelViewportXs = buffers.modelViewportXs;
+			this.modelViewportZs = buffers.modelViewportZs;
+			this.yViewportBuffer = buffers.yViewportBuffer;
+			this.field1839 = buffers.field1839;
+			this.field1869 = buffers.field1869;
+			this.field1871 = buffers.field1871;
+			this.field1868 = buffers.field1868;
+			this.field1872 = buffers.field1872;
+			this.field1874 = buffers.field1874;
+			this.field1857 = buffers.field1857;
+			this.field1863 = buffers.field1863;
+			this.field1877 = buffers.field1877;
+			this.field1831 = buffers.field1831;
+			this.field1837 = buffers.field1837;
+			this.xViewportBuffer = buffers.xViewportBuffer;
+		}
+
 		this.verticesCount = 0;
 		this.indicesCount = 0;
 		this.field1842 = 0;
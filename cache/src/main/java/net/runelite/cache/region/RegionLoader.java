@@ -35,7 +35,6 @@ import net.runelite.cache.definitions.loaders.LocationsLoader;
 import net.runelite.cache.definitions.loaders.MapLoader;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.XteaKeyManager;
 import org.slf4j.Logger;
@@ -80,7 +79,6 @@ public class RegionLoader
 		int x = i >> 8;
 		int y = i & 0xFF;
 
-		Storage storage = store.getStorage();
 		Archive map = index.findArchiveByName("m" + x + "_" + y);
 		Archive land = index.findArchiveByName("l" + x + "_" + y);
 
@@ -91,7 +89,7 @@ public class RegionLoader
 			return null;
 		}
 
-		byte[] data = map.decompress(storage.loadArchive(map));
+		byte[] data = store.decompressArchive(map);
 
 		MapDefinition mapDef = new MapLoader().load(x, y, data);
 
@@ -103,7 +101,7 @@ public class RegionLoader
 		{
 			try
 			{
-				data = land.decompress(storage.loadArchive(land), keys);
+				data = store.decompressArchive(land, keys);
 				LocationsDefinition locDef = new LocationsLoader().load(x, y, data);
 				region.loadLocations(locDef);
 			}
@@ -29,6 +29,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
@@ -47,6 +48,13 @@ public class BZip2
 		'1'       // block size
 	};
 
+	private static final byte[] BLOCK_HEADER = new byte[]
+	{
+		0x31, 0x41, 0x59, 0x26, 0x53, 0x59 // pi
+	};
+
+	private static final ThreadLocal<BZip2Decompressor> DECOMPRESSOR = ThreadLocal.withInitial(BZip2Decompressor::new);
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -83,4 +91,60 @@ public class BZip2
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress headerless BZip2 data directly into out
+	 *
+	 * @param bytes compressed data
+	 * @param off offset of the compressed data
+	 * @param len length of the compressed data
+	 * @param out buffer to decompress into
+	 * @param decompressedLength expected decompressed length
+	 * @throws IOException
+	 */
+	public static void decompress(byte[] bytes, int off, int len, byte[] out, int decompressedLength) throws IOException
+	{
+		if (!DECOMPRESSOR.get().decompress(bytes, off, len, out, decompressedLength))
+		{
+			logger.debug("Falling back to stream decompression for randomised BZip2 block");
+			decompressStream(bytes, off, len, out, decompressedLength);
+		}
+	}
+
+	/**
+	 * Decompress headerless BZip2 data into out using commons-compress
+	 */
+	static void decompressStream(byte[] bytes, int off, int len, byte[] out, int decompressedLength) throws IOException
+	{
+		InputStream in = new SequenceInputStream(new ByteArrayInputStream(BZIP_HEADER), new ByteArrayInputStream(bytes, off, len));
+		try (InputStream is = new BZip2CompressorInputStream(in))
+		{
+			int read = IOUtils.readFully(is, out, 0, decompressedLength);
+			if (read != decompressedLength)
+			{
+				throw new IOException("BZip2 data shorter than expected: " + read + " != " + decompressedLength);
+			}
+		}
+	}
+
+	/**
+	 * Check whether the headerless BZip2 data at the given offset starts
+	 * with a block header
+	 */
+	public static boolean isBlockHeader(byte[] bytes, int off, int len)
+	{
+		if (len < BLOCK_HEADER.length)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < BLOCK_HEADER.length; ++i)
+		{
+			if (bytes[off + i] != BLOCK_HEADER[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
 }
@@ -0,0 +1,553 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.io.IOException;
+
+/**
+ * A decoder for the headerless BZip2 streams stored in the cache. The
+ * cache strips the "BZh1" stream header, so streams start directly at
+ * the first block and blocks are at most 100k bytes.
+ * <p>
+ * Instances hold the decoding tables and are reused between calls, but
+ * are not thread safe.
+ */
+class BZip2Decompressor
+{
+	private static final int BLOCK_SIZE = 100_000; // 'BZh1'
+
+	private static final int BLOCK_MAGIC_HI = 0x314159;
+	private static final int BLOCK_MAGIC_LO = 0x265359;
+	private static final int EOS_MAGIC_HI = 0x177245;
+	private static final int EOS_MAGIC_LO = 0x385090;
+
+	private static final int MAX_GROUPS = 6;
+	private static final int MAX_ALPHA_SIZE = 258;
+	private static final int MAX_CODE_LEN = 23;
+	private static final int MAX_DECODE_LEN = 20;
+	private static final int GROUP_SIZE = 50;
+	private static final int MAX_SELECTORS = 2 + (900_000 / GROUP_SIZE);
+
+	private static final int RUNA = 0;
+	private static final int RUNB = 1;
+
+	private static final int[] CRC_TABLE = new int[256];
+
+	static
+	{
+		for (int i = 0; i < 256; ++i)
+		{
+			int c = i << 24;
+			for (int j = 0; j < 8; ++j)
+			{
+				c = (c & 0x80000000) != 0 ? (c << 1) ^ 0x04c11db7 : c << 1;
+			}
+			CRC_TABLE[i] = c;
+		}
+	}
+
+	// input
+	private byte[] in;
+	private int inPos;
+	private int inEnd;
+	private int bitBuffer;
+	private int bitCount;
+
+	// output
+	private byte[] out;
+	private int outPos;
+	private int outEnd;
+
+	// per block tables
+	private final int[] tt = new int[BLOCK_SIZE];
+	private final byte[] seqToUnseq = new byte[256];
+	private final byte[] mtf = new byte[256];
+	private final int[] unzftab = new int[256];
+	private final int[] cftab = new int[257];
+	private final byte[] selectors = new byte[MAX_SELECTORS];
+	private final byte[] selectorMtf = new byte[MAX_GROUPS];
+	private final int[][] len = new int[MAX_GROUPS][MAX_ALPHA_SIZE];
+	private final int[][] limit = new int[MAX_GROUPS][MAX_CODE_LEN];
+	private final int[][] base = new int[MAX_GROUPS][MAX_CODE_LEN];
+	private final int[][] perm = new int[MAX_GROUPS][MAX_ALPHA_SIZE];
+	private final int[] minLen = new int[MAX_GROUPS];
+
+	// state of the current run of RUNA/RUNB symbols
+	private int runLength;
+	private int runWeight;
+
+	/**
+	 * Decompress headerless BZip2 data
+	 *
+	 * @param bytes compressed data
+	 * @param off offset of the compressed data
+	 * @param length length of the compressed data
+	 * @param out buffer to decompress into
+	 * @param decompressedLength expected decompressed length
+	 * @return false if the stream uses randomised blocks, which this decoder
+	 * does not support
+	 * @throws IOException if the data is corrupt
+	 */
+	boolean decompress(byte[] bytes, int off, int length, byte[] out, int decompressedLength) throws IOException
+	{
+		this.in = bytes;
+		this.inPos = off;
+		this.inEnd = off + length;
+		this.bitBuffer = 0;
+		this.bitCount = 0;
+		this.out = out;
+		this.outPos = 0;
+		this.outEnd = decompressedLength;
+		this.runLength = 0;
+
+		try
+		{
+			int combinedCrc = 0;
+			for (;;)
+			{
+				int magicHi = getBits(24);
+				int magicLo = getBits(24);
+
+				if (magicHi == EOS_MAGIC_HI && magicLo == EOS_MAGIC_LO)
+				{
+					int streamCrc = getInt();
+					if (streamCrc != combinedCrc)
+					{
+						throw new IOException("BZip2 stream crc mismatch");
+					}
+					break;
+				}
+
+				if (magicHi != BLOCK_MAGIC_HI || magicLo != BLOCK_MAGIC_LO)
+				{
+					throw new IOException("Bad BZip2 block header");
+				}
+
+				int blockCrc = getInt();
+				boolean randomised = getBits(1) != 0;
+				if (randomised)
+				{
+					return false;
+				}
+
+				int crc = decodeBlock();
+				if (crc != blockCrc)
+				{
+					throw new IOException("BZip2 block crc mismatch");
+				}
+
+				combinedCrc = ((combinedCrc << 1) | (combinedCrc >>> 31)) ^ blockCrc;
+			}
+
+			if (outPos != decompressedLength)
+			{
+				throw new IOException("BZip2 data shorter than expected: " + outPos + " != " + decompressedLength);
+			}
+			return true;
+		}
+		finally
+		{
+			this.in = null;
+			this.out = null;
+		}
+	}
+
+	private int getBits(int n) throws IOException
+	{
+		while (bitCount < n)
+		{
+			if (inPos >= inEnd)
+			{
+				throw new IOException("Unexpected end of BZip2 data");
+			}
+			bitBuffer = (bitBuffer << 8) | (in[inPos++] & 0xFF);
+			bitCount += 8;
+		}
+
+		bitCount -= n;
+		return (bitBuffer >>> bitCount) & ((1 << n) - 1);
+	}
+
+	private int getInt() throws IOException
+	{
+		return (getBits(16) << 16) | getBits(16);
+	}
+
+	/**
+	 * Decode a block after its header, writing it to the output
+	 *
+	 * @return crc of the decoded block
+	 */
+	private int decodeBlock() throws IOException
+	{
+		final int origPtr = getBits(24);
+
+		// symbol map
+		int nInUse = 0;
+		int inUse16 = getBits(16);
+		for (int i = 0; i < 16; ++i)
+		{
+			if ((inUse16 & (0x8000 >>> i)) != 0)
+			{
+				int inUse = getBits(16);
+				for (int j = 0; j < 16; ++j)
+				{
+					if ((inUse & (0x8000 >>> j)) != 0)
+					{
+						seqToUnseq[nInUse++] = (byte) ((i << 4) + j);
+					}
+				}
+			}
+		}
+
+		if (nInUse == 0)
+		{
+			throw new IOException("Bad BZip2 symbol map");
+		}
+
+		final int alphaSize = nInUse + 2;
+
+		// selectors
+		final int nGroups = getBits(3);
+		if (nGroups < 2 || nGroups > MAX_GROUPS)
+		{
+			throw new IOException("Bad BZip2 group count");
+		}
+
+		int nSelectors = getBits(15);
+		if (nSelectors < 1)
+		{
+			throw new IOException("Bad BZip2 selector count");
+		}
+
+		for (int i = 0; i < nGroups; ++i)
+		{
+			selectorMtf[i] = (byte) i;
+		}
+
+		for (int i = 0; i < nSelectors; ++i)
+		{
+			int j = 0;
+			while (getBits(1) != 0)
+			{
+				if (++j >= nGroups)
+				{
+					throw new IOException("Bad BZip2 selector");
+				}
+			}
+
+			byte tmp = selectorMtf[j];
+			for (; j > 0; --j)
+			{
+				selectorMtf[j] = selectorMtf[j - 1];
+			}
+			selectorMtf[0] = tmp;
+
+			if (i < MAX_SELECTORS)
+			{
+				selectors[i] = tmp;
+			}
+		}
+
+		if (nSelectors > MAX_SELECTORS)
+		{
+			nSelectors = MAX_SELECTORS;
+		}
+
+		// huffman tables
+		for (int t = 0; t < nGroups; ++t)
+		{
+			int[] lens = len[t];
+			int curr = getBits(5);
+			for (int i = 0; i < alphaSize; ++i)
+			{
+				for (;;)
+				{
+					if (curr < 1 || curr > MAX_DECODE_LEN)
+					{
+						throw new IOException("Bad BZip2 code length");
+					}
+					if (getBits(1) == 0)
+					{
+						break;
+					}
+					curr += getBits(1) == 0 ? 1 : -1;
+				}
+				lens[i] = curr;
+			}
+
+			createDecodeTables(t, alphaSize);
+		}
+
+		// huffman and mtf decode into tt
+		final int eob = nInUse + 1;
+		final int[] tt = this.tt;
+		final byte[] mtf = this.mtf;
+		final int[] unzftab = this.unzftab;
+
+		for (int i = 0; i < 256; ++i)
+		{
+			mtf[i] = (byte) i;
+			unzftab[i] = 0;
+		}
+
+		int groupNo = -1;
+		int groupPos = 0;
+		int[] gLimit = null;
+		int[] gBase = null;
+		int[] gPerm = null;
+		int gMinLen = 0;
+
+		int nblock = 0;
+		int sym;
+		for (;;)
+		{
+			// decode the next symbol
+			if (groupPos == 0)
+			{
+				if (++groupNo >= nSelectors)
+				{
+					throw new IOException("Bad BZip2 selector index");
+				}
+				groupPos = GROUP_SIZE;
+				int g = selectors[groupNo];
+				gLimit = limit[g];
+				gBase = base[g];
+				gPerm = perm[g];
+				gMinLen = minLen[g];
+			}
+			--groupPos;
+
+			int zn = gMinLen;
+			int zvec = getBits(zn);
+			while (zvec > gLimit[zn])
+			{
+				if (++zn > MAX_DECODE_LEN)
+				{
+					throw new IOException("Bad BZip2 huffman code");
+				}
+				zvec = (zvec << 1) | getBits(1);
+			}
+
+			int idx = zvec - gBase[zn];
+			if (idx < 0 || idx >= MAX_ALPHA_SIZE)
+			{
+				throw new IOException("Bad BZip2 huffman code");
+			}
+			sym = gPerm[idx];
+
+			if (sym == RUNA || sym == RUNB)
+			{
+				// runs of the symbol at the front of the mtf list are
+				// accumulated until the next non run symbol
+				if (runLength == 0)
+				{
+					runWeight = 1;
+				}
+				else if (runWeight >= 2 * 1024 * 1024)
+				{
+					throw new IOException("Bad BZip2 run length");
+				}
+				runLength += sym == RUNA ? runWeight : runWeight << 1;
+				runWeight <<= 1;
+				continue;
+			}
+
+			if (runLength > 0)
+			{
+				nblock = flushRun(nblock);
+			}
+
+			if (sym == eob)
+			{
+				break;
+			}
+
+			if (nblock >= BLOCK_SIZE)
+			{
+				throw new IOException("BZip2 block too large");
+			}
+
+			// move to front
+			int nn = sym - 1;
+			byte uc = mtf[nn];
+			System.arraycopy(mtf, 0, mtf, 1, nn);
+			mtf[0] = uc;
+
+			int b = seqToUnseq[uc & 0xFF] & 0xFF;
+			unzftab[b]++;
+			tt[nblock++] = b;
+		}
+
+		if (origPtr < 0 || origPtr >= nblock)
+		{
+			throw new IOException("Bad BZip2 origin pointer");
+		}
+
+		// inverse bwt
+		final int[] cftab = this.cftab;
+		cftab[0] = 0;
+		for (int i = 1; i <= 256; ++i)
+		{
+			cftab[i] = cftab[i - 1] + unzftab[i - 1];
+		}
+
+		for (int i = 0; i < nblock; ++i)
+		{
+			int uc = tt[i] & 0xFF;
+			tt[cftab[uc]++] |= i << 8;
+		}
+
+		// undo the initial run length encoding while writing the output
+		final byte[] out = this.out;
+		final int outEnd = this.outEnd;
+		int outPos = this.outPos;
+
+		int crc = 0xFFFFFFFF;
+		int tPos = tt[origPtr] >> 8;
+		int last = -1;
+		int run = 0;
+		for (int i = 0; i < nblock; ++i)
+		{
+			tPos = tt[tPos];
+			int ch = tPos & 0xFF;
+			tPos >>= 8;
+
+			if (run == 4)
+			{
+				if (outPos + ch > outEnd)
+				{
+					throw new IOException("BZip2 data longer than expected");
+				}
+
+				for (int j = 0; j < ch; ++j)
+				{
+					out[outPos++] = (byte) last;
+					crc = (crc << 8) ^ CRC_TABLE[(crc >>> 24) ^ last];
+				}
+				run = 0;
+				continue;
+			}
+
+			if (ch == last)
+			{
+				++run;
+			}
+			else
+			{
+				run = 1;
+				last = ch;
+			}
+
+			if (outPos >= outEnd)
+			{
+				throw new IOException("BZip2 data longer than expected");
+			}
+
+			out[outPos++] = (byte) ch;
+			crc = (crc << 8) ^ CRC_TABLE[(crc >>> 24) ^ ch];
+		}
+
+		this.outPos = outPos;
+		return ~crc;
+	}
+
+	private int flushRun(int nblock) throws IOException
+	{
+		int count = runLength;
+		runLength = 0;
+
+		if (nblock + count > BLOCK_SIZE)
+		{
+			throw new IOException("BZip2 block too large");
+		}
+
+		int b = seqToUnseq[mtf[0] & 0xFF] & 0xFF;
+		unzftab[b] += count;
+		for (int end = nblock + count; nblock < end; ++nblock)
+		{
+			tt[nblock] = b;
+		}
+		return nblock;
+	}
+
+	private void createDecodeTables(int t, int alphaSize)
+	{
+		final int[] lens = len[t];
+		final int[] limit = this.limit[t];
+		final int[] base = this.base[t];
+		final int[] perm = this.perm[t];
+
+		int min = 32;
+		int max = 0;
+		for (int i = 0; i < alphaSize; ++i)
+		{
+			min = Math.min(min, lens[i]);
+			max = Math.max(max, lens[i]);
+		}
+		minLen[t] = min;
+
+		int pp = 0;
+		for (int i = min; i <= max; ++i)
+		{
+			for (int j = 0; j < alphaSize; ++j)
+			{
+				if (lens[j] == i)
+				{
+					perm[pp++] = j;
+				}
+			}
+		}
+
+		for (int i = 0; i < MAX_CODE_LEN; ++i)
+		{
+			base[i] = 0;
+			limit[i] = 0;
+		}
+
+		for (int i = 0; i < alphaSize; ++i)
+		{
+			base[lens[i] + 1]++;
+		}
+
+		for (int i = 1; i < MAX_CODE_LEN; ++i)
+		{
+			base[i] += base[i - 1];
+		}
+
+		int vec = 0;
+		for (int i = min; i <= max; ++i)
+		{
+			vec += base[i + 1] - base[i];
+			limit[i] = vec - 1;
+			vec <<= 1;
+		}
+
+		for (int i = min + 1; i <= max; ++i)
+		{
+			base[i] = ((limit[i - 1] + 1) << 1) - base[i];
+		}
+	}
+}
@@ -64,4 +64,34 @@ public class GZip
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress GZip data directly into out
+	 *
+	 * @param bytes compressed data
+	 * @param off offset of the compressed data
+	 * @param len length of the compressed data
+	 * @param out buffer to decompress into
+	 * @param decompressedLength expected decompressed length
+	 * @throws IOException
+	 */
+	public static void decompress(byte[] bytes, int off, int len, byte[] out, int decompressedLength) throws IOException
+	{
+		try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(bytes, off, len)))
+		{
+			int read = IOUtils.readFully(is, out, 0, decompressedLength);
+			if (read != decompressedLength)
+			{
+				throw new IOException("GZip data shorter than expected: " + read + " != " + decompressedLength);
+			}
+		}
+	}
+
+	/**
+	 * Check whether the data at the given offset starts with the GZip magic
+	 */
+	public static boolean isHeader(byte[] bytes, int off, int len)
+	{
+		return len >= 2 && bytes[off] == (byte) 0x1f && bytes[off + 1] == (byte) 0x8b;
+	}
 }
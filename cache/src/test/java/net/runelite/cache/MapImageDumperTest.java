@@ -27,6 +27,8 @@ package net.runelite.cache;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.imageio.ImageIO;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.region.Region;
@@ -71,6 +73,33 @@ public class MapImageDumperTest
 		}
 	}
 
+	@Test
+	@Ignore
+	public void dumpMapTiles() throws IOException
+	{
+		File base = StoreLocation.LOCATION,
+			outDir = folder.newFolder();
+
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try (Store store = new Store(base))
+		{
+			store.load();
+
+			MapImageDumper dumper = new MapImageDumper(store);
+			dumper.load();
+
+			int maxZoom = dumper.drawMapTiles(0, outDir, executor);
+			logger.info("Wrote zoom levels 0-{} to {}", maxZoom, outDir);
+
+			// nothing has changed, so this should not redraw any regions
+			dumper.drawMapTiles(0, outDir, executor, true);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	@Ignore
 	public void dumpRegions() throws Exception
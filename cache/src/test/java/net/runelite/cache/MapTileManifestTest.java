@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.File;
+import java.io.IOException;
+import net.runelite.cache.MapTileManifest.RegionInputs;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapTileManifestTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	private static MapTileManifest manifest()
+	{
+		MapTileManifest manifest = new MapTileManifest();
+		manifest.setMinRegionX(40);
+		manifest.setMaxRegionY(60);
+		manifest.setMaxZoom(3);
+		manifest.setGlobalCrcs(new int[]{1, 2});
+
+		for (int x = 48; x <= 50; ++x)
+		{
+			for (int y = 50; y <= 52; ++y)
+			{
+				manifest.getRegions().put(x << 8 | y, new RegionInputs(x, y, 0));
+			}
+		}
+		return manifest;
+	}
+
+	@Test
+	public void testDirtyRegions()
+	{
+		MapTileManifest previous = manifest();
+		MapTileManifest manifest = manifest();
+		assertTrue(manifest.getDirtyRegions(previous).isEmpty());
+
+		// a changed region is redrawn along with the neighbours blended with it
+		manifest.getRegions().put(48 << 8 | 50, new RegionInputs(48, 50, 1));
+		assertEquals(ImmutableSet.of(48 << 8 | 50, 48 << 8 | 51, 49 << 8 | 50, 49 << 8 | 51),
+			manifest.getDirtyRegions(previous));
+
+		// removing a region redraws its neighbours
+		manifest = manifest();
+		manifest.getRegions().remove(50 << 8 | 52);
+		assertEquals(ImmutableSet.of(50 << 8 | 52), manifest.getRemovedRegions(previous));
+		assertEquals(ImmutableSet.of(49 << 8 | 51, 49 << 8 | 52, 50 << 8 | 51),
+			manifest.getDirtyRegions(previous));
+	}
+
+	@Test
+	public void testCompatible()
+	{
+		MapTileManifest manifest = manifest();
+		assertTrue(manifest.isCompatible(manifest()));
+		assertFalse(manifest.isCompatible(null));
+
+		MapTileManifest other = manifest();
+		other.setGlobalCrcs(new int[]{1, 3});
+		assertFalse(manifest.isCompatible(other));
+
+		other = manifest();
+		other.setMaxZoom(4);
+		assertFalse(manifest.isCompatible(other));
+	}
+
+	@Test
+	public void testReadWrite() throws IOException
+	{
+		File dir = folder.newFolder();
+		assertNull(MapTileManifest.read(dir));
+
+		MapTileManifest manifest = manifest();
+		manifest.write(dir);
+
+		MapTileManifest read = MapTileManifest.read(dir);
+		assertTrue(manifest.isCompatible(read));
+		assertEquals(manifest.getRegions(), read.getRegions());
+		assertTrue(manifest.getDirtyRegions(read).isEmpty());
+	}
+
+	@Test
+	public void testTileCoordinates()
+	{
+		MapTileManifest manifest = manifest();
+		assertEquals(8, manifest.tileX(48 << 8 | 50));
+		assertEquals(10, manifest.tileY(48 << 8 | 50));
+	}
+}
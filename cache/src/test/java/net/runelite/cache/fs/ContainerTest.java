@@ -25,9 +25,12 @@
 package net.runelite.cache.fs;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
+import static net.runelite.cache.fs.jagex.CompressionType.BZ2;
 import static net.runelite.cache.fs.jagex.CompressionType.GZ;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 
 public class ContainerTest
@@ -52,4 +55,66 @@ public class ContainerTest
 		assertArrayEquals(data, container.data);
 	}
 
+	@Test
+	public void testDecompressInto() throws IOException
+	{
+		int[] keys = new int[]
+		{
+			4, 8, 15, 16
+		};
+		byte[] data = new byte[4096];
+		new Random(42L).nextBytes(data);
+
+		Container container = new Container(BZ2, 7);
+		container.compress(data, keys);
+
+		byte[] out = new byte[8192];
+		Container res = Container.decompressInto(container.data, keys, out);
+		assertEquals(data.length, res.getLength());
+		assertEquals(7, res.revision);
+		assertArrayEquals(data, Arrays.copyOf(out, res.getLength()));
+	}
+
+	@Test
+	public void testLarge() throws IOException
+	{
+		// larger than 1MB compressed
+		byte[] data = new byte[1 << 21];
+		new Random(42L).nextBytes(data);
+
+		Container container = new Container(GZ, -1);
+		container.compress(data, null);
+
+		container = Container.decompress(container.data, null);
+		assertArrayEquals(data, container.data);
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidDecompressedLength() throws IOException
+	{
+		byte[] data = new byte[1024];
+		new Random(42L).nextBytes(data);
+
+		Container container = new Container(GZ, -1);
+		container.compress(data, null);
+
+		// claim a decompressed length far larger than the payload can inflate to
+		byte[] b = container.data;
+		b[5] = 0x7f;
+		b[6] = b[7] = b[8] = (byte) 0xff;
+		Container.decompress(b, null);
+	}
+
+	@Test
+	public void testEmpty() throws IOException
+	{
+		for (int compression : new int[]{BZ2, GZ})
+		{
+			Container container = new Container(compression, -1);
+			container.compress(new byte[0], null);
+
+			container = Container.decompress(container.data, null);
+			assertEquals(0, container.data.length);
+		}
+	}
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import net.runelite.cache.util.Djb2;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class IndexTest
+{
+	@Test
+	public void testGetArchive()
+	{
+		Index index = new Index(0);
+		for (int i = 0; i < 1000; ++i)
+		{
+			index.addArchive(i * 3);
+		}
+
+		for (int i = 0; i < 1000; ++i)
+		{
+			assertEquals(i * 3, index.getArchive(i * 3).getArchiveId());
+		}
+		assertNull(index.getArchive(1));
+
+		Archive archive = index.getArchive(42);
+		index.removeArchive(archive);
+		assertNull(index.getArchive(42));
+		assertEquals(999, index.getArchives().size());
+		assertEquals(45, index.getArchive(45).getArchiveId());
+	}
+
+	@Test
+	public void testFindArchiveByName()
+	{
+		Index index = new Index(5);
+		for (int i = 0; i < 100; ++i)
+		{
+			Archive archive = index.addArchive(i);
+			archive.setNameHash(Djb2.hash("m" + i + "_" + i));
+		}
+
+		for (int i = 0; i < 100; ++i)
+		{
+			assertSame(index.getArchive(i), index.findArchiveByName("m" + i + "_" + i));
+		}
+		assertNull(index.findArchiveByName("l1_1"));
+
+		Archive archive = index.getArchive(7);
+		archive.setNameHash(Djb2.hash("l7_7"));
+		assertNull(index.findArchiveByName("m7_7"));
+		assertSame(archive, index.findArchiveByName("l7_7"));
+
+		index.removeArchive(archive);
+		assertNull(index.findArchiveByName("l7_7"));
+	}
+}
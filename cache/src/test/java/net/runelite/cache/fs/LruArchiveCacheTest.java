@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.IOException;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.StoreLocation;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LruArchiveCacheTest
+{
+	@Test
+	public void testEviction()
+	{
+		LruArchiveCache cache = new LruArchiveCache(1024);
+
+		byte[] data = new byte[400];
+		cache.put(2, 10, 42, data);
+		assertSame(data, cache.get(2, 10, 42));
+		assertNull(cache.get(2, 10, 43));
+		assertNull(cache.get(3, 10, 42));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+
+		for (int i = 0; i < 10; ++i)
+		{
+			cache.put(2, 100 + i, 0, new byte[400]);
+		}
+
+		assertTrue(cache.size() <= 2);
+		assertTrue(cache.getEvictionCount() >= 9);
+	}
+
+	@Test
+	public void testStore() throws IOException
+	{
+		LruArchiveCache cache = new LruArchiveCache(16 * 1024 * 1024);
+		try (Store store = new Store(StoreLocation.LOCATION))
+		{
+			store.load();
+			store.setArchiveCache(cache);
+
+			Archive archive = store.getIndex(IndexType.CONFIGS).getArchive(0);
+			byte[] data = store.decompressArchive(archive);
+			assertArrayEquals(archive.decompress(store.getStorage().loadArchive(archive)), data);
+			assertEquals(1, cache.getMissCount());
+
+			assertSame(data, store.decompressArchive(archive));
+			assertEquals(1, cache.getHitCount());
+		}
+	}
+}
@@ -27,7 +27,12 @@ package net.runelite.cache.fs;
 import com.google.common.io.Files;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.runelite.cache.IndexType;
 import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.jagex.DiskStorage;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -77,4 +82,30 @@ public class StoreLoadTest
 			}
 		}
 	}
+
+	@Test
+	public void testLoadArchivesParallel() throws IOException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try (Store store = new Store(new DiskStorage(StoreLocation.LOCATION, true)))
+		{
+			store.load();
+
+			Index index = store.getIndex(IndexType.MODELS);
+			List<Archive> archives = index.getArchives();
+			List<byte[]> contents = store.loadArchives(archives, executor);
+
+			Assert.assertEquals(archives.size(), contents.size());
+			for (int i = 0; i < archives.size(); ++i)
+			{
+				Archive archive = archives.get(i);
+				byte[] data = archive.decompress(store.getStorage().loadArchive(archive));
+				Assert.assertArrayEquals(data, contents.get(i));
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
 }
@@ -27,7 +27,10 @@ package net.runelite.cache.fs;
 import java.io.File;
 import java.io.IOException;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.jagex.CompressionType;
 import net.runelite.cache.index.FileData;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -148,4 +151,102 @@ public class StoreTest
 			}
 		}
 	}
+
+	@Test
+	public void testSaveDirtyArchives() throws IOException
+	{
+		Random random = new Random(44L);
+		File root = folder.newFolder();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+			byte[][] contents = new byte[16][];
+
+			for (int i = 0; i < contents.length; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archive.setCompression(i % 2 == 0 ? CompressionType.BZ2 : CompressionType.GZ);
+				archive.setFileData(new FileData[]{new FileData()});
+
+				contents[i] = new byte[1000 * i];
+				random.nextBytes(contents[i]);
+				store.updateArchive(archive, contents[i]);
+				Assert.assertTrue(store.isDirty(archive));
+				// pending contents are visible before saving
+				Assert.assertSame(contents[i], store.decompressArchive(archive));
+			}
+
+			store.save(executor);
+
+			for (Archive archive : index.getArchives())
+			{
+				Assert.assertFalse(store.isDirty(archive));
+			}
+
+			try (Store store2 = new Store(root))
+			{
+				store2.load();
+
+				Assert.assertEquals(store, store2);
+
+				Index index2 = store2.findIndex(0);
+				for (int i = 0; i < contents.length; ++i)
+				{
+					Archive archive = index2.getArchive(i);
+					Assert.assertEquals(index.getArchive(i).getCrc(), archive.getCrc());
+					Assert.assertArrayEquals(contents[i], store2.decompressArchive(archive));
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSaveUndecompressedArchive() throws IOException
+	{
+		Random random = new Random(45L);
+		File root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+			Archive archive = index.addArchive(0);
+			archive.setCompression(CompressionType.GZ);
+			archive.setRevision(5);
+			archive.setFileData(new FileData[]{new FileData()});
+
+			byte[] contents = new byte[1000];
+			random.nextBytes(contents);
+			store.updateArchive(archive, contents);
+			store.save();
+		}
+
+		byte[] contents = new byte[2000];
+		random.nextBytes(contents);
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+
+			// update the archive without ever decompressing it
+			Archive archive = store.findIndex(0).getArchive(0);
+			store.updateArchive(archive, contents);
+			store.save();
+		}
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+
+			Archive archive = store.findIndex(0).getArchive(0);
+			Assert.assertArrayEquals(contents, store.decompressArchive(archive));
+			Assert.assertEquals(CompressionType.GZ, archive.getCompression());
+			Assert.assertEquals(5, archive.getRevision());
+		}
+	}
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.File;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryFlatStorageTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testConvert() throws Exception
+	{
+		File flat = folder.newFolder();
+		File binary = folder.newFolder();
+		File flat2 = folder.newFolder();
+
+		try (Store store = new Store(StoreLocation.LOCATION))
+		{
+			store.load();
+			new FlatStorage(flat).save(store);
+		}
+
+		FlatStorageConverter.toBinary(flat, binary);
+		assertTrue(FlatStorageConverter.isBinary(binary));
+		FlatStorageConverter.toFlat(binary, flat2);
+
+		try (Store store = new Store(new FlatStorage(flat));
+			Store binaryStore = new Store(new BinaryFlatStorage(binary));
+			Store store2 = new Store(new FlatStorage(flat2)))
+		{
+			store.load();
+			binaryStore.load();
+			store2.load();
+
+			assertEquals(store, binaryStore);
+			assertEquals(store, store2);
+
+			for (Index index : store.getIndexes())
+			{
+				Index binaryIndex = binaryStore.findIndex(index.getId());
+				for (Archive archive : index.getArchives())
+				{
+					Archive binaryArchive = binaryIndex.getArchive(archive.getArchiveId());
+					assertArrayEquals(store.getStorage().loadArchive(archive),
+						binaryStore.getStorage().loadArchive(binaryArchive));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSaveArchive() throws Exception
+	{
+		File binary = folder.newFolder();
+
+		try (Store store = new Store(StoreLocation.LOCATION))
+		{
+			store.load();
+			new BinaryFlatStorage(binary).save(store);
+		}
+
+		byte[] data = "test".getBytes();
+		try (Store store = new Store(new BinaryFlatStorage(binary)))
+		{
+			store.load();
+
+			Archive archive = store.getIndexes().get(0).getArchives().get(0);
+			archive.setCompression(0);
+			store.updateArchive(archive, data);
+			store.save();
+
+			assertArrayEquals(data, store.decompressArchive(archive));
+		}
+
+		try (Store store = new Store(new BinaryFlatStorage(binary)))
+		{
+			store.load();
+
+			Archive archive = store.getIndexes().get(0).getArchives().get(0);
+			assertArrayEquals(data, store.decompressArchive(archive));
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DataFileCompactorTest
+{
+	private static final int ARCHIVES = 32;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testCompact() throws Exception
+	{
+		File root = folder.newFolder();
+		byte[][] contents = createCache(root);
+
+		CompactionResult result = new DataFileCompactor(root).compact();
+		assertTrue(result.getReclaimed() > 0);
+		assertEquals(ARCHIVES + 1, result.getArchives()); // archives and the index data
+		assertEquals(0, result.getDropped());
+		assertEquals(0d, result.getFragmentationAfter(), 0d);
+		assertEquals(new File(root, "main_file_cache.dat2").length(), result.getSizeAfter());
+
+		verify(root, contents);
+	}
+
+	@Test
+	public void testRecoverCommitted() throws Exception
+	{
+		File root = folder.newFolder();
+		byte[][] contents = createCache(root);
+
+		File compacted = folder.newFolder();
+		for (File file : root.listFiles())
+		{
+			Files.copy(file.toPath(), new File(compacted, file.getName()).toPath());
+		}
+		new DataFileCompactor(compacted).compact();
+
+		// crash after the commit marker was written and the first file was moved
+		for (File file : compacted.listFiles())
+		{
+			Files.copy(file.toPath(), new File(root, file.getName() + ".tmp").toPath());
+		}
+		new File(root, "compact.commit").createNewFile();
+		Files.move(new File(root, "main_file_cache.idx255.tmp").toPath(), new File(root, "main_file_cache.idx255").toPath(),
+			StandardCopyOption.REPLACE_EXISTING);
+
+		verify(root, contents);
+		assertFalse(new File(root, "compact.commit").exists());
+		assertFalse(new File(root, "main_file_cache.dat2.tmp").exists());
+		assertEquals(new File(compacted, "main_file_cache.dat2").length(), new File(root, "main_file_cache.dat2").length());
+	}
+
+	@Test
+	public void testRecoverUncommitted() throws Exception
+	{
+		File root = folder.newFolder();
+		byte[][] contents = createCache(root);
+		long size = new File(root, "main_file_cache.dat2").length();
+
+		// crash while the temporary files were still being written
+		Files.write(new File(root, "main_file_cache.dat2.tmp").toPath(), new byte[1024]);
+		Files.write(new File(root, "main_file_cache.idx0.tmp").toPath(), new byte[12]);
+
+		verify(root, contents);
+		assertFalse(new File(root, "main_file_cache.dat2.tmp").exists());
+		assertFalse(new File(root, "main_file_cache.idx0.tmp").exists());
+		assertEquals(size, new File(root, "main_file_cache.dat2").length());
+	}
+
+	private static byte[][] createCache(File root) throws IOException
+	{
+		Random random = new Random(42L);
+		byte[][] contents = new byte[ARCHIVES][];
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < ARCHIVES; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archive.setFileData(new FileData[]{new FileData()});
+			}
+
+			// rewrite every archive a few times, leaving garbage and
+			// interleaved sector chains behind
+			for (int round = 0; round < 3; ++round)
+			{
+				for (int i = 0; i < ARCHIVES; ++i)
+				{
+					contents[i] = new byte[random.nextInt(4096)];
+					random.nextBytes(contents[i]);
+					store.updateArchive(index.getArchive(i), contents[i]);
+				}
+				store.save();
+			}
+		}
+		return contents;
+	}
+
+	private static void verify(File root, byte[][] contents) throws IOException
+	{
+		try (Store store = new Store(root))
+		{
+			store.load();
+
+			Index index = store.findIndex(0);
+			for (int i = 0; i < ARCHIVES; ++i)
+			{
+				assertArrayEquals(contents[i], store.decompressArchive(index.getArchive(i)));
+			}
+		}
+	}
+}
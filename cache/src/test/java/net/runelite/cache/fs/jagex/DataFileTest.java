@@ -167,4 +167,33 @@ public class DataFileTest
 		Assert.assertEquals("testtesttesttest1", str);
 		Assert.assertEquals(42, res2.revision);
 	}
+
+	@Test
+	public void testMapped() throws IOException
+	{
+		byte[] b = new byte[4096];
+		for (int i = 0; i < b.length; ++i)
+		{
+			b[i] = (byte) i;
+		}
+
+		File file = folder.newFile();
+		DataFile df = new DataFile(file, true);
+
+		Container container = new Container(CompressionType.NONE, 42);
+		container.compress(b, null);
+		byte[] compressedData = container.data;
+		DataFileWriteResult res = df.write(42, 0x1FFFF, compressedData);
+		DataFileWriteResult res2 = df.write(42, 3, compressedData);
+
+		// both the large and small sector header layouts
+		Assert.assertArrayEquals(compressedData, df.read(42, 0x1FFFF, res.sector, res.compressedLength));
+		Assert.assertArrayEquals(compressedData, df.read(42, 3, res2.sector, res2.compressedLength));
+
+		// mismatched archive id
+		Assert.assertNull(df.read(42, 4, res2.sector, res2.compressedLength));
+
+		Container res3 = Container.decompress(df.read(42, 3, res2.sector, res2.compressedLength), null);
+		Assert.assertArrayEquals(b, res3.data);
+	}
 }
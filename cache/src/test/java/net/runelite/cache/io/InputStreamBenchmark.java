@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.LazyDefinitions;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.definitions.loaders.AreaLoader;
+import net.runelite.cache.definitions.loaders.EnumLoader;
+import net.runelite.cache.definitions.loaders.InventoryLoader;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.KitLoader;
+import net.runelite.cache.definitions.loaders.NpcLoader;
+import net.runelite.cache.definitions.loaders.ObjectLoader;
+import net.runelite.cache.definitions.loaders.OverlayLoader;
+import net.runelite.cache.definitions.loaders.SequenceLoader;
+import net.runelite.cache.definitions.loaders.SpotAnimLoader;
+import net.runelite.cache.definitions.loaders.StructLoader;
+import net.runelite.cache.definitions.loaders.UnderlayLoader;
+import net.runelite.cache.definitions.loaders.VarbitLoader;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Decodes every definition of the config archives of the test cache which
+ * have a loader, which is dominated by {@link InputStream} reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InputStreamBenchmark
+{
+	private static final Map<ConfigType, LazyDefinitions.Loader<?>> LOADERS = new EnumMap<>(ConfigType.class);
+
+	static
+	{
+		LOADERS.put(ConfigType.UNDERLAY, new UnderlayLoader()::load);
+		LOADERS.put(ConfigType.IDENTKIT, new KitLoader()::load);
+		LOADERS.put(ConfigType.OVERLAY, new OverlayLoader()::load);
+		LOADERS.put(ConfigType.INV, new InventoryLoader()::load);
+		LOADERS.put(ConfigType.OBJECT, new ObjectLoader()::load);
+		LOADERS.put(ConfigType.ENUM, new EnumLoader()::load);
+		LOADERS.put(ConfigType.NPC, new NpcLoader()::load);
+		LOADERS.put(ConfigType.ITEM, new ItemLoader()::load);
+		LOADERS.put(ConfigType.SEQUENCE, new SequenceLoader()::load);
+		LOADERS.put(ConfigType.SPOTANIM, new SpotAnimLoader()::load);
+		LOADERS.put(ConfigType.VARBIT, new VarbitLoader()::load);
+		LOADERS.put(ConfigType.STRUCT, new StructLoader()::load);
+		LOADERS.put(ConfigType.AREA, (id, b) -> new AreaLoader().load(b, id));
+	}
+
+	private final Map<ConfigType, List<FSFile>> configs = new EnumMap<>(ConfigType.class);
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		try (Store store = new Store(StoreLocation.LOCATION))
+		{
+			store.load();
+
+			Index index = store.getIndex(IndexType.CONFIGS);
+			for (ConfigType type : LOADERS.keySet())
+			{
+				Archive archive = index.getArchive(type.getId());
+				if (archive == null)
+				{
+					continue;
+				}
+
+				ArchiveFiles files = store.getArchiveFiles(archive);
+				configs.put(type, new ArrayList<>(files.getFiles()));
+			}
+		}
+	}
+
+	@Benchmark
+	public void decodeConfigs(Blackhole bh)
+	{
+		for (Map.Entry<ConfigType, List<FSFile>> entry : configs.entrySet())
+		{
+			decode(bh, entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Benchmark
+	public void decodeItems(Blackhole bh)
+	{
+		decode(bh, ConfigType.ITEM, configs.get(ConfigType.ITEM));
+	}
+
+	@Benchmark
+	public void decodeObjects(Blackhole bh)
+	{
+		decode(bh, ConfigType.OBJECT, configs.get(ConfigType.OBJECT));
+	}
+
+	private static void decode(Blackhole bh, ConfigType type, List<FSFile> files)
+	{
+		LazyDefinitions.Loader<?> loader = LOADERS.get(type);
+		for (FSFile file : files)
+		{
+			bh.consume(loader.load(file.getFileId(), file.getContents()));
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+			.include(InputStreamBenchmark.class.getSimpleName())
+			.build()).run();
+	}
+}
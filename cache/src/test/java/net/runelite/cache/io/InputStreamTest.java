@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class InputStreamTest
+{
+	@Test
+	public void testReadPrimitives()
+	{
+		OutputStream os = new OutputStream();
+		os.writeByte(-2);
+		os.writeShort(0xBEEF);
+		os.write24BitInt(0xABCDEF);
+		os.writeInt(-559038737);
+		os.writeShortSmart(5);
+		os.writeShortSmart(1000);
+		os.writeVarInt(123456789);
+		os.writeBytes(new byte[]{'A', 'b', (byte) 0x80, 0}); // 0x80 is the euro sign in cp1252
+		os.writeByte(0);
+
+		InputStream is = new InputStream(os.flip());
+		assertEquals(-2, is.readByte());
+		assertEquals(0xBEEF, is.readUnsignedShort());
+		assertEquals(0xABCDEF, is.read24BitInt());
+		assertEquals(-559038737, is.readInt());
+		assertEquals(5, is.readUnsignedShortSmart());
+		assertEquals(1000, is.readUnsignedShortSmart());
+		assertEquals(123456789, is.readVarInt());
+		assertEquals("Ab\u20ac", is.readString());
+		assertNull(is.readStringOrNull());
+		assertEquals(0, is.remaining());
+	}
+
+	@Test
+	public void testReadAtEnd() throws IOException
+	{
+		InputStream is = new InputStream(new byte[]{1, 2, 3});
+		byte[] b = new byte[4];
+
+		assertEquals(3, is.read(b, 0, b.length));
+		assertArrayEquals(new byte[]{1, 2, 3, 0}, b);
+		assertEquals(-1, is.read());
+		assertEquals(-1, is.read(b, 0, b.length));
+		assertEquals(0, is.read(b, 0, 0));
+	}
+
+	@Test
+	public void testRead() throws IOException
+	{
+		InputStream is = new InputStream(new byte[]{(byte) 0xFF, 1});
+		assertEquals(0xFF, is.read());
+		assertEquals(1, is.read());
+		assertEquals(-1, is.read());
+	}
+
+	@Test(expected = BufferUnderflowException.class)
+	public void testReadBytesPastEnd()
+	{
+		InputStream is = new InputStream(new byte[]{1, 2, 3});
+		is.skip(1);
+		is.readBytes(new byte[3]);
+	}
+
+	@Test
+	public void testGetRemaining()
+	{
+		InputStream is = new InputStream(new byte[]{1, 2, 3, 4});
+		is.setOffset(1);
+		assertArrayEquals(new byte[]{2, 3, 4}, is.getRemaining());
+		assertEquals(4, is.getOffset());
+		assertEquals(0, is.remaining());
+	}
+
+	@Test
+	public void testHeapBuffer()
+	{
+		byte[] b = new byte[]{0, 1, 2, 3, 4, 5};
+		ByteBuffer buffer = ByteBuffer.wrap(b, 1, 4).slice();
+		buffer.position(1);
+
+		InputStream is = new InputStream(buffer);
+		assertSame(b, is.getArray());
+		assertEquals(2, is.getOffset());
+		assertEquals(3, is.remaining());
+		assertEquals(0x0203, is.readUnsignedShort());
+		assertEquals(4, is.readByte());
+		assertEquals(0, is.remaining());
+	}
+
+	@Test
+	public void testDirectBuffer()
+	{
+		ByteBuffer buffer = ByteBuffer.allocateDirect(6);
+		buffer.put(new byte[]{0, 1, 2, 3, 4, 5});
+		buffer.position(2);
+
+		InputStream is = new InputStream(buffer);
+		assertEquals(2, buffer.position());
+		assertEquals(0, is.getOffset());
+		assertEquals(4, is.remaining());
+		assertEquals(0x02030405, is.readInt());
+		assertEquals(0, is.remaining());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSkipPastEnd()
+	{
+		InputStream is = new InputStream(new byte[]{1, 2, 3});
+		is.skip(4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeOffset()
+	{
+		InputStream is = new InputStream(new byte[]{1, 2, 3});
+		is.setOffset(-1);
+	}
+}
@@ -27,6 +27,12 @@ package net.runelite.cache.item;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.IndexType;
@@ -41,6 +47,10 @@ import net.runelite.cache.definitions.providers.ModelProvider;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -49,6 +59,9 @@ import org.junit.rules.TemporaryFolder;
 @Slf4j
 public class ItemSpriteFactoryTest
 {
+	// number of items of each kind compared by testRenderer
+	private static final int SAMPLE_SIZE = 50;
+
 	@Rule
 	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
 
@@ -115,4 +128,75 @@ public class ItemSpriteFactoryTest
 
 		log.info("Dumped {} item images to {}", count, outDir);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testRenderer() throws IOException
+	{
+		File base = StoreLocation.LOCATION;
+
+		try (Store store = new Store(base))
+		{
+			store.load();
+
+			ItemManager itemManager = new ItemManager(store);
+			itemManager.load();
+
+			ModelProvider modelProvider = modelId ->
+			{
+				Index models = store.getIndex(IndexType.MODELS);
+				Archive archive = models.getArchive(modelId);
+
+				byte[] data = archive.decompress(store.getStorage().loadArchive(archive));
+				return new ModelLoader().load(modelId, data);
+			};
+
+			SpriteManager spriteManager = new SpriteManager(store);
+			spriteManager.load();
+
+			TextureManager textureManager = new TextureManager(store);
+			textureManager.load();
+
+			// a sample of plain items, and of those drawn on noted, bought and placeholder templates
+			List<Integer> itemIds = new ArrayList<>();
+			itemIds.addAll(sampleItems(itemManager, itemDef -> itemDef.notedTemplate == -1
+				&& itemDef.boughtTemplateId == -1 && itemDef.placeholderTemplateId == -1));
+			itemIds.addAll(sampleItems(itemManager, itemDef -> itemDef.notedTemplate != -1));
+			itemIds.addAll(sampleItems(itemManager, itemDef -> itemDef.boughtTemplateId != -1));
+			itemIds.addAll(sampleItems(itemManager, itemDef -> itemDef.placeholderTemplateId != -1));
+
+			ItemSpriteRenderer renderer = new ItemSpriteRenderer(itemManager, modelProvider, spriteManager, textureManager);
+			ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+			try
+			{
+				// sprites drawn in parallel must match those drawn one at a time by the factory
+				int count = renderer.createSprites(itemIds, 1, 1, 3153952, executor, (itemId, sprite) ->
+				{
+					BufferedImage expected = ItemSpriteFactory.createSprite(itemManager, modelProvider, spriteManager, textureManager,
+						itemId, 1, 1, 3153952, false);
+					assertNotNull(expected);
+					assertEquals(expected.getWidth(), sprite.getWidth());
+					assertEquals(expected.getHeight(), sprite.getHeight());
+					assertArrayEquals("item " + itemId,
+						expected.getRGB(0, 0, expected.getWidth(), expected.getHeight(), null, 0, expected.getWidth()),
+						sprite.getRGB(0, 0, sprite.getWidth(), sprite.getHeight(), null, 0, sprite.getWidth()));
+				});
+				log.info("Compared {} item sprites", count);
+				assertTrue(count > 0);
+			}
+			finally
+			{
+				executor.shutdown();
+			}
+		}
+	}
+
+	private static List<Integer> sampleItems(ItemManager itemManager, Predicate<ItemDefinition> filter)
+	{
+		return itemManager.getItems().stream()
+			.filter(itemDef -> itemDef.name != null && !itemDef.name.equalsIgnoreCase("null"))
+			.filter(filter)
+			.limit(SAMPLE_SIZE)
+			.map(itemDef -> itemDef.id)
+			.collect(Collectors.toList());
+	}
+}
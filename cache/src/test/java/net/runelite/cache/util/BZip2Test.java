@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class BZip2Test
+{
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		Random random = new Random(42L);
+		// sizes around the 100k block boundary exercise multi block streams
+		int[] sizes = {0, 1, 4, 5, 1000, 99_999, 100_000, 100_001, 250_000};
+
+		for (int size : sizes)
+		{
+			byte[] noise = new byte[size];
+			random.nextBytes(noise);
+			roundTrip(noise);
+
+			// long runs exercise the run length encoding stages
+			byte[] runs = new byte[size];
+			for (int i = 1; i < size; ++i)
+			{
+				runs[i] = random.nextInt(100) < 2 ? (byte) random.nextInt() : runs[i - 1];
+			}
+			roundTrip(runs);
+		}
+	}
+
+	@Test
+	public void testCacheArchives() throws IOException
+	{
+		int count = 0;
+		try (Store store = new Store(StoreLocation.LOCATION))
+		{
+			store.load();
+
+			for (Index index : store.getIndexes())
+			{
+				for (Archive archive : index.getArchives())
+				{
+					byte[] data = store.getStorage().loadArchive(archive);
+					if (data == null || data[0] != CompressionType.BZ2)
+					{
+						continue;
+					}
+
+					ByteBuffer header = ByteBuffer.wrap(data);
+					int compressedLength = header.getInt(1);
+					int decompressedLength = header.getInt(5);
+
+					byte[] expected = new byte[decompressedLength];
+					BZip2.decompressStream(data, 9, compressedLength, expected, decompressedLength);
+
+					byte[] actual = new byte[decompressedLength];
+					BZip2.decompress(data, 9, compressedLength, actual, decompressedLength);
+
+					assertArrayEquals(expected, actual);
+					++count;
+				}
+			}
+		}
+
+		assertTrue(count > 0);
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws IOException
+	{
+		byte[] data = new byte[10_000];
+		new Random(42L).nextBytes(data);
+
+		byte[] compressed = BZip2.compress(data);
+		compressed[compressed.length / 2] ^= 1;
+
+		BZip2.decompress(compressed, 0, compressed.length, new byte[data.length], data.length);
+	}
+
+	@Test(expected = IOException.class)
+	public void testLengthMismatch() throws IOException
+	{
+		byte[] data = new byte[1000];
+		byte[] compressed = BZip2.compress(data);
+
+		BZip2.decompress(compressed, 0, compressed.length, new byte[data.length - 1], data.length - 1);
+	}
+
+	private static void roundTrip(byte[] data) throws IOException
+	{
+		byte[] compressed = BZip2.compress(data);
+
+		byte[] out = new byte[data.length];
+		BZip2.decompress(compressed, 0, compressed.length, out, data.length);
+		assertArrayEquals(data, out);
+	}
+}
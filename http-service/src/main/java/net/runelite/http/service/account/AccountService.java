@@ -229,6 +229,9 @@ public class AccountService
 			logger.info("Created session for user {}", userInfo.getEmail());
 		}
 
+		// the session may have been looked up before it existed
+		auth.invalidate(state.getUuid());
+
 		response.sendRedirect(RL_REDIR);
 
 		notifySession(state.getUuid(), userInfo.getEmail());
@@ -269,6 +272,8 @@ public class AccountService
 				.addParameter("uuid", session.getUuid().toString())
 				.executeUpdate();
 		}
+
+		auth.removeSession(session.getUuid());
 	}
 
 	@RequestMapping("/session-check")
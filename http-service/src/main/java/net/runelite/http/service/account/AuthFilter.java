@@ -24,18 +24,28 @@
  */
 package net.runelite.http.service.account;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.IOException;
 import net.runelite.http.service.account.beans.SessionEntry;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import net.runelite.http.api.RuneLiteAPI;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 @Service
@@ -43,6 +53,34 @@ public class AuthFilter
 {
 	private final Sql2o sql2o;
 
+	/*
+	 * Sessions are only removed by logging out, which invalidates them here.
+	 * Entries still expire so that logouts on other instances are noticed.
+	 */
+	private final Cache<UUID, SessionEntry> sessions = CacheBuilder.newBuilder()
+		.maximumSize(65536L)
+		.expireAfterWrite(10, TimeUnit.MINUTES)
+		.build();
+
+	private final Cache<UUID, Boolean> unknownSessions = CacheBuilder.newBuilder()
+		.maximumSize(65536L)
+		.expireAfterWrite(1, TimeUnit.MINUTES)
+		.build();
+
+	/*
+	 * Sessions recently deleted by logging out. A lookup which read the
+	 * session just before it was deleted must not cache it again.
+	 */
+	private final Cache<UUID, Boolean> deletedSessions = CacheBuilder.newBuilder()
+		.maximumSize(65536L)
+		.expireAfterWrite(1, TimeUnit.MINUTES)
+		.build();
+
+	/**
+	 * last use of each session not yet written to the database
+	 */
+	private final Map<UUID, Instant> pendingLastUsed = new ConcurrentHashMap<>();
+
 	@Autowired
 	public AuthFilter(@Qualifier("Runelite SQL2O") Sql2o sql2o)
 	{
@@ -60,29 +98,123 @@ public class AuthFilter
 
 		UUID uuid = UUID.fromString(runeliteAuth);
 
+		SessionEntry sessionEntry = findSession(uuid);
+		if (sessionEntry == null)
+		{
+			response.sendError(401, "Access denied");
+			return null;
+		}
+
+		Instant now = Instant.now();
+		sessionEntry.setLastUsed(now);
+		pendingLastUsed.put(uuid, now);
+
+		return sessionEntry;
+	}
+
+	private SessionEntry findSession(UUID uuid)
+	{
+		SessionEntry sessionEntry = sessions.getIfPresent(uuid);
+		if (sessionEntry != null)
+		{
+			return sessionEntry;
+		}
+
+		if (unknownSessions.getIfPresent(uuid) != null)
+		{
+			return null;
+		}
+
 		try (Connection con = sql2o.open())
 		{
-			SessionEntry sessionEntry = con.createQuery("select user, uuid, created from sessions where uuid = :uuid")
+			sessionEntry = con.createQuery("select user, uuid, created from sessions where uuid = :uuid")
 				.addParameter("uuid", uuid.toString())
 				.executeAndFetchFirst(SessionEntry.class);
+		}
 
-			if (sessionEntry == null)
-			{
-				response.sendError(401, "Access denied");
-				return null;
-			}
+		if (sessionEntry == null)
+		{
+			unknownSessions.put(uuid, true);
+			return null;
+		}
 
-			Instant now = Instant.now();
+		sessions.put(uuid, sessionEntry);
 
-			con.createQuery("update sessions set last_used = :last_used where uuid = :uuid")
-				.addParameter("last_used", Timestamp.from(now))
-				.addParameter("uuid", uuid.toString())
-				.executeUpdate();
+		// removeSession() marks the session deleted before invalidating it,
+		// so checking after caching it catches a delete racing this lookup
+		if (deletedSessions.getIfPresent(uuid) != null)
+		{
+			sessions.invalidate(uuid);
+			return null;
+		}
+		return sessionEntry;
+	}
 
-			sessionEntry.setLastUsed(now);
+	/**
+	 * Forget what is known about a session, after it has been created
+	 *
+	 * @param uuid session uuid
+	 */
+	public void invalidate(UUID uuid)
+	{
+		deletedSessions.invalidate(uuid);
+		sessions.invalidate(uuid);
+		unknownSessions.invalidate(uuid);
+	}
 
-			return sessionEntry;
+	/**
+	 * Forget a session after it has been deleted. Lookups of the session
+	 * which are still in flight will not cache it.
+	 *
+	 * @param uuid session uuid
+	 */
+	public void removeSession(UUID uuid)
+	{
+		deletedSessions.put(uuid, true);
+		sessions.invalidate(uuid);
+		pendingLastUsed.remove(uuid);
+	}
+
+	/**
+	 * Write the last use of sessions used since the previous flush, in a
+	 * single batch
+	 */
+	@Scheduled(fixedDelay = 30_000)
+	public void flushLastUsed()
+	{
+		if (pendingLastUsed.isEmpty())
+		{
+			return;
+		}
+
+		List<Map.Entry<UUID, Instant>> entries = new ArrayList<>(pendingLastUsed.entrySet());
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("update sessions set last_used = :last_used where uuid = :uuid");
+
+			for (Map.Entry<UUID, Instant> entry : entries)
+			{
+				query
+					.addParameter("last_used", Timestamp.from(entry.getValue()))
+					.addParameter("uuid", entry.getKey().toString())
+					.addToBatch();
+			}
+
+			query.executeBatch();
+			con.commit(false);
+		}
+
+		// keep sessions which were used again during the flush
+		for (Map.Entry<UUID, Instant> entry : entries)
+		{
+			pendingLastUsed.remove(entry.getKey(), entry.getValue());
 		}
 	}
 
+	@PreDestroy
+	public void shutdown()
+	{
+		flushLastUsed();
+	}
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A read through cache of compressed archives in front of an
+ * {@link ArchiveStore}. Archives are content addressed by the SHA-256 hash
+ * of their data, so entries never go stale and are shared between every
+ * cache revision containing the archive.
+ * <p>
+ * Archives are held in memory up to a total size in bytes, and optionally
+ * also kept in a local directory, which is not bounded and is checked
+ * against the hash when read back. Concurrent requests for the same
+ * archive are loaded from the store only once.
+ * <p>
+ * Arrays returned from the cache are shared and must not be modified.
+ */
+@Slf4j
+public class ArchiveBlobCache
+{
+	private final ArchiveStore store;
+	private final File directory;
+	private final Cache<String, byte[]> cache;
+
+	/**
+	 * @param store backing store
+	 * @param maxBytes maximum total size of archives held in memory
+	 * @param directory directory of the on-disk tier, or null for none
+	 */
+	public ArchiveBlobCache(ArchiveStore store, long maxBytes, File directory)
+	{
+		this.store = store;
+		this.directory = directory;
+		this.cache = CacheBuilder.newBuilder()
+			.maximumWeight(maxBytes)
+			.weigher((String k, byte[] v) -> v.length)
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * Get the path of an archive in the store
+	 *
+	 * @param hash SHA-256 hash of the archive
+	 * @return
+	 */
+	public static String getPath(byte[] hash)
+	{
+		String hashStr = BaseEncoding.base16().encode(hash);
+		return new StringBuilder()
+			.append(hashStr.substring(0, 2))
+			.append('/')
+			.append(hashStr.substring(2))
+			.toString();
+	}
+
+	/**
+	 * Get the compressed data of an archive
+	 *
+	 * @param hash SHA-256 hash of the archive
+	 * @return archive data
+	 * @throws IOException if the archive can not be loaded from the store
+	 */
+	public byte[] get(byte[] hash) throws IOException
+	{
+		String path = getPath(hash);
+		try
+		{
+			return cache.get(path, () -> load(hash, path));
+		}
+		catch (ExecutionException | UncheckedExecutionException ex)
+		{
+			Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new IOException(ex.getCause());
+		}
+	}
+
+	private byte[] load(byte[] hash, String path) throws IOException
+	{
+		File file = directory != null ? new File(directory, path) : null;
+		if (file != null && file.exists())
+		{
+			byte[] data = Files.readAllBytes(file.toPath());
+			if (Arrays.equals(hash, Hashing.sha256().hashBytes(data).asBytes()))
+			{
+				return data;
+			}
+
+			log.warn("Archive {} on disk does not match its hash, reloading", path);
+			Files.delete(file.toPath());
+		}
+
+		byte[] data;
+		try (InputStream in = store.getObject(path))
+		{
+			data = ByteStreams.toByteArray(in);
+		}
+
+		if (file != null)
+		{
+			try
+			{
+				write(file, data);
+			}
+			catch (IOException ex)
+			{
+				log.warn("unable to write archive {} to disk", path, ex);
+			}
+		}
+
+		return data;
+	}
+
+	private static void write(File file, byte[] data) throws IOException
+	{
+		File parent = file.getParentFile();
+		parent.mkdirs();
+
+		File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+		try
+		{
+			Files.write(tmp.toPath(), data);
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally
+		{
+			Files.deleteIfExists(tmp.toPath());
+		}
+	}
+
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+	}
+
+	public long size()
+	{
+		return cache.size();
+	}
+
+	public CacheStats stats()
+	{
+		return cache.stats();
+	}
+}
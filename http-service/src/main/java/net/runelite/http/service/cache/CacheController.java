@@ -24,12 +24,12 @@
  */
 package net.runelite.http.service.cache;
 
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
-import javax.imageio.ImageIO;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.ConfigType;
 import net.runelite.cache.IndexType;
@@ -50,9 +50,8 @@ import net.runelite.cache.definitions.providers.ModelProvider;
 import net.runelite.cache.definitions.providers.SpriteProvider;
 import net.runelite.cache.definitions.providers.TextureProvider;
 import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.item.ItemSpriteFactory;
+import net.runelite.cache.item.ItemSpriteRenderer;
 import net.runelite.http.api.cache.Cache;
 import net.runelite.http.api.cache.CacheArchive;
 import net.runelite.http.api.cache.CacheIndex;
@@ -61,7 +60,9 @@ import net.runelite.http.service.cache.beans.CacheEntry;
 import net.runelite.http.service.cache.beans.IndexEntry;
 import net.runelite.http.service.util.exception.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -72,9 +73,33 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class CacheController
 {
+	private static final int DEFAULT_BORDER = 1;
+	private static final int DEFAULT_SHADOW_COLOR = 3153952;
+
 	@Autowired
 	private CacheService cacheService;
 
+	private ItemSpriteRenderer itemSpriteRenderer;
+	private int itemSpriteRendererCacheId;
+
+	private final ImageCache<ItemImageKey> itemImages;
+	private final boolean prewarmItemImages;
+	private final ExecutorService prewarmExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+		.setNameFormat("item-image-prewarm")
+		.setDaemon(true)
+		.build());
+	private int prewarmedCacheId = -1;
+
+	@Autowired
+	public CacheController(
+		@Value("${cache.itemimages.size:67108864}") long itemImagesSize,
+		@Value("${cache.itemimages.prewarm:false}") boolean prewarmItemImages
+	)
+	{
+		this.itemImages = new ImageCache<>(itemImagesSize);
+		this.prewarmItemImages = prewarmItemImages;
+	}
+
 	@RequestMapping("/")
 	public List<Cache> listCaches()
 	{
@@ -205,7 +230,7 @@ public class CacheController
 	{
 		ArchiveEntry archiveEntry = findConfig(ConfigType.ITEM);
 
-		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
+		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(IndexType.CONFIGS.getNumber(), archiveEntry);
 		if (archiveFiles == null)
 		{
 			throw new NotFoundException();
@@ -226,10 +251,98 @@ public class CacheController
 		@PathVariable int itemId,
 		@RequestParam(defaultValue = "1") int quantity,
 		@RequestParam(defaultValue = "1") int border,
-		@RequestParam(defaultValue = "3153952") int shadowColor
+		@RequestParam(defaultValue = "3153952") int shadowColor,
+		@RequestParam(defaultValue = "false") boolean noted
 	) throws IOException
 	{
-		final CacheEntry cache = cacheService.findMostRecent();
+		CacheEntry cache = cacheService.findMostRecent();
+		if (cache == null)
+		{
+			throw new NotFoundException();
+		}
+
+		ItemImageKey key = new ItemImageKey(cache.getId(), itemId, quantity, border, shadowColor, noted);
+		CachedImage image = itemImages.get(key, () -> getItemSpriteRenderer(cache)
+			.createSprite(itemId, quantity, border, shadowColor, noted));
+		if (image == null)
+		{
+			throw new NotFoundException();
+		}
+
+		return image.toResponse();
+	}
+
+	/**
+	 * Render the default image of every tradeable item once a new cache
+	 * arrives, so the first requests for them are already cached
+	 */
+	@Scheduled(initialDelay = 60_000L, fixedDelay = 600_000L)
+	public void checkPrewarmItemImages()
+	{
+		if (!prewarmItemImages)
+		{
+			return;
+		}
+
+		CacheEntry cache = cacheService.findMostRecent();
+		if (cache == null || cache.getId() == prewarmedCacheId)
+		{
+			return;
+		}
+
+		prewarmedCacheId = cache.getId();
+		// rendering takes a while, so keep it off of the scheduler thread
+		prewarmExecutor.execute(() ->
+		{
+			try
+			{
+				prewarmItemImages(cache);
+			}
+			catch (IOException | RuntimeException ex)
+			{
+				log.warn("unable to pre-warm item images", ex);
+			}
+		});
+	}
+
+	private void prewarmItemImages(CacheEntry cache) throws IOException
+	{
+		List<Integer> itemIds = cacheService.getItems(cache).stream()
+			.filter(item -> item.isTradeable)
+			.map(item -> item.id)
+			.filter(itemId -> !itemImages.contains(defaultItemImageKey(cache, itemId)))
+			.collect(Collectors.toList());
+
+		log.info("Pre-warming {} item images for cache {}", itemIds.size(), cache.getId());
+
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try
+		{
+			getItemSpriteRenderer(cache).createSprites(itemIds, 1, DEFAULT_BORDER, DEFAULT_SHADOW_COLOR, executor,
+				(itemId, sprite) -> itemImages.put(defaultItemImageKey(cache, itemId), sprite));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private static ItemImageKey defaultItemImageKey(CacheEntry cache, int itemId)
+	{
+		return new ItemImageKey(cache.getId(), itemId, 1, DEFAULT_BORDER, DEFAULT_SHADOW_COLOR, false);
+	}
+
+	/**
+	 * Get the item sprite renderer for a cache. The renderer of the most
+	 * recent cache is kept, as it caches the models and textures it uses.
+	 */
+	private synchronized ItemSpriteRenderer getItemSpriteRenderer(CacheEntry cache)
+	{
+		if (itemSpriteRenderer != null && itemSpriteRendererCacheId == cache.getId())
+		{
+			return itemSpriteRenderer;
+		}
+
 		ItemProvider itemProvider = new ItemProvider()
 		{
 			@Override
@@ -253,7 +366,7 @@ public class CacheController
 			{
 				IndexEntry indexEntry = cacheService.findIndexForCache(cache, IndexType.MODELS.getNumber());
 				ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(indexEntry, modelId);
-				byte[] archiveData = Container.decompress(cacheService.getArchive(archiveEntry), null).data;
+				byte[] archiveData = cacheService.getArchiveContents(IndexType.MODELS.getNumber(), archiveEntry);
 				return new ModelLoader().load(modelId, archiveData);
 			}
 		};
@@ -266,7 +379,7 @@ public class CacheController
 				{
 					IndexEntry indexEntry = cacheService.findIndexForCache(cache, IndexType.SPRITES.getNumber());
 					ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(indexEntry, spriteId);
-					byte[] archiveData = Container.decompress(cacheService.getArchive(archiveEntry), null).data;
+					byte[] archiveData = cacheService.getArchiveContents(IndexType.SPRITES.getNumber(), archiveEntry);
 					SpriteDefinition[] defs = new SpriteLoader().load(spriteId, archiveData);
 					return defs[frameId];
 				}
@@ -287,7 +400,7 @@ public class CacheController
 				{
 					IndexEntry indexEntry = cacheService.findIndexForCache(cache, IndexType.TEXTURES.getNumber());
 					ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(indexEntry, 0);
-					ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
+					ArchiveFiles archiveFiles = cacheService.getArchiveFiles(IndexType.TEXTURES.getNumber(), archiveEntry);
 					TextureLoader loader = new TextureLoader();
 					TextureDefinition[] defs = new TextureDefinition[archiveFiles.getFiles().size()];
 					int i = 0;
@@ -306,11 +419,9 @@ public class CacheController
 			}
 		};
 
-		BufferedImage itemImage = ItemSpriteFactory.createSprite(itemProvider, modelProvider, spriteProvider, textureProvider2,
-			itemId, quantity, border, shadowColor, false);
-		ByteArrayOutputStream bao = new ByteArrayOutputStream();
-		ImageIO.write(itemImage, "png", bao);
-		return ResponseEntity.ok(bao.toByteArray());
+		itemSpriteRenderer = new ItemSpriteRenderer(itemProvider, modelProvider, spriteProvider, textureProvider2);
+		itemSpriteRendererCacheId = cache.getId();
+		return itemSpriteRenderer;
 	}
 
 	@RequestMapping("object/{objectId}")
@@ -320,7 +431,7 @@ public class CacheController
 	{
 		ArchiveEntry archiveEntry = findConfig(ConfigType.OBJECT);
 
-		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
+		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(IndexType.CONFIGS.getNumber(), archiveEntry);
 		if (archiveFiles == null)
 		{
 			throw new NotFoundException();
@@ -343,7 +454,7 @@ public class CacheController
 	{
 		ArchiveEntry archiveEntry = findConfig(ConfigType.NPC);
 
-		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
+		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(IndexType.CONFIGS.getNumber(), archiveEntry);
 		if (archiveFiles == null)
 		{
 			throw new NotFoundException();
@@ -24,33 +24,31 @@
  */
 package net.runelite.http.service.cache;
 
-import com.google.common.collect.Iterables;
-import com.google.common.io.BaseEncoding;
-import com.google.common.io.ByteStreams;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import io.minio.MinioClient;
-import io.minio.errors.ErrorResponseException;
-import io.minio.errors.InsufficientDataException;
-import io.minio.errors.InternalException;
-import io.minio.errors.InvalidArgumentException;
-import io.minio.errors.InvalidBucketNameException;
 import io.minio.errors.InvalidEndpointException;
 import io.minio.errors.InvalidPortException;
-import io.minio.errors.NoResponseException;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.ConfigType;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.fs.ArchiveCache;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.LruArchiveCache;
 import net.runelite.http.service.cache.beans.ArchiveEntry;
 import net.runelite.http.service.cache.beans.CacheEntry;
 import net.runelite.http.service.cache.beans.FileEntry;
@@ -63,7 +61,6 @@ import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
 import org.sql2o.ResultSetIterable;
 import org.sql2o.Sql2o;
-import org.xmlpull.v1.XmlPullParserException;
 
 @Service
 @Slf4j
@@ -73,19 +70,53 @@ public class CacheService
 	@Qualifier("Runelite Cache SQL2O")
 	private Sql2o sql2o;
 
-	@Value("${minio.bucket}")
-	private String minioBucket;
-
 	private final MinioClient minioClient;
+	private final LruArchiveCache archiveCache;
+	private final ArchiveBlobCache blobCache;
+
+	/*
+	 * Caches are written in a single transaction and never modified
+	 * afterwards, so their rows are memoized without expiry
+	 */
+	private final Cache<Integer, CacheEntry> caches = CacheBuilder.newBuilder()
+		.maximumSize(256L)
+		.build();
+
+	/**
+	 * index rows of each cache, by cache id then index id
+	 */
+	private final LoadingCache<Integer, Map<Integer, IndexEntry>> indexes = CacheBuilder.newBuilder()
+		.maximumSize(16L)
+		.build(CacheLoader.from(this::loadIndexes));
+
+	/**
+	 * archive rows of each index, by index row id then archive id
+	 */
+	private final LoadingCache<Integer, Map<Integer, ArchiveEntry>> archives = CacheBuilder.newBuilder()
+		.maximumWeight(1L << 18)
+		.weigher((Integer k, Map<Integer, ArchiveEntry> v) -> v.size())
+		.build(CacheLoader.from(this::loadArchives));
 
 	@Autowired
 	public CacheService(
 		@Value("${minio.endpoint}") String minioEndpoint,
 		@Value("${minio.accesskey}") String accessKey,
-		@Value("${minio.secretkey}") String secretKey
+		@Value("${minio.secretkey}") String secretKey,
+		@Value("${minio.bucket}") String minioBucket,
+		@Value("${cache.archivecache.size:67108864}") long archiveCacheSize,
+		@Value("${cache.blobcache.size:134217728}") long blobCacheSize,
+		@Value("${cache.blobcache.dir:}") String blobCacheDir,
+		@Value("${cache.archivestore.dir:}") String archiveStoreDir
 	) throws InvalidEndpointException, InvalidPortException
 	{
 		this.minioClient = new MinioClient(minioEndpoint, accessKey, secretKey);
+		this.archiveCache = new LruArchiveCache(archiveCacheSize);
+
+		ArchiveStore archiveStore = Strings.isNullOrEmpty(archiveStoreDir)
+			? new MinioArchiveStore(minioClient, minioBucket)
+			: new FileArchiveStore(new File(archiveStoreDir));
+		this.blobCache = new ArchiveBlobCache(archiveStore, blobCacheSize,
+			Strings.isNullOrEmpty(blobCacheDir) ? null : new File(blobCacheDir));
 	}
 
 	@Bean
@@ -94,56 +125,84 @@ public class CacheService
 		return minioClient;
 	}
 
+	@Bean
+	public ArchiveCache archiveCache()
+	{
+		return archiveCache;
+	}
+
+	@Bean
+	public ArchiveBlobCache archiveBlobCache()
+	{
+		return blobCache;
+	}
+
 	/**
-	 * retrieve archive from storage
+	 * retrieve archive from storage, going through the archive blob cache
 	 *
 	 * @param archiveEntry
-	 * @return
+	 * @return compressed archive data, which must not be modified
 	 */
 	public byte[] getArchive(ArchiveEntry archiveEntry)
 	{
-		String hashStr = BaseEncoding.base16().encode(archiveEntry.getHash());
-		String path = new StringBuilder()
-			.append(hashStr.substring(0, 2))
-			.append('/')
-			.append(hashStr.substring(2))
-			.toString();
-
-		try (InputStream in = minioClient.getObject(minioBucket, path))
+		try
 		{
-			return ByteStreams.toByteArray(in);
+			return blobCache.get(archiveEntry.getHash());
 		}
-		catch (InvalidBucketNameException | NoSuchAlgorithmException | InsufficientDataException
-			| IOException | InvalidKeyException | NoResponseException | XmlPullParserException
-			| ErrorResponseException | InternalException | InvalidArgumentException ex)
+		catch (IOException ex)
 		{
 			log.warn(null, ex);
 			return null;
 		}
 	}
 
-	public ArchiveFiles getArchiveFiles(ArchiveEntry archiveEntry) throws IOException
+	/**
+	 * retrieve and decompress archive from storage, going through the
+	 * decompressed archive cache
+	 *
+	 * @param indexId index the archive belongs to
+	 * @param archiveEntry
+	 * @return a copy of the decompressed archive contents
+	 * @throws IOException
+	 */
+	public byte[] getArchiveContents(int indexId, ArchiveEntry archiveEntry) throws IOException
+	{
+		byte[] data = archiveCache.get(indexId, archiveEntry.getArchiveId(), archiveEntry.getCrc());
+		if (data != null)
+		{
+			return data.clone();
+		}
+
+		byte[] archiveData = getArchive(archiveEntry);
+		if (archiveData == null)
+		{
+			return null;
+		}
+
+		Container result = Container.decompress(archiveData, null);
+		if (result == null)
+		{
+			return null;
+		}
+
+		data = result.data;
+		archiveCache.put(indexId, archiveEntry.getArchiveId(), archiveEntry.getCrc(), data.clone());
+		return data;
+	}
+
+	public ArchiveFiles getArchiveFiles(int indexId, ArchiveEntry archiveEntry) throws IOException
 	{
 		CacheDAO cacheDao = new CacheDAO();
 
 		try (Connection con = sql2o.open();
 			ResultSetIterable<FileEntry> files = cacheDao.findFilesForArchive(con, archiveEntry))
 		{
-			byte[] archiveData = getArchive(archiveEntry);
-
-			if (archiveData == null)
+			byte[] decompressedData = getArchiveContents(indexId, archiveEntry);
+			if (decompressedData == null)
 			{
 				return null;
 			}
 
-			Container result = Container.decompress(archiveData, null);
-			if (result == null)
-			{
-				return null;
-			}
-
-			byte[] decompressedData = result.data;
-
 			ArchiveFiles archiveFiles = new ArchiveFiles();
 			for (FileEntry fileEntry : files)
 			{
@@ -167,11 +226,23 @@ public class CacheService
 
 	public CacheEntry findCache(int cacheId)
 	{
+		CacheEntry cache = caches.getIfPresent(cacheId);
+		if (cache != null)
+		{
+			return cache;
+		}
+
 		try (Connection con = sql2o.open())
 		{
 			CacheDAO cacheDao = new CacheDAO();
-			return cacheDao.findCache(con, cacheId);
+			cache = cacheDao.findCache(con, cacheId);
+		}
+
+		if (cache != null)
+		{
+			caches.put(cacheId, cache);
 		}
+		return cache;
 	}
 
 	public CacheEntry findMostRecent()
@@ -183,52 +254,76 @@ public class CacheService
 		}
 	}
 
-	public List<IndexEntry> findIndexesForCache(CacheEntry cacheEntry)
+	private Map<Integer, IndexEntry> loadIndexes(int cacheId)
 	{
+		CacheEntry cache = new CacheEntry();
+		cache.setId(cacheId);
+
 		try (Connection con = sql2o.open())
 		{
 			CacheDAO cacheDao = new CacheDAO();
-			return cacheDao.findIndexesForCache(con, cacheEntry);
+			Map<Integer, IndexEntry> map = new LinkedHashMap<>();
+			for (IndexEntry indexEntry : cacheDao.findIndexesForCache(con, cache))
+			{
+				map.putIfAbsent(indexEntry.getIndexId(), indexEntry);
+			}
+			return Collections.unmodifiableMap(map);
 		}
 	}
 
-	public IndexEntry findIndexForCache(CacheEntry cahceEntry, int indexId)
+	private Map<Integer, ArchiveEntry> loadArchives(int indexRowId)
 	{
-		try (Connection con = sql2o.open())
+		IndexEntry indexEntry = new IndexEntry();
+		indexEntry.setId(indexRowId);
+
+		try (Connection con = sql2o.open();
+			ResultSetIterable<ArchiveEntry> archiveEntries = new CacheDAO().findArchivesForIndex(con, indexEntry))
 		{
-			CacheDAO cacheDao = new CacheDAO();
-			return cacheDao.findIndexForCache(con, cahceEntry, indexId);
+			Map<Integer, ArchiveEntry> map = new LinkedHashMap<>();
+			for (ArchiveEntry archiveEntry : archiveEntries)
+			{
+				map.putIfAbsent(archiveEntry.getArchiveId(), archiveEntry);
+			}
+			return Collections.unmodifiableMap(map);
 		}
 	}
 
+	public List<IndexEntry> findIndexesForCache(CacheEntry cacheEntry)
+	{
+		return new ArrayList<>(indexes.getUnchecked(cacheEntry.getId()).values());
+	}
+
+	public IndexEntry findIndexForCache(CacheEntry cahceEntry, int indexId)
+	{
+		return indexes.getUnchecked(cahceEntry.getId()).get(indexId);
+	}
+
 	public List<ArchiveEntry> findArchivesForIndex(IndexEntry indexEntry)
 	{
-		try (Connection con = sql2o.open())
-		{
-			CacheDAO cacheDao = new CacheDAO();
-			ResultSetIterable<ArchiveEntry> archiveEntries = cacheDao.findArchivesForIndex(con, indexEntry);
-			List<ArchiveEntry> archives = new ArrayList<>();
-			Iterables.addAll(archives, archiveEntries);
-			return archives;
-		}
+		return new ArrayList<>(archives.getUnchecked(indexEntry.getId()).values());
 	}
 
 	public ArchiveEntry findArchiveForIndex(IndexEntry indexEntry, int archiveId)
 	{
-		try (Connection con = sql2o.open())
-		{
-			CacheDAO cacheDao = new CacheDAO();
-			return cacheDao.findArchiveForIndex(con, indexEntry, archiveId);
-		}
+		return archives.getUnchecked(indexEntry.getId()).get(archiveId);
 	}
 
 	public ArchiveEntry findArchiveForTypeAndName(CacheEntry cache, IndexType index, int nameHash)
 	{
-		try (Connection con = sql2o.open())
+		IndexEntry indexEntry = findIndexForCache(cache, index.getNumber());
+		if (indexEntry == null)
 		{
-			CacheDAO cacheDao = new CacheDAO();
-			return cacheDao.findArchiveByName(con, cache, index, nameHash);
+			return null;
+		}
+
+		for (ArchiveEntry archiveEntry : archives.getUnchecked(indexEntry.getId()).values())
+		{
+			if (archiveEntry.getNameHash() == nameHash)
+			{
+				return archiveEntry;
+			}
 		}
+		return null;
 	}
 
 	public List<ItemDefinition> getItems() throws IOException
@@ -239,9 +334,14 @@ public class CacheService
 			return Collections.emptyList();
 		}
 
+		return getItems(cache);
+	}
+
+	public List<ItemDefinition> getItems(CacheEntry cache) throws IOException
+	{
 		IndexEntry indexEntry = findIndexForCache(cache, IndexType.CONFIGS.getNumber());
 		ArchiveEntry archiveEntry = findArchiveForIndex(indexEntry, ConfigType.ITEM.getId());
-		ArchiveFiles archiveFiles = getArchiveFiles(archiveEntry);
+		ArchiveFiles archiveFiles = getArchiveFiles(IndexType.CONFIGS.getNumber(), archiveEntry);
 		final ItemLoader itemLoader = new ItemLoader();
 		final List<ItemDefinition> result = new ArrayList<>(archiveFiles.getFiles().size());
 		for (FSFile file : archiveFiles.getFiles())
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import javax.imageio.ImageIO;
+
+/**
+ * A cache of rendered images encoded as PNG, bounded by the total size of
+ * the encoded images. Keys should include the id of the cache the image
+ * was rendered from, so entries never go stale.
+ * <p>
+ * Concurrent requests for the same missing image wait for a single render.
+ * Images which could not be rendered are remembered too, and are weighed
+ * like a small image so they are bounded by the same limit.
+ *
+ * @param <K> key type
+ */
+public class ImageCache<K>
+{
+	private static final CachedImage EMPTY = new CachedImage(new byte[0], null);
+	/**
+	 * weight of an entry with no or a tiny image, covering the key and entry
+	 * overhead, so remembered misses count towards the limit and are evicted
+	 */
+	private static final int MIN_WEIGHT = 1024;
+
+	public interface Renderer
+	{
+		/**
+		 * @return the rendered image, or null if there is none
+		 */
+		BufferedImage render() throws IOException;
+	}
+
+	private final Cache<K, CachedImage> cache;
+
+	/**
+	 * @param maxBytes maximum total size of encoded images
+	 */
+	public ImageCache(long maxBytes)
+	{
+		cache = CacheBuilder.newBuilder()
+			.maximumWeight(maxBytes)
+			.weigher((K k, CachedImage v) -> Math.max(MIN_WEIGHT, v.getData().length))
+			.build();
+	}
+
+	/**
+	 * Get an image, rendering and encoding it if it is not cached
+	 *
+	 * @param key
+	 * @param renderer
+	 * @return the image, or null if the renderer produced none
+	 * @throws IOException
+	 */
+	public CachedImage get(K key, Renderer renderer) throws IOException
+	{
+		CachedImage image;
+		try
+		{
+			image = cache.get(key, () -> encode(renderer.render()));
+		}
+		catch (ExecutionException | UncheckedExecutionException ex)
+		{
+			Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new IOException(ex.getCause());
+		}
+		return image == EMPTY ? null : image;
+	}
+
+	/**
+	 * Add an already rendered image, eg. when pre-warming the cache
+	 */
+	public void put(K key, BufferedImage image) throws IOException
+	{
+		cache.put(key, encode(image));
+	}
+
+	public boolean contains(K key)
+	{
+		return cache.getIfPresent(key) != null;
+	}
+
+	public long size()
+	{
+		return cache.size();
+	}
+
+	private static CachedImage encode(BufferedImage image) throws IOException
+	{
+		if (image == null)
+		{
+			return EMPTY;
+		}
+
+		ByteArrayOutputStream bao = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", bao);
+		return CachedImage.of(bao.toByteArray());
+	}
+}
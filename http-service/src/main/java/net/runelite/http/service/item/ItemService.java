@@ -24,18 +24,28 @@
  */
 package net.runelite.http.service.item;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.gson.JsonParseException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.http.api.RuneLiteAPI;
@@ -83,11 +93,45 @@ public class ItemService
 		+ ") ENGINE=InnoDB";
 
 	private static final int MAX_PENDING = 512;
+	/**
+	 * maximum number of ids bound in a single latest price query
+	 */
+	private static final int PRICE_LOOKUP_CHUNK = 256;
+	/**
+	 * maximum number of items whose latest price, or lack of one, is cached
+	 */
+	private static final int PRICE_CACHE_SIZE = 65536;
 
 	private final Sql2o sql2o;
 	private final CacheService cacheService;
 
 	private final ConcurrentLinkedQueue<PendingLookup> pendingLookups = new ConcurrentLinkedQueue<PendingLookup>();
+	/**
+	 * latest known price of each item, keyed by item id. Items without a
+	 * price are cached too, as empty, so unknown ids do not hit the database
+	 * on every request.
+	 */
+	private final LoadingCache<Integer, Optional<PriceEntry>> latestPrices = CacheBuilder.newBuilder()
+		.maximumSize(PRICE_CACHE_SIZE)
+		.refreshAfterWrite(10, TimeUnit.MINUTES)
+		.expireAfterWrite(30, TimeUnit.MINUTES)
+		.build(new CacheLoader<Integer, Optional<PriceEntry>>()
+		{
+			@Override
+			public Optional<PriceEntry> load(Integer itemId)
+			{
+				try (Connection con = sql2o.open())
+				{
+					return Optional.ofNullable(getPrice(con, itemId, null));
+				}
+			}
+
+			@Override
+			public Map<Integer, Optional<PriceEntry>> loadAll(Iterable<? extends Integer> itemIds)
+			{
+				return loadLatestPrices(itemIds);
+			}
+		});
 	private int[] tradeableItems;
 	private final Random random = new Random();
 
@@ -139,39 +183,116 @@ public class ItemService
 
 	public PriceEntry getPrice(int itemId, Instant time)
 	{
+		if (time == null)
+		{
+			try
+			{
+				return latestPrices.get(itemId).orElse(null);
+			}
+			catch (ExecutionException | UncheckedExecutionException ex)
+			{
+				Throwables.throwIfUnchecked(ex.getCause());
+				throw new RuntimeException(ex.getCause());
+			}
+		}
+
 		try (Connection con = sql2o.open())
 		{
 			return getPrice(con, itemId, time);
 		}
 	}
 
+	/**
+	 * Get the latest price of each of the given items, in request order.
+	 * Duplicate ids and items without a known price are omitted. Prices
+	 * are served from memory, and the ones not yet known are looked up
+	 * together in as few queries as possible.
+	 */
 	public List<PriceEntry> getPrices(int... itemIds)
 	{
-		try (Connection con = sql2o.open())
+		Set<Integer> ids = new LinkedHashSet<>(itemIds.length);
+		for (int itemId : itemIds)
 		{
-			Set<Integer> seen = new HashSet<>();
-			List<PriceEntry> priceEntries = new ArrayList<>(itemIds.length);
+			ids.add(itemId);
+		}
 
-			for (int itemId : itemIds)
-			{
-				if (seen.contains(itemId))
-				{
-					continue;
-				}
-				seen.add(itemId);
+		Map<Integer, Optional<PriceEntry>> prices;
+		try
+		{
+			prices = latestPrices.getAll(ids);
+		}
+		catch (ExecutionException | UncheckedExecutionException ex)
+		{
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new RuntimeException(ex.getCause());
+		}
+
+		List<PriceEntry> priceEntries = new ArrayList<>(ids.size());
+		for (int itemId : ids)
+		{
+			prices.get(itemId).ifPresent(priceEntries::add);
+		}
+		return priceEntries;
+	}
 
-				PriceEntry priceEntry = getPrice(con, itemId, null);
+	/**
+	 * Look up the latest prices of the given items, in chunks of at most
+	 * {@link #PRICE_LOOKUP_CHUNK} ids per query
+	 *
+	 * @return the price of every given item, empty if it has none
+	 */
+	private Map<Integer, Optional<PriceEntry>> loadLatestPrices(Iterable<? extends Integer> itemIds)
+	{
+		List<Integer> ids = new ArrayList<>();
+		Map<Integer, Optional<PriceEntry>> prices = new HashMap<>();
+		for (int itemId : itemIds)
+		{
+			ids.add(itemId);
+			prices.put(itemId, Optional.empty());
+		}
 
-				if (priceEntry == null)
+		try (Connection con = sql2o.open())
+		{
+			for (int i = 0; i < ids.size(); i += PRICE_LOOKUP_CHUNK)
+			{
+				List<Integer> chunk = ids.subList(i, Math.min(i + PRICE_LOOKUP_CHUNK, ids.size()));
+				for (PriceEntry priceEntry : getLatestPrices(con, chunk))
 				{
-					continue;
+					prices.put(priceEntry.getItem(), Optional.of(priceEntry));
 				}
+			}
+		}
+		return prices;
+	}
+
+	private static List<PriceEntry> getLatestPrices(Connection con, List<Integer> itemIds)
+	{
+		if (itemIds.isEmpty())
+		{
+			return Collections.emptyList();
+		}
 
-				priceEntries.add(priceEntry);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < itemIds.size(); ++i)
+		{
+			if (i > 0)
+			{
+				sb.append(", ");
 			}
+			sb.append(":item").append(i);
+		}
 
-			return priceEntries;
+		Query query = con.createQuery("select t1.item, t3.name, t1.price, t1.time, t1.fetched_time from prices t1"
+			+ " join (select item, max(time) as time from prices where item in (" + sb + ") group by item) t2"
+			+ " on t1.item=t2.item and t1.time=t2.time"
+			+ " join items t3 on t1.item=t3.id");
+
+		for (int i = 0; i < itemIds.size(); ++i)
+		{
+			query.addParameter("item" + i, (int) itemIds.get(i));
 		}
+
+		return query.executeAndFetch(PriceEntry.class);
 	}
 
 	public List<ItemEntry> search(String search)
@@ -225,6 +346,9 @@ public class ItemService
 					.executeUpdate();
 			}
 
+			// the item may have been cached without a price while it was unknown
+			latestPrices.invalidate(itemId);
+
 			ItemEntry item = new ItemEntry();
 			item.setId(itemId);
 			item.setName(rsItem.getName());
@@ -287,6 +411,9 @@ public class ItemService
 			query.executeBatch();
 			con.commit(false);
 
+			// reload from the database, which also knows the item name
+			latestPrices.refresh(itemId);
+
 			return entries;
 		}
 	}
@@ -298,7 +425,12 @@ public class ItemService
 			Query query = con.createQuery("select t2.item, t3.name, t2.time, prices.price, prices.fetched_time from (select t1.item as item, max(t1.time) as time from prices t1 group by item) t2 " +
 					" join prices on t2.item=prices.item and t2.time=prices.time" +
 					" join items t3 on t2.item=t3.id");
-			return query.executeAndFetch(PriceEntry.class);
+			List<PriceEntry> prices = query.executeAndFetch(PriceEntry.class);
+			for (PriceEntry priceEntry : prices)
+			{
+				latestPrices.put(priceEntry.getItem(), Optional.of(priceEntry));
+			}
+			return prices;
 		}
 	}
 
@@ -369,6 +501,11 @@ public class ItemService
 			q.executeBatch();
 			con.commit(false);
 		}
+
+		for (RSItem rsItem : search.getItems())
+		{
+			latestPrices.invalidate(rsItem.getId());
+		}
 	}
 
 	private <T> T fetchJson(Request request, Class<T> clazz) throws IOException
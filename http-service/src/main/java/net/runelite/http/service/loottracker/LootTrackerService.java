@@ -25,11 +25,34 @@
  */
 package net.runelite.http.service.loottracker;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import javax.annotation.PreDestroy;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.loottracker.GameItem;
 import net.runelite.http.api.loottracker.LootRecord;
+import net.runelite.http.service.util.exception.BadRequestException;
+import net.runelite.http.service.util.exception.ServiceUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -37,8 +60,10 @@ import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
 import org.sql2o.Query;
 import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
 
 @Service
+@Slf4j
 public class LootTrackerService
 {
 	// Table for storing individual LootRecords
@@ -62,17 +87,58 @@ public class LootTrackerService
 		+ "  FOREIGN KEY (killId) REFERENCES kills(id) ON DELETE CASCADE\n"
 		+ ") ENGINE=InnoDB";
 
-	// Queries for inserting kills
-	private static final String INSERT_KILL_QUERY = "INSERT INTO kills (accountId, type, eventId) VALUES (:accountId, :type, :eventId)";
-	private static final String INSERT_DROP_QUERY = "INSERT INTO drops (killId, itemId, itemQuantity) VALUES (LAST_INSERT_ID(), :itemId, :itemQuantity)";
+	// Multi-row inserts for kills and drops, see valuesQuery()
+	private static final String INSERT_KILLS_QUERY = "INSERT INTO kills (accountId, type, eventId, time) VALUES ";
+	private static final String[] KILL_COLUMNS = {"accountId", "type", "eventId", "time"};
+	private static final String INSERT_DROPS_QUERY = "INSERT INTO drops (killId, itemId, itemQuantity) VALUES ";
+	private static final String[] DROP_COLUMNS = {"killId", "itemId", "itemQuantity"};
 
 	private static final String SELECT_LOOT_QUERY = "SELECT killId,time,type,eventId,itemId,itemQuantity FROM kills JOIN drops ON drops.killId = kills.id WHERE accountId = :accountId ORDER BY TIME DESC LIMIT :limit OFFSET :offset";
 
 	private static final String DELETE_LOOT_ACCOUNT = "DELETE FROM kills WHERE accountId = :accountId";
 	private static final String DELETE_LOOT_ACCOUNT_EVENTID = "DELETE FROM kills WHERE accountId = :accountId AND eventId = :eventId";
 
+	// Length of the eventId column
+	private static final int MAX_EVENT_ID_LENGTH = 255;
+	// Maximum number of records waiting to be flushed
+	static final int MAX_PENDING = 8192;
+	// Time a request waits for room in a full queue before being refused
+	private static final long OFFER_TIMEOUT_MS = 1000;
+	// Maximum number of records written per transaction
+	private static final int FLUSH_BATCH = 1024;
+	// Maximum number of rows per insert statement
+	private static final int ROWS_PER_INSERT = 256;
+
+	@Value
+	private static class PendingLoot
+	{
+		private final int accountId;
+		private final LootRecord record;
+		private final Instant time;
+	}
+
 	private final Sql2o sql2o;
 
+	private final BlockingQueue<PendingLoot> pending = new ArrayBlockingQueue<>(MAX_PENDING);
+	// Records drained from the queue which have not been committed yet, guarded by lock.
+	// Records which failed to be written because of the database stay here to be retried.
+	private final List<PendingLoot> inFlight = new ArrayList<>(FLUSH_BATCH);
+	/*
+	 * Held for writing while records are drained from the queue and while
+	 * they are committed, so readers see each record exactly once
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	// Held for the whole of a flush, so deletes can't race an insert
+	private final Lock flushLock = new ReentrantLock();
+
+	private final AtomicLong flushes = new AtomicLong();
+	private final AtomicLong flushed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private volatile long lastFlushMillis;
+	private volatile long maxFlushMillis;
+
 	@Autowired
 	public LootTrackerService(@Qualifier("Runelite SQL2O") Sql2o sql2o)
 	{
@@ -87,49 +153,382 @@ public class LootTrackerService
 	}
 
 	/**
-	 * Store LootRecord
+	 * Queue a LootRecord to be stored. If the queue is full this waits
+	 * briefly for room, and then refuses the record.
 	 *
 	 * @param record    LootRecord to store
 	 * @param accountId runelite account id to tie data too
+	 * @throws BadRequestException         if the record can't be stored
+	 * @throws ServiceUnavailableException if the queue is full
 	 */
 	public void store(LootRecord record, int accountId)
+	{
+		if (record.getType() == null || record.getEventId() == null
+			|| record.getEventId().length() > MAX_EVENT_ID_LENGTH)
+		{
+			throw new BadRequestException("Invalid loot record");
+		}
+
+		if (record.getDrops() == null)
+		{
+			record.setDrops(Collections.emptyList());
+		}
+
+		PendingLoot pendingLoot = new PendingLoot(accountId, record, Instant.now());
+
+		boolean queued;
+		try
+		{
+			queued = pending.offer(pendingLoot, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			queued = false;
+		}
+
+		if (!queued)
+		{
+			rejected.incrementAndGet();
+			throw new ServiceUnavailableException("Loot tracker is busy");
+		}
+	}
+
+	/**
+	 * Write queued records to the database
+	 */
+	@Scheduled(fixedDelay = 1000)
+	public void flush()
+	{
+		while (flushBatch() == FLUSH_BATCH)
+		{
+			// more records are waiting
+		}
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		flush();
+
+		int unflushed;
+		lock.readLock().lock();
+		try
+		{
+			unflushed = inFlight.size() + pending.size();
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+
+		if (unflushed > 0)
+		{
+			log.warn("{} loot records could not be stored before shutdown", unflushed);
+		}
+	}
+
+	@Scheduled(fixedDelay = 60_000)
+	public void logStats()
+	{
+		log.info("{}", getStats());
+	}
+
+	/**
+	 * Write the records in flight, topped up from the queue. Records which
+	 * could not be written because of the database, rather than because of
+	 * the record, are kept in flight and retried by the next flush.
+	 *
+	 * @return number of records written or dropped
+	 */
+	private int flushBatch()
+	{
+		flushLock.lock();
+		try
+		{
+			List<PendingLoot> batch;
+
+			lock.writeLock().lock();
+			try
+			{
+				// records kept from a failed flush are older than any queued
+				pending.drainTo(inFlight, FLUSH_BATCH - inFlight.size());
+				batch = new ArrayList<>(inFlight);
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
+
+			if (batch.isEmpty())
+			{
+				return 0;
+			}
+
+			long start = System.nanoTime();
+			int done;
+			try
+			{
+				insert(batch);
+				flushed.addAndGet(batch.size());
+				done = batch.size();
+			}
+			catch (Sql2oException ex)
+			{
+				if (isTransient(ex))
+				{
+					retries.incrementAndGet();
+					log.warn("unable to store {} loot records, will retry", batch.size(), ex);
+					return 0;
+				}
+
+				// one bad record fails the whole batch, so find it
+				log.warn("unable to store {} loot records, storing individually", batch.size(), ex);
+				done = insertEach(batch);
+			}
+
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			lastFlushMillis = elapsed;
+			maxFlushMillis = Math.max(maxFlushMillis, elapsed);
+			flushes.incrementAndGet();
+
+			log.debug("Flushed {} loot records in {}ms", done, elapsed);
+			return done;
+		}
+		finally
+		{
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Insert records one at a time, dropping those which can't be stored.
+	 * This stops at the first failure which is not down to the record,
+	 * leaving the rest in flight.
+	 *
+	 * @return number of records written or dropped
+	 */
+	private int insertEach(List<PendingLoot> batch)
+	{
+		int done = 0;
+		for (PendingLoot pendingLoot : batch)
+		{
+			try
+			{
+				insert(Collections.singletonList(pendingLoot));
+				flushed.incrementAndGet();
+			}
+			catch (Sql2oException ex)
+			{
+				if (isTransient(ex))
+				{
+					retries.incrementAndGet();
+					log.warn("unable to store loot record {}, will retry", pendingLoot, ex);
+					break;
+				}
+
+				failed.incrementAndGet();
+				log.warn("unable to store loot record {}", pendingLoot, ex);
+
+				lock.writeLock().lock();
+				try
+				{
+					inFlight.remove(pendingLoot);
+				}
+				finally
+				{
+					lock.writeLock().unlock();
+				}
+			}
+
+			++done;
+		}
+		return done;
+	}
+
+	/**
+	 * Check if a failure is down to the database, such as a lost connection
+	 * or a deadlock, rather than to the records being written
+	 */
+	private static boolean isTransient(Sql2oException ex)
+	{
+		for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause())
+		{
+			if (cause instanceof SQLException)
+			{
+				String state = ((SQLException) cause).getSQLState();
+				return cause instanceof SQLTransientException
+					|| cause instanceof SQLRecoverableException
+					|| cause instanceof SQLNonTransientConnectionException
+					|| (state != null && state.startsWith("08")); // connection exception
+			}
+		}
+
+		// not from the driver, e.g. no connection could be had
+		return true;
+	}
+
+	/**
+	 * Insert records in a single transaction. Only the commit is done under
+	 * the write lock, at which point the records stop being in flight.
+	 */
+	private void insert(List<PendingLoot> batch)
 	{
 		try (Connection con = sql2o.beginTransaction())
 		{
-			// Kill Entry Query
-			con.createQuery(INSERT_KILL_QUERY, true)
-				.addParameter("accountId", accountId)
-				.addParameter("type", record.getType())
-				.addParameter("eventId", record.getEventId())
-				.executeUpdate();
+			List<Object[]> drops = new ArrayList<>();
 
-			Query insertDrop = con.createQuery(INSERT_DROP_QUERY);
+			for (List<PendingLoot> chunk : Lists.partition(batch, ROWS_PER_INSERT))
+			{
+				Query insertKills = con.createQuery(valuesQuery(INSERT_KILLS_QUERY, KILL_COLUMNS, chunk.size()), true);
+				for (int i = 0; i < chunk.size(); ++i)
+				{
+					PendingLoot pendingLoot = chunk.get(i);
+					insertKills
+						.addParameter("accountId" + i, pendingLoot.getAccountId())
+						.addParameter("type" + i, pendingLoot.getRecord().getType())
+						.addParameter("eventId" + i, pendingLoot.getRecord().getEventId())
+						.addParameter("time" + i, Timestamp.from(pendingLoot.getTime()));
+				}
+				insertKills.executeUpdate();
+
+				// a multi-row insert generates one key per row, in order
+				List<Integer> killIds = con.getKeys(Integer.class);
+				for (int i = 0; i < chunk.size(); ++i)
+				{
+					for (GameItem drop : chunk.get(i).getRecord().getDrops())
+					{
+						drops.add(new Object[]{killIds.get(i), drop.getId(), drop.getQty()});
+					}
+				}
+			}
 
-			// Append all queries for inserting drops
-			for (GameItem drop : record.getDrops())
+			for (List<Object[]> chunk : Lists.partition(drops, ROWS_PER_INSERT))
 			{
-				insertDrop
-					.addParameter("itemId", drop.getId())
-					.addParameter("itemQuantity", drop.getQty())
-					.addToBatch();
+				Query insertDrops = con.createQuery(valuesQuery(INSERT_DROPS_QUERY, DROP_COLUMNS, chunk.size()));
+				for (int i = 0; i < chunk.size(); ++i)
+				{
+					Object[] drop = chunk.get(i);
+					for (int j = 0; j < DROP_COLUMNS.length; ++j)
+					{
+						insertDrops.addParameter(DROP_COLUMNS[j] + i, drop[j]);
+					}
+				}
+				insertDrops.executeUpdate();
 			}
 
-			insertDrop.executeBatch();
-			con.commit(false);
+			lock.writeLock().lock();
+			try
+			{
+				con.commit(false);
+				for (PendingLoot pendingLoot : batch)
+				{
+					inFlight.remove(pendingLoot);
+				}
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
 		}
 	}
 
+	/**
+	 * Build a multi-row insert. The parameters of each row are named after
+	 * the column followed by the row number.
+	 */
+	private static String valuesQuery(String insert, String[] columns, int rows)
+	{
+		StringBuilder sb = new StringBuilder(insert);
+		for (int i = 0; i < rows; ++i)
+		{
+			sb.append(i == 0 ? "(" : ", (");
+			for (int j = 0; j < columns.length; ++j)
+			{
+				if (j > 0)
+				{
+					sb.append(", ");
+				}
+				sb.append(':').append(columns[j]).append(i);
+			}
+			sb.append(')');
+		}
+		return sb.toString();
+	}
+
+	public LootTrackerStats getStats()
+	{
+		return new LootTrackerStats(pending.size(), MAX_PENDING, flushes.get(), flushed.get(),
+			rejected.get(), failed.get(), retries.get(), lastFlushMillis, maxFlushMillis);
+	}
+
+	/**
+	 * Get the rows of the queued and in flight records of an account, newest
+	 * first. Each record is given a negative kill id.
+	 */
+	private List<LootResult> getPendingResults(int accountId)
+	{
+		List<LootResult> results = new ArrayList<>();
+		int killId = 0;
+
+		// in flight records are older than any still queued
+		for (PendingLoot pendingLoot : Iterables.concat(inFlight, pending))
+		{
+			--killId;
+
+			if (pendingLoot.getAccountId() != accountId)
+			{
+				continue;
+			}
+
+			LootRecord record = pendingLoot.getRecord();
+			List<GameItem> drops = new ArrayList<>(record.getDrops());
+			Collections.reverse(drops);
+			for (GameItem drop : drops)
+			{
+				LootResult lootResult = new LootResult();
+				lootResult.setKillId(killId);
+				lootResult.setTime(pendingLoot.getTime());
+				lootResult.setType(record.getType());
+				lootResult.setEventId(record.getEventId());
+				lootResult.setItemId(drop.getId());
+				lootResult.setItemQuantity(drop.getQty());
+				results.add(lootResult);
+			}
+		}
+
+		Collections.reverse(results);
+		return results;
+	}
+
 	public Collection<LootRecord> get(int accountId, int limit, int offset)
 	{
-		List<LootResult> lootResults;
+		List<LootResult> lootResults = new ArrayList<>();
 
-		try (Connection con = sql2o.open())
+		lock.readLock().lock();
+		try
 		{
-			lootResults = con.createQuery(SELECT_LOOT_QUERY)
-				.addParameter("accountId", accountId)
-				.addParameter("limit", limit)
-				.addParameter("offset", offset)
-				.executeAndFetch(LootResult.class);
+			// queued records are newer than any which have been stored
+			List<LootResult> pendingResults = getPendingResults(accountId);
+			int skip = Math.min(offset, pendingResults.size());
+			lootResults.addAll(pendingResults.subList(skip, skip + Math.min(limit, pendingResults.size() - skip)));
+
+			int remaining = limit - lootResults.size();
+			if (remaining > 0)
+			{
+				try (Connection con = sql2o.open())
+				{
+					lootResults.addAll(con.createQuery(SELECT_LOOT_QUERY)
+						.addParameter("accountId", accountId)
+						.addParameter("limit", remaining)
+						.addParameter("offset", offset - skip)
+						.executeAndFetch(LootResult.class));
+				}
+			}
+		}
+		finally
+		{
+			lock.readLock().unlock();
 		}
 
 		LootResult current = null;
@@ -166,8 +565,16 @@ public class LootTrackerService
 
 	public void delete(int accountId, String eventId)
 	{
+		flushLock.lock();
+		lock.writeLock().lock();
 		try (Connection con = sql2o.open())
 		{
+			Predicate<PendingLoot> deleted = pendingLoot -> pendingLoot.getAccountId() == accountId
+				&& (eventId == null || eventId.equals(pendingLoot.getRecord().getEventId()));
+			pending.removeIf(deleted);
+			// records kept from a failed flush
+			inFlight.removeIf(deleted);
+
 			if (eventId == null)
 			{
 				con.createQuery(DELETE_LOOT_ACCOUNT)
@@ -182,6 +589,11 @@ public class LootTrackerService
 					.executeUpdate();
 			}
 		}
+		finally
+		{
+			lock.writeLock().unlock();
+			flushLock.unlock();
+		}
 	}
 
 	@Scheduled(fixedDelay = 15 * 60 * 1000)
@@ -25,19 +25,20 @@
 package net.runelite.http.service.sprite;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import javax.imageio.ImageIO;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.SpriteDefinition;
 import net.runelite.cache.definitions.loaders.SpriteLoader;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.http.service.cache.CacheService;
+import net.runelite.http.service.cache.CachedImage;
+import net.runelite.http.service.cache.ImageCache;
 import net.runelite.http.service.cache.beans.ArchiveEntry;
 import net.runelite.http.service.cache.beans.CacheEntry;
 import net.runelite.http.service.cache.beans.IndexEntry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -46,6 +47,14 @@ public class SpriteService
 	@Autowired
 	private CacheService cacheService;
 
+	private final ImageCache<SpriteImageKey> spriteImages;
+
+	@Autowired
+	public SpriteService(@Value("${cache.spriteimages.size:16777216}") long spriteImagesSize)
+	{
+		this.spriteImages = new ImageCache<>(spriteImagesSize);
+	}
+
 	public SpriteDefinition getSprite(int spriteId, int frameId) throws IOException
 	{
 		CacheEntry cache = cacheService.findMostRecent();
@@ -54,6 +63,11 @@ public class SpriteService
 			return null;
 		}
 
+		return getSprite(cache, spriteId, frameId);
+	}
+
+	private SpriteDefinition getSprite(CacheEntry cache, int spriteId, int frameId) throws IOException
+	{
 		IndexEntry index = cacheService.findIndexForCache(cache, IndexType.SPRITES.getNumber());
 		if (index == null)
 		{
@@ -66,7 +80,7 @@ public class SpriteService
 			return null;
 		}
 
-		ArchiveFiles files = cacheService.getArchiveFiles(archive);
+		ArchiveFiles files = cacheService.getArchiveFiles(IndexType.SPRITES.getNumber(), archive);
 		if (files == null)
 		{
 			return null;
@@ -95,17 +109,28 @@ public class SpriteService
 		return bufferedImage;
 	}
 
-	public byte[] getImagePng(int spriteId, int frameId) throws IOException
+	/**
+	 * Get a sprite of the most recent cache encoded as PNG. Images are
+	 * cached per cache, so they are only rendered once.
+	 *
+	 * @param spriteId
+	 * @param frameId
+	 * @return the image, or null if there is no such sprite
+	 * @throws IOException
+	 */
+	public CachedImage getImagePng(int spriteId, int frameId) throws IOException
 	{
-		BufferedImage image = getImage(spriteId, frameId);
-		if (image == null)
+		CacheEntry cache = cacheService.findMostRecent();
+		if (cache == null)
 		{
 			return null;
 		}
 
-		ByteArrayOutputStream bao = new ByteArrayOutputStream();
-		ImageIO.write(image, "png", bao);
-		return bao.toByteArray();
+		return spriteImages.get(new SpriteImageKey(cache.getId(), spriteId, frameId), () ->
+		{
+			SpriteDefinition sprite = getSprite(cache, spriteId, frameId);
+			return sprite == null ? null : getSpriteImage(sprite);
+		});
 	}
 
 	private BufferedImage getSpriteImage(SpriteDefinition sprite)
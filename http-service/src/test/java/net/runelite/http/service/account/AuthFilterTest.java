@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.account;
+
+import java.io.IOException;
+import java.util.UUID;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.service.account.beans.SessionEntry;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+
+public class AuthFilterTest
+{
+	private static final String SESSION_QUERY = "select user, uuid, created from sessions where uuid = :uuid";
+
+	private final UUID uuid = UUID.randomUUID();
+
+	private Sql2o sql2o;
+	private Connection con;
+	private Query query;
+	private SessionEntry sessionEntry;
+	private AuthFilter authFilter;
+
+	@Before
+	public void before()
+	{
+		sql2o = mock(Sql2o.class);
+		con = mock(Connection.class, RETURNS_DEEP_STUBS);
+		when(sql2o.open()).thenReturn(con);
+		when(sql2o.beginTransaction()).thenReturn(con);
+
+		query = mock(Query.class);
+		when(con.createQuery(SESSION_QUERY)).thenReturn(query);
+		when(query.addParameter(anyString(), anyString())).thenReturn(query);
+
+		sessionEntry = new SessionEntry();
+		sessionEntry.setUuid(uuid);
+		when(query.executeAndFetchFirst(SessionEntry.class)).thenReturn(sessionEntry);
+
+		authFilter = new AuthFilter(sql2o);
+	}
+
+	@Test
+	public void testSessionCached() throws IOException
+	{
+		assertSame(sessionEntry, authFilter.handle(request(), mock(HttpServletResponse.class)));
+		assertSame(sessionEntry, authFilter.handle(request(), mock(HttpServletResponse.class)));
+
+		verify(con, times(1)).createQuery(SESSION_QUERY);
+	}
+
+	@Test
+	public void testRemovedSession() throws IOException
+	{
+		assertSame(sessionEntry, authFilter.handle(request(), mock(HttpServletResponse.class)));
+
+		authFilter.removeSession(uuid);
+		when(query.executeAndFetchFirst(SessionEntry.class)).thenReturn(null);
+
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		assertNull(authFilter.handle(request(), response));
+		verify(response).sendError(eq(401), anyString());
+		verify(con, times(2)).createQuery(SESSION_QUERY);
+	}
+
+	@Test
+	public void testLogoutDuringLookup() throws IOException
+	{
+		// the session is deleted after the lookup read it, but before the
+		// lookup cached it
+		when(query.executeAndFetchFirst(SessionEntry.class)).thenAnswer(invocation ->
+		{
+			authFilter.removeSession(uuid);
+			return sessionEntry;
+		});
+
+		assertNull(authFilter.handle(request(), mock(HttpServletResponse.class)));
+
+		when(query.executeAndFetchFirst(SessionEntry.class)).thenReturn(null);
+		assertNull(authFilter.handle(request(), mock(HttpServletResponse.class)));
+		verify(con, times(2)).createQuery(SESSION_QUERY);
+	}
+
+	@Test
+	public void testFlushOnShutdown() throws IOException
+	{
+		authFilter.shutdown();
+		verify(sql2o, never()).beginTransaction();
+
+		authFilter.handle(request(), mock(HttpServletResponse.class));
+		authFilter.shutdown();
+		verify(sql2o).beginTransaction();
+		verify(con).createQuery("update sessions set last_used = :last_used where uuid = :uuid");
+
+		// nothing is pending after the flush
+		authFilter.shutdown();
+		verify(sql2o).beginTransaction();
+	}
+
+	private HttpServletRequest request()
+	{
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getHeader(RuneLiteAPI.RUNELITE_AUTH)).thenReturn(uuid.toString());
+		return request;
+	}
+}
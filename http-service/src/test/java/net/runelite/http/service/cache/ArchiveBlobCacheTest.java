@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveBlobCacheTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File storeDir;
+	private File diskDir;
+	private final AtomicInteger reads = new AtomicInteger();
+	private ArchiveStore store;
+
+	@Before
+	public void before() throws IOException
+	{
+		storeDir = folder.newFolder();
+		diskDir = folder.newFolder();
+
+		FileArchiveStore fileStore = new FileArchiveStore(storeDir);
+		store = path ->
+		{
+			reads.incrementAndGet();
+			return fileStore.getObject(path);
+		};
+	}
+
+	private byte[] put(byte[] data) throws IOException
+	{
+		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+		File file = new File(storeDir, ArchiveBlobCache.getPath(hash));
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), data);
+		return hash;
+	}
+
+	@Test
+	public void testMemory() throws IOException
+	{
+		byte[] data = {1, 2, 3, 4};
+		byte[] hash = put(data);
+
+		ArchiveBlobCache cache = new ArchiveBlobCache(store, 1024, null);
+		byte[] first = cache.get(hash);
+		assertArrayEquals(data, first);
+		assertSame(first, cache.get(hash));
+		assertEquals(1, reads.get());
+	}
+
+	@Test
+	public void testDisk() throws IOException
+	{
+		byte[] data = {5, 6, 7};
+		byte[] hash = put(data);
+
+		ArchiveBlobCache cache = new ArchiveBlobCache(store, 1024, diskDir);
+		assertArrayEquals(data, cache.get(hash));
+
+		File file = new File(diskDir, ArchiveBlobCache.getPath(hash));
+		assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+
+		// a fresh cache is served from disk
+		cache = new ArchiveBlobCache(store, 1024, diskDir);
+		assertArrayEquals(data, cache.get(hash));
+		assertEquals(1, reads.get());
+
+		// a corrupt disk copy is replaced from the store
+		Files.write(file.toPath(), new byte[]{9});
+		cache.invalidateAll();
+		assertArrayEquals(data, cache.get(hash));
+		assertEquals(2, reads.get());
+		assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+	}
+
+	@Test(expected = IOException.class)
+	public void testMissing() throws IOException
+	{
+		ArchiveBlobCache cache = new ArchiveBlobCache(store, 1024, diskDir);
+		cache.get(Hashing.sha256().hashBytes(new byte[]{42}).asBytes());
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ImageCacheTest
+{
+	@Test
+	public void testGet() throws IOException
+	{
+		AtomicInteger renders = new AtomicInteger();
+		ImageCache<Integer> cache = new ImageCache<>(1 << 20);
+
+		CachedImage image = cache.get(1, () ->
+		{
+			renders.incrementAndGet();
+			return new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+		});
+		assertTrue(image.getData().length > 0);
+		assertTrue(image.getEtag().startsWith("\""));
+
+		assertSame(image, cache.get(1, () ->
+		{
+			renders.incrementAndGet();
+			return null;
+		}));
+		assertEquals(1, renders.get());
+
+		CachedImage other = cache.get(2, () -> new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB));
+		assertNotEquals(image.getEtag(), other.getEtag());
+	}
+
+	@Test
+	public void testMissing() throws IOException
+	{
+		AtomicInteger renders = new AtomicInteger();
+		ImageCache<Integer> cache = new ImageCache<>(1 << 20);
+
+		for (int i = 0; i < 2; ++i)
+		{
+			assertNull(cache.get(1, () ->
+			{
+				renders.incrementAndGet();
+				return null;
+			}));
+		}
+		assertEquals(1, renders.get());
+	}
+
+	@Test
+	public void testMissingEvicted() throws IOException
+	{
+		ImageCache<Integer> cache = new ImageCache<>(16 * 1024);
+
+		for (int i = 0; i < 1000; ++i)
+		{
+			assertNull(cache.get(i, () -> null));
+		}
+		assertTrue(cache.size() <= 16);
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.item;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import net.runelite.http.service.cache.CacheService;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+
+public class ItemServiceTest
+{
+	private static final String LATEST_PRICES_QUERY = "select t1.item";
+
+	private Connection con;
+	private ItemService itemService;
+
+	@Before
+	public void before()
+	{
+		Sql2o sql2o = mock(Sql2o.class);
+		con = mock(Connection.class, RETURNS_DEEP_STUBS);
+		when(sql2o.open()).thenReturn(con);
+
+		Query query = mock(Query.class);
+		when(con.createQuery(startsWith(LATEST_PRICES_QUERY))).thenReturn(query);
+		when(query.executeAndFetch(PriceEntry.class)).thenReturn(Arrays.asList(price(1, 100), price(300, 200)));
+
+		itemService = new ItemService(sql2o, mock(CacheService.class));
+	}
+
+	@Test
+	public void testGetPricesBatched()
+	{
+		int[] itemIds = IntStream.rangeClosed(1, 300).toArray();
+
+		List<PriceEntry> prices = itemService.getPrices(itemIds);
+		assertEquals(2, prices.size());
+		assertEquals(1, prices.get(0).getItem());
+		assertEquals(300, prices.get(1).getItem());
+
+		// 300 ids are looked up in two chunks
+		verify(con, times(2)).createQuery(startsWith(LATEST_PRICES_QUERY));
+	}
+
+	@Test
+	public void testGetPricesCached()
+	{
+		itemService.getPrices(300, 1, 2, 1);
+		verify(con, times(1)).createQuery(startsWith(LATEST_PRICES_QUERY));
+
+		// prices and items without a price are both served from the cache
+		List<PriceEntry> prices = itemService.getPrices(2, 300, 1);
+		assertEquals(2, prices.size());
+		assertEquals(300, prices.get(0).getItem());
+		assertEquals(1, prices.get(1).getItem());
+		assertNull(itemService.getPrice(2, null));
+		assertEquals(100, itemService.getPrice(1, null).getPrice());
+
+		verify(con, times(1)).createQuery(startsWith(LATEST_PRICES_QUERY));
+	}
+
+	private static PriceEntry price(int itemId, int price)
+	{
+		PriceEntry priceEntry = new PriceEntry();
+		priceEntry.setItem(itemId);
+		priceEntry.setName("item " + itemId);
+		priceEntry.setPrice(price);
+		priceEntry.setTime(Instant.EPOCH);
+		priceEntry.setFetched_time(Instant.EPOCH);
+		return priceEntry;
+	}
+}
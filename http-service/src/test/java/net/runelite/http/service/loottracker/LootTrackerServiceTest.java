@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.loottracker;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import net.runelite.http.api.loottracker.GameItem;
+import net.runelite.http.api.loottracker.LootRecord;
+import net.runelite.http.api.loottracker.LootRecordType;
+import net.runelite.http.service.util.exception.BadRequestException;
+import net.runelite.http.service.util.exception.ServiceUnavailableException;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
+
+public class LootTrackerServiceTest
+{
+	private static final String INSERT_KILLS_QUERY = "INSERT INTO kills";
+	private static final String INSERT_DROPS_QUERY = "INSERT INTO drops";
+	private static final String SELECT_LOOT_QUERY = "SELECT killId";
+	private static final String DELETE_LOOT_QUERY = "DELETE FROM kills";
+
+	private Connection con;
+	private Query insertKills;
+	private Query selectLoot;
+	private LootTrackerService lootTrackerService;
+
+	@Before
+	public void before()
+	{
+		Sql2o sql2o = mock(Sql2o.class);
+		con = mock(Connection.class, RETURNS_DEEP_STUBS);
+		when(sql2o.open()).thenReturn(con);
+		when(sql2o.beginTransaction()).thenReturn(con);
+
+		insertKills = mockQuery();
+		when(con.createQuery(startsWith(INSERT_KILLS_QUERY), eq(true))).thenReturn(insertKills);
+		// a multi-row insert generates one key per row
+		when(con.getKeys(Integer.class)).thenReturn(IntStream.range(0, 256).boxed().collect(Collectors.toList()));
+
+		Query insertDrops = mockQuery();
+		when(con.createQuery(startsWith(INSERT_DROPS_QUERY))).thenReturn(insertDrops);
+
+		selectLoot = mockQuery();
+		when(con.createQuery(startsWith(SELECT_LOOT_QUERY))).thenReturn(selectLoot);
+
+		Query deleteLoot = mockQuery();
+		when(con.createQuery(startsWith(DELETE_LOOT_QUERY))).thenReturn(deleteLoot);
+
+		lootTrackerService = new LootTrackerService(sql2o);
+	}
+
+	@Test
+	public void testFlushBatched()
+	{
+		for (int i = 0; i < 300; ++i)
+		{
+			lootTrackerService.store(record("event " + i), 1);
+		}
+
+		lootTrackerService.flush();
+
+		// 300 kills are inserted 256 rows at a time, in one transaction
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(con, times(2)).createQuery(sql.capture(), eq(true));
+		assertEquals(256, rows(sql.getAllValues().get(0)));
+		assertEquals(44, rows(sql.getAllValues().get(1)));
+		verify(con, times(2)).createQuery(startsWith(INSERT_DROPS_QUERY));
+		verify(con).commit(false);
+
+		assertEquals(300, lootTrackerService.getStats().getFlushed());
+	}
+
+	@Test
+	public void testGet()
+	{
+		when(selectLoot.executeAndFetch(LootResult.class)).thenReturn(Arrays.asList(result(2, "stored 2"), result(1, "stored 1")));
+
+		// kept in flight by a failed flush
+		when(insertKills.executeUpdate()).thenThrow(new Sql2oException("connection lost", new SQLTransientConnectionException()));
+		lootTrackerService.store(record("in flight"), 1);
+		lootTrackerService.flush();
+
+		lootTrackerService.store(record("queued 1"), 1);
+		lootTrackerService.store(record("queued 2"), 1);
+		lootTrackerService.store(record("other account"), 2);
+
+		// newest first, queued and in flight records before those stored
+		assertEquals(Arrays.asList("queued 2", "queued 1", "in flight", "stored 2", "stored 1"),
+			eventIds(lootTrackerService.get(1, 5, 0)));
+		verify(selectLoot).addParameter("limit", 2);
+		verify(selectLoot).addParameter("offset", 0);
+
+		assertEquals(Arrays.asList("queued 1", "in flight"), eventIds(lootTrackerService.get(1, 2, 1)));
+		verify(con, times(1)).createQuery(startsWith(SELECT_LOOT_QUERY));
+
+		lootTrackerService.get(1, 2, 4);
+		verify(selectLoot).addParameter("offset", 1);
+	}
+
+	@Test
+	public void testRetryFailedFlush()
+	{
+		when(insertKills.executeUpdate())
+			.thenThrow(new Sql2oException("connection lost", new SQLTransientConnectionException()))
+			.thenReturn(con);
+
+		lootTrackerService.store(record("a"), 1);
+		lootTrackerService.store(record("b"), 1);
+		lootTrackerService.flush();
+
+		LootTrackerStats stats = lootTrackerService.getStats();
+		assertEquals(0, stats.getFlushed());
+		assertEquals(0, stats.getFailed());
+		assertEquals(1, stats.getRetries());
+		assertEquals(Arrays.asList("b", "a"), eventIds(lootTrackerService.get(1, 10, 0)));
+
+		lootTrackerService.flush();
+
+		stats = lootTrackerService.getStats();
+		assertEquals(2, stats.getFlushed());
+		assertEquals(0, stats.getFailed());
+		verify(con).commit(false);
+		assertEquals(Collections.emptyList(), eventIds(lootTrackerService.get(1, 10, 0)));
+	}
+
+	@Test
+	public void testDropBadRecord()
+	{
+		Sql2oException constraintViolation = new Sql2oException("constraint violation", new SQLIntegrityConstraintViolationException());
+		// the batch fails, and then the second of the records stored one at a time
+		when(insertKills.executeUpdate())
+			.thenThrow(constraintViolation)
+			.thenReturn(con)
+			.thenThrow(constraintViolation)
+			.thenReturn(con);
+
+		lootTrackerService.store(record("a"), 1);
+		lootTrackerService.store(record("b"), 1);
+		lootTrackerService.store(record("c"), 1);
+		lootTrackerService.flush();
+
+		LootTrackerStats stats = lootTrackerService.getStats();
+		assertEquals(2, stats.getFlushed());
+		assertEquals(1, stats.getFailed());
+		assertEquals(0, stats.getRetries());
+		verify(con, times(2)).commit(false);
+		assertEquals(Collections.emptyList(), eventIds(lootTrackerService.get(1, 10, 0)));
+	}
+
+	@Test
+	public void testDelete()
+	{
+		when(insertKills.executeUpdate())
+			.thenThrow(new Sql2oException("connection lost", new SQLTransientConnectionException()))
+			.thenReturn(con);
+
+		lootTrackerService.store(record("a"), 1);
+		lootTrackerService.flush();
+		lootTrackerService.store(record("b"), 1);
+		lootTrackerService.store(record("a"), 2);
+
+		// removes the record in flight
+		lootTrackerService.delete(1, "a");
+		assertEquals(Collections.singletonList("b"), eventIds(lootTrackerService.get(1, 10, 0)));
+
+		lootTrackerService.delete(1, null);
+		assertEquals(Collections.emptyList(), eventIds(lootTrackerService.get(1, 10, 0)));
+		assertEquals(Collections.singletonList("a"), eventIds(lootTrackerService.get(2, 10, 0)));
+		verify(con, times(2)).createQuery(startsWith(DELETE_LOOT_QUERY));
+
+		lootTrackerService.flush();
+
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(con, times(2)).createQuery(sql.capture(), eq(true));
+		assertEquals(1, rows(sql.getAllValues().get(1)));
+	}
+
+	@Test(expected = ServiceUnavailableException.class)
+	public void testStoreFull()
+	{
+		for (int i = 0; i < LootTrackerService.MAX_PENDING; ++i)
+		{
+			lootTrackerService.store(record("event " + i), 1);
+		}
+
+		lootTrackerService.store(record("rejected"), 1);
+	}
+
+	@Test(expected = BadRequestException.class)
+	public void testStoreInvalid()
+	{
+		lootTrackerService.store(record(null), 1);
+	}
+
+	@Test
+	public void testNoFlushWhenEmpty()
+	{
+		lootTrackerService.flush();
+		verify(con, never()).commit(false);
+	}
+
+	private static Query mockQuery()
+	{
+		// parameters are chained
+		return mock(Query.class, invocation -> invocation.getMethod().getReturnType() == Query.class
+			? invocation.getMock()
+			: RETURNS_DEFAULTS.answer(invocation));
+	}
+
+	private static int rows(String sql)
+	{
+		return sql.split(":accountId", -1).length - 1;
+	}
+
+	private static LootRecord record(String eventId)
+	{
+		return new LootRecord(eventId, LootRecordType.NPC, Collections.singletonList(new GameItem(4151, 1)), Instant.now());
+	}
+
+	private static LootResult result(int killId, String eventId)
+	{
+		LootResult lootResult = new LootResult();
+		lootResult.setKillId(killId);
+		lootResult.setTime(Instant.EPOCH);
+		lootResult.setType(LootRecordType.NPC);
+		lootResult.setEventId(eventId);
+		lootResult.setItemId(4151);
+		lootResult.setItemQuantity(1);
+		return lootResult;
+	}
+
+	private static List<String> eventIds(Collection<LootRecord> records)
+	{
+		return records.stream()
+			.map(LootRecord::getEventId)
+			.collect(Collectors.toList());
+	}
+}
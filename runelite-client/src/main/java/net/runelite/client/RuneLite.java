@@ -313,6 +313,9 @@ public class RuneLite
 				log.warn("Failed to gracefully close plugin", e);
 			}
 		}
+
+		// save changes made while stopping plugins
+		configManager.save();
 	}
 
 	@VisibleForTesting
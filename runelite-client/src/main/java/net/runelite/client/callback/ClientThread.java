@@ -29,25 +29,41 @@ import java.util.Iterator;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.BooleanSupplier;
 import javax.inject.Singleton;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
+import net.runelite.client.profiler.Profiler;
+import net.runelite.client.profiler.ProfilerTimer;
+import net.runelite.client.profiler.TimerType;
 
 @Singleton
 @Slf4j
 public class ClientThread
 {
+	@RequiredArgsConstructor
+	private static class RunnableInvoke implements BooleanSupplier
+	{
+		private final Runnable runnable;
+
+		@Override
+		public boolean getAsBoolean()
+		{
+			runnable.run();
+			return true;
+		}
+	}
+
 	private ConcurrentLinkedQueue<BooleanSupplier> invokes = new ConcurrentLinkedQueue<>();
 
 	@Inject
 	private Client client;
 
+	@Inject
+	private Profiler profiler;
+
 	public void invoke(Runnable r)
 	{
-		invoke(() ->
-		{
-			r.run();
-			return true;
-		});
+		invoke(new RunnableInvoke(r));
 	}
 
 	/**
@@ -74,11 +90,7 @@ public class ClientThread
 	 */
 	public void invokeLater(Runnable r)
 	{
-		invokeLater(() ->
-		{
-			r.run();
-			return true;
-		});
+		invokeLater(new RunnableInvoke(r));
 	}
 
 	public void invokeLater(BooleanSupplier r)
@@ -89,6 +101,7 @@ public class ClientThread
 	void invoke()
 	{
 		assert client.isClientThread();
+		final boolean profile = profiler.isEnabled();
 		Iterator<BooleanSupplier> ir = invokes.iterator();
 		for (; ir.hasNext(); )
 		{
@@ -96,7 +109,7 @@ public class ClientThread
 			boolean remove = true;
 			try
 			{
-				remove = r.getAsBoolean();
+				remove = profile ? invokeProfiled(r) : r.getAsBoolean();
 			}
 			catch (ThreadDeath d)
 			{
@@ -112,4 +125,20 @@ public class ClientThread
 			}
 		}
 	}
+
+	private boolean invokeProfiled(BooleanSupplier r)
+	{
+		// attribute wrapped runnables to their own class rather than the wrapper
+		final Object task = r instanceof RunnableInvoke ? ((RunnableInvoke) r).runnable : r;
+		final ProfilerTimer timer = profiler.getTimer(TimerType.INVOKE, task.getClass(), task.getClass(), Profiler::getClassName);
+		final long start = profiler.start();
+		try
+		{
+			return r.getAsBoolean();
+		}
+		finally
+		{
+			profiler.stop(timer, start);
+		}
+	}
 }
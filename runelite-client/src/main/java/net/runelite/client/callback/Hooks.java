@@ -58,6 +58,7 @@ import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.input.KeyManager;
 import net.runelite.client.input.MouseManager;
+import net.runelite.client.profiler.Profiler;
 import net.runelite.client.task.Scheduler;
 import net.runelite.client.ui.ClientUI;
 import net.runelite.client.ui.DrawManager;
@@ -117,6 +118,9 @@ public class Hooks implements Callbacks
 	@Inject
 	private ClientUI clientUi;
 
+	@Inject
+	private Profiler profiler;
+
 	private Dimension lastStretchedDimensions;
 	private VolatileImage stretchedImage;
 	private Graphics2D stretchedGraphics;
@@ -139,6 +143,8 @@ public class Hooks implements Callbacks
 	@Override
 	public void clientMainLoop()
 	{
+		profiler.frame();
+
 		if (shouldProcessGameTick)
 		{
 			shouldProcessGameTick = false;
@@ -24,74 +24,97 @@
  */
 package net.runelite.client.config;
 
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Handles the proxies of one configuration interface. The group and item of
+ * each method are resolved once, and the value returned by each getter is
+ * cached until the configuration next changes.
+ */
 @Slf4j
 class ConfigInvocationHandler implements InvocationHandler
 {
+	@RequiredArgsConstructor
+	private static class Accessor
+	{
+		private final ConfigItem item;
+		private volatile CachedValue cached;
+	}
+
+	@Value
+	private static class CachedValue
+	{
+		private final Object value;
+		/**
+		 * {@link ConfigManager#getGeneration()} when the value was read
+		 */
+		private final long generation;
+	}
+
 	private final ConfigManager manager;
+	private final ConfigGroup group;
+	private final Map<Method, Accessor> accessors = new HashMap<>();
 
-	public ConfigInvocationHandler(ConfigManager manager)
+	ConfigInvocationHandler(ConfigManager manager, Class<?> iface)
 	{
 		this.manager = manager;
+		this.group = iface.getAnnotation(ConfigGroup.class);
+
+		for (Method method : iface.getMethods())
+		{
+			final ConfigItem item = method.getAnnotation(ConfigItem.class);
+			if (item != null)
+			{
+				accessors.put(method, new Accessor(item));
+			}
+		}
 	}
 
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
 	{
-		Class<?> iface = proxy.getClass().getInterfaces()[0];
-
-		ConfigGroup group = iface.getAnnotation(ConfigGroup.class);
-		ConfigItem item = method.getAnnotation(ConfigItem.class);
-
 		if (group == null)
 		{
 			log.warn("Configuration proxy class {} has no @ConfigGroup!", proxy.getClass());
 			return null;
 		}
 
-		if (item == null)
+		final Accessor accessor = accessors.get(method);
+
+		if (accessor == null)
 		{
 			log.warn("Configuration method {} has no @ConfigItem!", method);
 			return null;
 		}
 
+		final ConfigItem item = accessor.item;
+
 		if (args == null)
 		{
 			// Getting configuration item
-			String value = manager.getConfiguration(group.value(), item.keyName());
+			final long generation = manager.getGeneration();
+			final CachedValue cached = accessor.cached;
 
-			if (value == null)
+			if (cached != null && cached.generation == generation)
 			{
-				if (method.isDefault())
-				{
-					return callDefaultMethod(proxy, method, null);
-				}
-
-				return null;
+				return copyOf(cached.value);
 			}
 
-			// Convert value to return type
-			Class<?> returnType = method.getReturnType();
-			
-			try
-			{
-				return ConfigManager.stringToObject(value, returnType);
-			}
-			catch (Exception e)
-			{
-				log.warn("Unable to unmarshal {}.{} ", group.value(), item.keyName(), e);
-				if (method.isDefault())
-				{
-					return callDefaultMethod(proxy, method, null);
-				}
-				return null;
-			}
+			final Object value = getValue(proxy, method, item);
+			accessor.cached = new CachedValue(value, generation);
+			return copyOf(value);
 		}
 		else
 		{
@@ -138,6 +161,58 @@ class ConfigInvocationHandler implements InvocationHandler
 		}
 	}
 
+	private Object getValue(Object proxy, Method method, ConfigItem item) throws Throwable
+	{
+		String value = manager.getConfiguration(group.value(), item.keyName());
+
+		if (value == null)
+		{
+			if (method.isDefault())
+			{
+				return callDefaultMethod(proxy, method, null);
+			}
+
+			return null;
+		}
+
+		// Convert value to return type
+		Class<?> returnType = method.getReturnType();
+
+		try
+		{
+			return ConfigManager.stringToObject(value, returnType);
+		}
+		catch (Exception e)
+		{
+			log.warn("Unable to unmarshal {}.{} ", group.value(), item.keyName(), e);
+			if (method.isDefault())
+			{
+				return callDefaultMethod(proxy, method, null);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Copy mutable values, so that callers can not modify the cached value
+	 */
+	private static Object copyOf(Object value)
+	{
+		if (value instanceof Dimension)
+		{
+			return new Dimension((Dimension) value);
+		}
+		if (value instanceof Point)
+		{
+			return new Point((Point) value);
+		}
+		if (value instanceof Rectangle)
+		{
+			return new Rectangle((Rectangle) value);
+		}
+		return value;
+	}
+
 	static Object callDefaultMethod(Object proxy, Method method, Object[] args) throws Throwable
 	{
 		// Call the default method implementation - https://rmannibucau.wordpress.com/2014/03/27/java-8-default-interface-methods-and-jdk-dynamic-proxies/
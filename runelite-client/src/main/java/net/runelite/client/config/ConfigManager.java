@@ -32,17 +32,10 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
-import java.nio.channels.FileLock;
-import java.nio.charset.Charset;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -50,8 +43,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -78,19 +73,25 @@ public class ConfigManager
 
 	private AccountSession session;
 	private ConfigClient client;
-	private File propertiesFile;
 
-	private final ConfigInvocationHandler handler = new ConfigInvocationHandler(this);
+	private final Map<Class<?>, ConfigInvocationHandler> handlers = new ConcurrentHashMap<>();
 	private final Properties properties = new Properties();
+	private final ConfigPersister persister;
+	/**
+	 * incremented whenever the configuration changes, to invalidate the values cached by the config proxies
+	 */
+	private final AtomicLong generation = new AtomicLong();
 	private final Map<String, String> pendingChanges = new HashMap<>();
 
 	@Inject
 	public ConfigManager(ScheduledExecutorService scheduledExecutorService)
 	{
 		this.executor = scheduledExecutorService;
-		this.propertiesFile = getPropertiesFile();
+		this.persister = new ConfigPersister(executor, properties);
+		persister.setFile(getPropertiesFile());
 
 		executor.scheduleWithFixedDelay(this::sendConfig, 30, 30, TimeUnit.SECONDS);
+		executor.scheduleWithFixedDelay(persister::compactJournal, 5, 5, TimeUnit.MINUTES);
 	}
 
 	public final void switchSession(AccountSession session)
@@ -106,7 +107,7 @@ public class ConfigManager
 			this.client = new ConfigClient(session.getUuid());
 		}
 
-		this.propertiesFile = getPropertiesFile();
+		persister.setFile(getPropertiesFile());
 
 		load(); // load profile specific config
 	}
@@ -154,6 +155,7 @@ public class ConfigManager
 		}
 
 		properties.clear();
+		generation.incrementAndGet();
 
 		for (ConfigEntry entry : configuration.getConfig())
 		{
@@ -163,6 +165,7 @@ public class ConfigManager
 			final String key = split[1];
 			final String value = entry.getValue();
 			final String oldValue = (String) properties.setProperty(entry.getKey(), value);
+			generation.incrementAndGet();
 
 			ConfigChanged configChanged = new ConfigChanged();
 			configChanged.setGroup(groupName);
@@ -174,7 +177,7 @@ public class ConfigManager
 
 		try
 		{
-			saveToFile();
+			persister.compact();
 
 			log.debug("Updated configuration on disk with the latest version");
 		}
@@ -186,20 +189,9 @@ public class ConfigManager
 
 	private synchronized void loadFromFile()
 	{
-		properties.clear();
+		persister.load();
 
-		try (FileInputStream in = new FileInputStream(propertiesFile))
-		{
-			properties.load(new InputStreamReader(in, Charset.forName("UTF-8")));
-		}
-		catch (FileNotFoundException ex)
-		{
-			log.debug("Unable to load settings - no such file");
-		}
-		catch (IllegalArgumentException | IOException ex)
-		{
-			log.warn("Unable to load settings", ex);
-		}
+		generation.incrementAndGet();
 
 		try
 		{
@@ -231,25 +223,29 @@ public class ConfigManager
 		}
 	}
 
-	private synchronized void saveToFile() throws IOException
+	/**
+	 * Write configuration changes which have not been saved yet to disk
+	 */
+	public void save()
 	{
-		propertiesFile.getParentFile().mkdirs();
-
-		try (FileOutputStream out = new FileOutputStream(propertiesFile))
+		try
 		{
-			final FileLock lock = out.getChannel().lock();
-
-			try
-			{
-				properties.store(new OutputStreamWriter(out, Charset.forName("UTF-8")), "RuneLite configuration");
-			}
-			finally
-			{
-				lock.release();
-			}
+			persister.save();
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to save configuration file", ex);
 		}
 	}
 
+	/**
+	 * Get the current generation of the configuration, which changes whenever a value changes
+	 */
+	long getGeneration()
+	{
+		return generation.get();
+	}
+
 	public <T> T getConfig(Class<T> clazz)
 	{
 		if (!Modifier.isPublic(clazz.getModifiers()))
@@ -257,6 +253,8 @@ public class ConfigManager
 			throw new RuntimeException("Non-public configuration classes can't have default methods invoked");
 		}
 
+		final ConfigInvocationHandler handler = handlers.computeIfAbsent(clazz, c -> new ConfigInvocationHandler(this, c));
+
 		T t = (T) Proxy.newProxyInstance(clazz.getClassLoader(), new Class<?>[]
 			{
 				clazz
@@ -303,23 +301,14 @@ public class ConfigManager
 			return;
 		}
 
+		generation.incrementAndGet();
+
 		synchronized (pendingChanges)
 		{
 			pendingChanges.put(groupName + "." + key, value);
 		}
 
-		Runnable task = () ->
-		{
-			try
-			{
-				saveToFile();
-			}
-			catch (IOException ex)
-			{
-				log.warn("unable to save configuration file", ex);
-			}
-		};
-		executor.execute(task);
+		persister.changed(groupName + "." + key);
 
 		ConfigChanged configChanged = new ConfigChanged();
 		configChanged.setGroup(groupName);
@@ -346,23 +335,14 @@ public class ConfigManager
 			return;
 		}
 
+		generation.incrementAndGet();
+
 		synchronized (pendingChanges)
 		{
 			pendingChanges.put(groupName + "." + key, null);
 		}
 
-		Runnable task = () ->
-		{
-			try
-			{
-				saveToFile();
-			}
-			catch (IOException ex)
-			{
-				log.warn("unable to save configuration file", ex);
-			}
-		};
-		executor.execute(task);
+		persister.changed(groupName + "." + key);
 
 		ConfigChanged configChanged = new ConfigChanged();
 		configChanged.setGroup(groupName);
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Saves configuration properties to disk. Changed keys are collected for a
+ * short time and then appended to a journal next to the settings file, which
+ * is folded back into the settings file when it grows, periodically, and on
+ * load. The settings file is always replaced atomically, so a crash leaves
+ * either the old or the new file, and a partially written journal record is
+ * ignored.
+ */
+@Slf4j
+class ConfigPersister
+{
+	private static final long SAVE_DELAY = 500; // ms
+	private static final int COMPACT_THRESHOLD = 1000; // journal records
+	private static final String JOURNAL_EXTENSION = ".journal";
+	private static final char SET = 'S';
+	private static final char UNSET = 'U';
+
+	private final ScheduledExecutorService executor;
+	private final Properties properties;
+
+	// the following are guarded by this
+	private final Set<String> changedKeys = new LinkedHashSet<>();
+	private File file;
+	private int journalRecords;
+	private boolean saveScheduled;
+
+	ConfigPersister(ScheduledExecutorService executor, Properties properties)
+	{
+		this.executor = executor;
+		this.properties = properties;
+	}
+
+	/**
+	 * Set the settings file, saving any unsaved changes to the previous file first
+	 */
+	synchronized void setFile(File file)
+	{
+		if (this.file != null && !this.file.equals(file))
+		{
+			saveQuietly();
+		}
+
+		this.file = file;
+		journalRecords = 0;
+	}
+
+	/**
+	 * Replace the properties with the contents of the settings file and journal
+	 */
+	synchronized void load()
+	{
+		properties.clear();
+		changedKeys.clear();
+
+		try (FileInputStream in = new FileInputStream(file))
+		{
+			properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+		}
+		catch (FileNotFoundException ex)
+		{
+			log.debug("Unable to load settings - no such file");
+		}
+		catch (IllegalArgumentException | IOException ex)
+		{
+			log.warn("Unable to load settings", ex);
+		}
+
+		final File journal = getJournal();
+		if (!journal.exists())
+		{
+			journalRecords = 0;
+			return;
+		}
+
+		try
+		{
+			final int records = replay(new String(Files.readAllBytes(journal.toPath()), StandardCharsets.UTF_8));
+			log.debug("Replayed {} configuration changes from journal", records);
+			compact();
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to load configuration journal", ex);
+			// the journal may end in a partial record, so do not append to it
+			journalRecords = COMPACT_THRESHOLD;
+		}
+	}
+
+	/**
+	 * Record that a key was set or unset. The change is saved shortly after.
+	 */
+	synchronized void changed(String key)
+	{
+		changedKeys.add(key);
+
+		if (!saveScheduled)
+		{
+			saveScheduled = true;
+			executor.schedule(this::saveQuietly, SAVE_DELAY, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Save the changed keys now
+	 */
+	synchronized void save() throws IOException
+	{
+		saveScheduled = false;
+
+		if (changedKeys.isEmpty())
+		{
+			return;
+		}
+
+		if (journalRecords + changedKeys.size() > COMPACT_THRESHOLD)
+		{
+			compact();
+			return;
+		}
+
+		final StringBuilder sb = new StringBuilder();
+		for (String key : changedKeys)
+		{
+			final String value = properties.getProperty(key);
+			if (value == null)
+			{
+				sb.append(UNSET).append('\t').append(escape(key)).append('\n');
+			}
+			else
+			{
+				sb.append(SET).append('\t').append(escape(key)).append('\t').append(escape(value)).append('\n');
+			}
+		}
+
+		file.getParentFile().mkdirs();
+
+		try (FileOutputStream out = new FileOutputStream(getJournal(), true))
+		{
+			out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+			out.getFD().sync();
+		}
+		catch (IOException ex)
+		{
+			// the journal may end in a partial record, so rewrite the settings file next time
+			journalRecords = COMPACT_THRESHOLD;
+			throw ex;
+		}
+
+		journalRecords += changedKeys.size();
+		changedKeys.clear();
+	}
+
+	private void saveQuietly()
+	{
+		try
+		{
+			save();
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to save configuration file", ex);
+		}
+	}
+
+	/**
+	 * Write all properties to the settings file, and remove the journal
+	 */
+	synchronized void compact() throws IOException
+	{
+		final Properties copy = new Properties();
+		synchronized (properties)
+		{
+			copy.putAll(properties);
+		}
+
+		file.getParentFile().mkdirs();
+
+		final Path target = file.toPath();
+		final Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+		try
+		{
+			try (FileOutputStream out = new FileOutputStream(temp.toFile()))
+			{
+				final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+				copy.store(writer, "RuneLite configuration");
+				writer.flush();
+				out.getFD().sync();
+			}
+
+			try
+			{
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(temp);
+		}
+
+		// the journal only holds changes which are now in the settings file
+		Files.deleteIfExists(getJournal().toPath());
+		journalRecords = 0;
+		changedKeys.clear();
+		saveScheduled = false;
+	}
+
+	/**
+	 * Compact the journal if there is one, for running periodically
+	 */
+	synchronized void compactJournal()
+	{
+		if (journalRecords == 0 && changedKeys.isEmpty())
+		{
+			return;
+		}
+
+		try
+		{
+			compact();
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to save configuration file", ex);
+		}
+	}
+
+	private File getJournal()
+	{
+		return new File(file.getParentFile(), file.getName() + JOURNAL_EXTENSION);
+	}
+
+	/**
+	 * Apply journal records to the properties
+	 *
+	 * @return the number of records applied
+	 */
+	private int replay(String journal)
+	{
+		int records = 0;
+		int start = 0;
+		int end;
+		// a record without a newline was not completely written, and is ignored
+		while ((end = journal.indexOf('\n', start)) != -1)
+		{
+			final String[] fields = journal.substring(start, end).split("\t", -1);
+			start = end + 1;
+
+			if (fields.length == 3 && fields[0].equals(String.valueOf(SET)))
+			{
+				properties.setProperty(unescape(fields[1]), unescape(fields[2]));
+			}
+			else if (fields.length == 2 && fields[0].equals(String.valueOf(UNSET)))
+			{
+				properties.remove(unescape(fields[1]));
+			}
+			else
+			{
+				log.debug("Skipping malformed configuration journal record");
+				continue;
+			}
+
+			++records;
+		}
+		return records;
+	}
+
+	static String escape(String str)
+	{
+		final StringBuilder sb = new StringBuilder(str.length());
+		for (int i = 0; i < str.length(); ++i)
+		{
+			final char c = str.charAt(i);
+			switch (c)
+			{
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				default:
+					sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	static String unescape(String str)
+	{
+		final StringBuilder sb = new StringBuilder(str.length());
+		for (int i = 0; i < str.length(); ++i)
+		{
+			char c = str.charAt(i);
+			if (c == '\\' && i + 1 < str.length())
+			{
+				c = str.charAt(++i);
+				switch (c)
+				{
+					case 't':
+						c = '\t';
+						break;
+					case 'n':
+						c = '\n';
+						break;
+					case 'r':
+						c = '\r';
+						break;
+				}
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+}
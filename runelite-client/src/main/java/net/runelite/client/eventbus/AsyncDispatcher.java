@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers events to the asynchronous subscribers of one registered object.
+ * Events are run one at a time on a thread of the dispatcher's own, in the
+ * order they were dispatched, and at most {@link #QUEUE_SIZE} may be waiting.
+ */
+@Slf4j
+class AsyncDispatcher
+{
+	static final int QUEUE_SIZE = 1024;
+	private static final long BLOCK_TIMEOUT = 1000; // ms
+	private static final long DRAIN_TIMEOUT = 1000; // ms
+	private static final int DROP_LOG_INTERVAL = 1000;
+
+	private final String name;
+	private final ExecutorService executor;
+	private final Semaphore permits;
+	private final AtomicLong dropped = new AtomicLong();
+	private volatile Thread thread;
+
+	AsyncDispatcher(String name, int queueSize)
+	{
+		this.name = name;
+		this.permits = new Semaphore(queueSize);
+
+		final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+			.setNameFormat("event-" + name)
+			.setDaemon(true)
+			.build();
+		this.executor = Executors.newSingleThreadExecutor(r -> thread = threadFactory.newThread(r));
+	}
+
+	/**
+	 * Queue a task
+	 *
+	 * @return false if the task was dropped
+	 */
+	boolean dispatch(Runnable task, OverflowPolicy policy)
+	{
+		if (!permits.tryAcquire() && (policy == OverflowPolicy.DROP || !acquire()))
+		{
+			drop();
+			return false;
+		}
+
+		try
+		{
+			executor.execute(() ->
+			{
+				try
+				{
+					task.run();
+				}
+				finally
+				{
+					permits.release();
+				}
+			});
+			return true;
+		}
+		catch (RejectedExecutionException e)
+		{
+			// the dispatcher has been shut down
+			permits.release();
+			return false;
+		}
+	}
+
+	private boolean acquire()
+	{
+		try
+		{
+			return permits.tryAcquire(BLOCK_TIMEOUT, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void drop()
+	{
+		final long count = dropped.incrementAndGet();
+		if (count % DROP_LOG_INTERVAL == 1)
+		{
+			log.warn("Event queue of {} is full, {} events have been dropped", name, count);
+		}
+	}
+
+	long getDropped()
+	{
+		return dropped.get();
+	}
+
+	/**
+	 * Stop accepting events, and wait briefly for the queued events to be delivered
+	 */
+	void shutdown()
+	{
+		executor.shutdown();
+
+		if (Thread.currentThread() == thread)
+		{
+			// unregistered from one of its own subscribers
+			return;
+		}
+
+		try
+		{
+			if (!executor.awaitTermination(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS))
+			{
+				log.warn("Timed out delivering queued events to {}", name);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -26,9 +26,6 @@
 package net.runelite.client.eventbus;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableMultimap;
-import com.google.common.collect.Multimap;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
@@ -38,14 +35,38 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 import lombok.EqualsAndHashCode;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.profiler.Profiler;
+import net.runelite.client.profiler.ProfilerTimer;
+import net.runelite.client.profiler.TimerType;
 
+/**
+ * Dispatches events to the {@link Subscribe} methods of registered objects.
+ * <p>
+ * Every event class is given a slot, and each slot holds an array of the
+ * subscribers of that class, sorted by priority. The arrays are replaced
+ * rather than modified on register and unregister, so {@link #post(Object)}
+ * reads them without locking. Subscribers are invoked through generated
+ * lambdas, or bound method handles if a lambda can not be generated.
+ * <p>
+ * Subscribers marked {@link Subscribe#async()} are not invoked by the posting
+ * thread, but queued to an {@link AsyncDispatcher} of the registered object.
+ */
 @Slf4j
 @RequiredArgsConstructor
 @ThreadSafe
@@ -63,23 +84,55 @@ public class EventBus
 		private final Object object;
 		private final Method method;
 		@EqualsAndHashCode.Exclude
-		private final SubscriberMethod lamda;
+		private final float priority;
+		@EqualsAndHashCode.Exclude
+		private final SubscriberMethod lambda;
+		/**
+		 * dispatcher of asynchronous subscribers, null if the subscriber is synchronous
+		 */
+		@EqualsAndHashCode.Exclude
+		private final AsyncDispatcher dispatcher;
+		/**
+		 * overflow policy of asynchronous subscribers, null if the subscriber is synchronous
+		 */
+		@EqualsAndHashCode.Exclude
+		private final OverflowPolicy overflow;
+	}
 
-		void invoke(final Object arg) throws Exception
+	private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+	private static final AtomicInteger nextSlot = new AtomicInteger();
+
+	/**
+	 * slot of each event class, shared by all event buses
+	 */
+	private static final ClassValue<Integer> SLOTS = new ClassValue<Integer>()
+	{
+		@Override
+		protected Integer computeValue(Class<?> type)
 		{
-			if (lamda != null)
-			{
-				lamda.invoke(arg);
-			}
-			else
-			{
-				method.invoke(object, arg);
-			}
+			return nextSlot.getAndIncrement();
 		}
-	}
+	};
 
 	private final Consumer<Throwable> exceptionHandler;
-	private ImmutableMultimap<Class, Subscriber> subscribers = ImmutableMultimap.of();
+
+	/**
+	 * subscribers of each slot. Neither the table nor the subscriber arrays
+	 * are modified once published.
+	 */
+	private volatile Subscriber[][] subscribers = new Subscriber[0][];
+
+	/**
+	 * dispatchers of registered objects with asynchronous subscribers
+	 */
+	private final Map<Object, AsyncDispatcher> dispatchers = new IdentityHashMap<>();
+
+	/**
+	 * profiler to time subscribers with, only set while profiling
+	 */
+	@Setter
+	private volatile Profiler profiler;
 
 	/**
 	 * Instantiates EventBus with default exception handler
@@ -98,12 +151,7 @@ public class EventBus
 	 */
 	public synchronized void register(@Nonnull final Object object)
 	{
-		final ImmutableMultimap.Builder<Class, Subscriber> builder = ImmutableMultimap.builder();
-
-		if (subscribers != null)
-		{
-			builder.putAll(subscribers);
-		}
+		final Map<Class<?>, List<Subscriber>> added = new HashMap<>();
 
 		for (Class<?> clazz = object.getClass(); clazz != null; clazz = clazz.getSuperclass())
 		{
@@ -127,7 +175,7 @@ public class EventBus
 
 				for (Class<?> psc = parameterClazz.getSuperclass(); psc != null; psc = psc.getSuperclass())
 				{
-					if (subscribers.containsKey(psc))
+					if (getSubscribers(psc).length > 0 || added.containsKey(psc))
 					{
 						throw new IllegalArgumentException("@Subscribed method \"" + method + "\" cannot subscribe to class which inherits from subscribed class \"" + psc + "\"");
 					}
@@ -137,52 +185,100 @@ public class EventBus
 				Preconditions.checkArgument(method.getName().equals(preferredName), "Subscribed method " + method + " should be named " + preferredName);
 
 				method.setAccessible(true);
-				SubscriberMethod lambda = null;
 
-				try
+				// the dispatcher is set once every subscriber method has been checked
+				final Subscriber subscriber = new Subscriber(object, method, sub.priority(), createLambda(object, clazz, method),
+					null, sub.async() ? sub.overflow() : null);
+				added.computeIfAbsent(parameterClazz, k -> new ArrayList<>()).add(subscriber);
+				log.debug("Registering {} - {}", parameterClazz, subscriber);
+			}
+		}
+
+		if (added.isEmpty())
+		{
+			return;
+		}
+
+		AsyncDispatcher dispatcher = dispatchers.get(object);
+		for (List<Subscriber> list : added.values())
+		{
+			final ListIterator<Subscriber> it = list.listIterator();
+			while (it.hasNext())
+			{
+				final Subscriber subscriber = it.next();
+				if (subscriber.getOverflow() == null)
 				{
-					final MethodHandles.Lookup caller = privateLookupIn(clazz);
-					final MethodType subscription = MethodType.methodType(void.class, parameterClazz);
-					final MethodHandle target = caller.findVirtual(clazz, method.getName(), subscription);
-					final CallSite site = LambdaMetafactory.metafactory(
-						caller,
-						"invoke",
-						MethodType.methodType(SubscriberMethod.class, clazz),
-						subscription.changeParameterType(0, Object.class),
-						target,
-						subscription);
-
-					final MethodHandle factory = site.getTarget();
-					lambda = (SubscriberMethod) factory.bindTo(object).invokeExact();
+					continue;
 				}
-				catch (Throwable e)
+
+				if (dispatcher == null)
 				{
-					log.warn("Unable to create lambda for method {}", method, e);
+					dispatcher = new AsyncDispatcher(object.getClass().getSimpleName(), AsyncDispatcher.QUEUE_SIZE);
+					dispatchers.put(object, dispatcher);
 				}
 
-				final Subscriber subscriber = new Subscriber(object, method, lambda);
-				builder.put(parameterClazz, subscriber);
-				log.debug("Registering {} - {}", parameterClazz, subscriber);
+				it.set(new Subscriber(object, subscriber.getMethod(), subscriber.getPriority(), subscriber.getLambda(),
+					dispatcher, subscriber.getOverflow()));
+			}
+		}
+
+		int maxSlot = -1;
+		for (Class<?> eventClass : added.keySet())
+		{
+			maxSlot = Math.max(maxSlot, SLOTS.get(eventClass));
+		}
+
+		final Subscriber[][] table = Arrays.copyOf(subscribers, Math.max(subscribers.length, maxSlot + 1));
+		for (Map.Entry<Class<?>, List<Subscriber>> entry : added.entrySet())
+		{
+			final int slot = SLOTS.get(entry.getKey());
+			final Subscriber[] current = table[slot] != null ? table[slot] : NO_SUBSCRIBERS;
+			final Subscriber[] updated = Arrays.copyOf(current, current.length + entry.getValue().size());
+
+			int size = current.length;
+			for (Subscriber subscriber : entry.getValue())
+			{
+				// insert after every subscriber of the same or higher priority
+				int idx = size;
+				while (idx > 0 && updated[idx - 1].getPriority() < subscriber.getPriority())
+				{
+					updated[idx] = updated[idx - 1];
+					--idx;
+				}
+				updated[idx] = subscriber;
+				++size;
 			}
+
+			table[slot] = updated;
 		}
 
-		subscribers = builder.build();
+		subscribers = table;
 	}
 
 	/**
-	 * Unregisters all subscribed methods from provided subscriber object.
+	 * Unregisters all subscribed methods from provided subscriber object. Events already queued for
+	 * asynchronous subscribers of the object are delivered before this returns, unless that takes too long.
 	 *
 	 * @param object object to unsubscribe from
 	 */
-	public synchronized void unregister(@Nonnull final Object object)
+	public void unregister(@Nonnull final Object object)
 	{
-		if (subscribers == null)
+		final AsyncDispatcher dispatcher;
+		synchronized (this)
 		{
-			return;
+			removeSubscribers(object);
+			dispatcher = dispatchers.remove(object);
 		}
 
-		final Multimap<Class, Subscriber> map = HashMultimap.create();
-		map.putAll(subscribers);
+		if (dispatcher != null)
+		{
+			dispatcher.shutdown();
+		}
+	}
+
+	private void removeSubscribers(final Object object)
+	{
+		Subscriber[][] table = null;
 
 		for (Class<?> clazz = object.getClass(); clazz != null; clazz = clazz.getSuperclass())
 		{
@@ -190,40 +286,185 @@ public class EventBus
 			{
 				final Subscribe sub = method.getAnnotation(Subscribe.class);
 
-				if (sub == null)
+				if (sub == null || method.getParameterCount() != 1)
 				{
 					continue;
 				}
 
 				final Class<?> parameterClazz = method.getParameterTypes()[0];
-				map.remove(parameterClazz, new Subscriber(object, method, null));
+				final int slot = SLOTS.get(parameterClazz);
+				final Subscriber[] current = table != null ? getSubscribers(table, slot) : getSubscribers(parameterClazz);
+				final Subscriber removed = new Subscriber(object, method, 0, null, null, null);
+
+				int idx = Arrays.asList(current).indexOf(removed);
+				if (idx == -1)
+				{
+					continue;
+				}
+
+				final Subscriber[] updated = new Subscriber[current.length - 1];
+				System.arraycopy(current, 0, updated, 0, idx);
+				System.arraycopy(current, idx + 1, updated, idx, current.length - idx - 1);
+
+				if (table == null)
+				{
+					table = subscribers.clone();
+				}
+				table[slot] = updated.length > 0 ? updated : null;
 			}
 		}
 
-		subscribers = ImmutableMultimap.copyOf(map);
+		if (table != null)
+		{
+			subscribers = table;
+		}
 	}
 
 	/**
-	 * Posts provided event to all registered subscribers. Subscriber calls are invoked immediately and in order
-	 * in which subscribers were registered.
+	 * Posts provided event to all registered subscribers. Subscribers are invoked immediately, in order of
+	 * priority and then in the order in which they were registered. Asynchronous subscribers are handed the
+	 * event in the same order, and invoked later on the thread of their object.
 	 *
 	 * @param event event to post
 	 */
 	public void post(@Nonnull final Object event)
 	{
-		for (final Subscriber subscriber : subscribers.get(event.getClass()))
+		final int slot = SLOTS.get(event.getClass());
+		final Subscriber[][] table = subscribers;
+		if (slot >= table.length)
+		{
+			return;
+		}
+
+		final Subscriber[] slotSubscribers = table[slot];
+		if (slotSubscribers == null)
+		{
+			return;
+		}
+
+		final Profiler profiler = this.profiler;
+		if (profiler != null)
+		{
+			postProfiled(profiler, slotSubscribers, event);
+			return;
+		}
+
+		for (final Subscriber subscriber : slotSubscribers)
+		{
+			invoke(subscriber, event);
+		}
+	}
+
+	private void postProfiled(final Profiler profiler, final Subscriber[] slotSubscribers, final Object event)
+	{
+		for (final Subscriber subscriber : slotSubscribers)
 		{
+			final ProfilerTimer timer = profiler.getTimer(TimerType.EVENT, subscriber, subscriber.getObject().getClass(),
+				s -> Profiler.getClassName(s.getMethod().getDeclaringClass()) + "." + s.getMethod().getName());
+			final long start = profiler.start();
 			try
 			{
-				subscriber.invoke(event);
+				invoke(subscriber, event);
 			}
-			catch (Exception e)
+			finally
 			{
-				exceptionHandler.accept(e);
+				profiler.stop(timer, start);
 			}
 		}
 	}
 
+	private void invoke(final Subscriber subscriber, final Object event)
+	{
+		if (subscriber.dispatcher != null)
+		{
+			subscriber.dispatcher.dispatch(() -> invokeNow(subscriber, event), subscriber.overflow);
+			return;
+		}
+
+		invokeNow(subscriber, event);
+	}
+
+	private void invokeNow(final Subscriber subscriber, final Object event)
+	{
+		try
+		{
+			subscriber.lambda.invoke(event);
+		}
+		catch (Exception e)
+		{
+			exceptionHandler.accept(e);
+		}
+	}
+
+	private Subscriber[] getSubscribers(Class<?> eventClass)
+	{
+		return getSubscribers(subscribers, SLOTS.get(eventClass));
+	}
+
+	private static Subscriber[] getSubscribers(Subscriber[][] table, int slot)
+	{
+		return slot < table.length && table[slot] != null ? table[slot] : NO_SUBSCRIBERS;
+	}
+
+	/**
+	 * Create an invoker for a subscriber method bound to its object. This is
+	 * a generated lambda where possible, and otherwise a method handle.
+	 */
+	private static SubscriberMethod createLambda(Object object, Class<?> clazz, Method method)
+	{
+		final Class<?> parameterClazz = method.getParameterTypes()[0];
+		final MethodType subscription = MethodType.methodType(void.class, parameterClazz);
+
+		MethodHandle target;
+		try
+		{
+			final MethodHandles.Lookup caller = privateLookupIn(clazz);
+			target = caller.findVirtual(clazz, method.getName(), subscription);
+
+			final CallSite site = LambdaMetafactory.metafactory(
+				caller,
+				"invoke",
+				MethodType.methodType(SubscriberMethod.class, clazz),
+				subscription.changeParameterType(0, Object.class),
+				target,
+				subscription);
+
+			final MethodHandle factory = site.getTarget();
+			return (SubscriberMethod) factory.bindTo(object).invokeExact();
+		}
+		catch (Throwable e)
+		{
+			log.debug("Unable to create lambda for method {}", method, e);
+		}
+
+		try
+		{
+			target = MethodHandles.lookup().unreflect(method);
+		}
+		catch (IllegalAccessException e)
+		{
+			throw new IllegalArgumentException("@Subscribed method \"" + method + "\" is not accessible", e);
+		}
+
+		final MethodHandle bound = target.bindTo(object)
+			.asType(MethodType.methodType(void.class, Object.class));
+		return event ->
+		{
+			try
+			{
+				bound.invokeExact(event);
+			}
+			catch (RuntimeException | Error e)
+			{
+				throw e;
+			}
+			catch (Throwable e)
+			{
+				throw new RuntimeException(e);
+			}
+		};
+	}
+
 	private static MethodHandles.Lookup privateLookupIn(Class clazz) throws IllegalAccessException, NoSuchFieldException, InvocationTargetException
 	{
 		try
@@ -38,4 +38,25 @@ import java.lang.annotation.Target;
 @Documented
 public @interface Subscribe
 {
+	/**
+	 * Subscribers with a higher priority are called first. Subscribers of
+	 * equal priority are called in the order they were registered.
+	 */
+	float priority() default 0;
+
+	/**
+	 * Deliver events to this subscriber on a separate thread instead of the
+	 * thread posting them. Each registered object has one such thread, and
+	 * events are delivered to its asynchronous subscribers in the order they
+	 * were posted. Asynchronous subscribers must not use the client directly,
+	 * and should use the client thread for that instead.
+	 */
+	boolean async() default false;
+
+	/**
+	 * What to do with events for an asynchronous subscriber which has
+	 * fallen behind. Events are dropped by default so that a slow
+	 * subscriber can't stall the client thread.
+	 */
+	OverflowPolicy overflow() default OverflowPolicy.DROP;
 }
@@ -47,4 +47,14 @@ public interface DevToolsConfig
 		description = ""
 	)
 	void inspectorAlwaysOnTop(boolean value);
+
+	@ConfigItem(
+		keyName = "profilerFrameBudget",
+		name = "Profiler frame budget",
+		description = "Time in milliseconds plugins may use in a frame before the profiler records it as slow"
+	)
+	default int profilerFrameBudget()
+	{
+		return 5;
+	}
 }
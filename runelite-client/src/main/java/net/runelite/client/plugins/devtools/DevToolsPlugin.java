@@ -29,10 +29,14 @@ import ch.qos.logback.classic.Logger;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Provides;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
 import static java.lang.Math.min;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.Experience;
@@ -43,15 +47,18 @@ import net.runelite.api.Player;
 import net.runelite.api.Skill;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.CommandExecuted;
+import net.runelite.api.events.ConfigChanged;
 import net.runelite.api.events.ExperienceChanged;
 import net.runelite.api.events.MenuEntryAdded;
 import net.runelite.api.events.VarbitChanged;
 import net.runelite.api.kit.KitType;
+import net.runelite.client.RuneLite;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.profiler.Profiler;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.JagexColors;
 import net.runelite.client.ui.NavigationButton;
@@ -66,8 +73,11 @@ import org.slf4j.LoggerFactory;
 	developerPlugin = true
 )
 @Getter
+@Slf4j
 public class DevToolsPlugin extends Plugin
 {
+	private static final File PROFILER_DIR = new File(RuneLite.RUNELITE_DIR, "profiler");
+
 	private static final List<MenuAction> EXAMINE_MENU_ACTIONS = ImmutableList.of(MenuAction.EXAMINE_ITEM,
 			MenuAction.EXAMINE_ITEM_GROUND, MenuAction.EXAMINE_NPC, MenuAction.EXAMINE_OBJECT);
 
@@ -101,6 +111,12 @@ public class DevToolsPlugin extends Plugin
 	@Inject
 	private EventBus eventBus;
 
+	@Inject
+	private Profiler profiler;
+
+	@Inject
+	private DevToolsConfig config;
+
 	private DevToolsButton players;
 	private DevToolsButton npcs;
 	private DevToolsButton groundItems;
@@ -124,6 +140,7 @@ public class DevToolsPlugin extends Plugin
 	private DevToolsButton detachedCamera;
 	private DevToolsButton widgetInspector;
 	private DevToolsButton varInspector;
+	private DevToolsButton profilerInspector;
 	private NavigationButton navButton;
 
 	@Provides
@@ -164,6 +181,9 @@ public class DevToolsPlugin extends Plugin
 		detachedCamera = new DevToolsButton("Detached Camera");
 		widgetInspector = new DevToolsButton("Widget Inspector");
 		varInspector = new DevToolsButton("Var Inspector");
+		profilerInspector = new DevToolsButton("Profiler");
+
+		profiler.setFrameBudget(config.profilerFrameBudget(), TimeUnit.MILLISECONDS);
 
 		overlayManager.add(overlay);
 		overlayManager.add(locationOverlay);
@@ -196,6 +216,24 @@ public class DevToolsPlugin extends Plugin
 		overlayManager.remove(worldMapLocationOverlay);
 		overlayManager.remove(mapRegionOverlay);
 		clientToolbar.removeNavigation(navButton);
+		profiler.setEnabled(false);
+	}
+
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (event.getGroup().equals("devtools") && event.getKey().equals("profilerFrameBudget"))
+		{
+			profiler.setFrameBudget(config.profilerFrameBudget(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	File dumpProfile() throws IOException
+	{
+		PROFILER_DIR.mkdirs();
+		final File file = new File(PROFILER_DIR, "profile-" + System.currentTimeMillis() + ".txt");
+		profiler.dump(file);
+		return file;
 	}
 
 	@Subscribe
@@ -225,6 +263,39 @@ public class DevToolsPlugin extends Plugin
 				client.addChatMessage(ChatMessageType.SERVER, "", message, null);
 				break;
 			}
+			case "profiler":
+			{
+				String message;
+
+				if (args.length < 1)
+				{
+					message = "Profiler is " + (profiler.isEnabled() ? "enabled" : "disabled");
+				}
+				else if (args[0].equals("on") || args[0].equals("off"))
+				{
+					profiler.setEnabled(args[0].equals("on"));
+					message = "Profiler has been " + (profiler.isEnabled() ? "enabled" : "disabled");
+				}
+				else if (args[0].equals("dump"))
+				{
+					try
+					{
+						message = "Profile written to " + dumpProfile();
+					}
+					catch (IOException e)
+					{
+						log.warn("Unable to dump profile", e);
+						message = "Unable to dump profile: " + e.getMessage();
+					}
+				}
+				else
+				{
+					message = "Usage: ::profiler [on|off|dump]";
+				}
+
+				client.addChatMessage(ChatMessageType.SERVER, "", message, null);
+				break;
+			}
 			case "getvarp":
 			{
 				int varp = Integer.parseInt(args[0]);
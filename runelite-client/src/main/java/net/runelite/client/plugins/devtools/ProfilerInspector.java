@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.devtools;
+
+import com.google.inject.Inject;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.DefaultTableModel;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.profiler.PluginStats;
+import net.runelite.client.profiler.Profiler;
+import static net.runelite.client.profiler.Profiler.formatMillis;
+import net.runelite.client.profiler.SlowFrame;
+import net.runelite.client.profiler.TimerStats;
+import net.runelite.client.ui.ClientUI;
+
+@Slf4j
+class ProfilerInspector extends JFrame
+{
+	private static final int REFRESH_INTERVAL = 1000;
+
+	private static final String[] PLUGIN_COLUMNS = {"Plugin", "Frames", "p50 (ms)", "p99 (ms)", "Max (ms)", "Total (ms)"};
+	private static final String[] TIMER_COLUMNS = {"Type", "Plugin", "Name", "Count", "p50 (ms)", "p99 (ms)", "Max (ms)", "Total (ms)"};
+	private static final String[] SLOW_FRAME_COLUMNS = {"Time", "Used (ms)", "Frame (ms)", "Plugins"};
+
+	private final Profiler profiler;
+	private final DevToolsPlugin plugin;
+
+	private final JCheckBox enabled = new JCheckBox("Enabled");
+	private final JLabel status = new JLabel();
+	private final DefaultTableModel plugins = new ReadOnlyTableModel(PLUGIN_COLUMNS);
+	private final DefaultTableModel timers = new ReadOnlyTableModel(TIMER_COLUMNS);
+	private final DefaultTableModel slowFrames = new ReadOnlyTableModel(SLOW_FRAME_COLUMNS);
+	private final Timer refreshTimer = new Timer(REFRESH_INTERVAL, e -> refresh());
+
+	@Inject
+	ProfilerInspector(Profiler profiler, DevToolsPlugin plugin)
+	{
+		this.profiler = profiler;
+		this.plugin = plugin;
+
+		setTitle("RuneLite Profiler");
+		setIconImage(ClientUI.ICON);
+
+		setLayout(new BorderLayout());
+
+		setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+		addWindowListener(new WindowAdapter()
+		{
+			@Override
+			public void windowClosing(WindowEvent e)
+			{
+				close();
+				plugin.getProfilerInspector().setActive(false);
+			}
+		});
+
+		enabled.addActionListener(e ->
+		{
+			profiler.setEnabled(enabled.isSelected());
+			refresh();
+		});
+
+		final JButton dump = new JButton("Dump");
+		dump.addActionListener(e ->
+		{
+			try
+			{
+				final File file = plugin.dumpProfile();
+				status.setText("Dumped to " + file);
+			}
+			catch (IOException ex)
+			{
+				log.warn("Unable to dump profile", ex);
+				status.setText("Unable to dump profile: " + ex.getMessage());
+			}
+		});
+
+		final JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		controls.add(enabled);
+		controls.add(dump);
+		controls.add(status);
+		add(controls, BorderLayout.NORTH);
+
+		final JTabbedPane tabs = new JTabbedPane();
+		tabs.addTab("Plugins", new JScrollPane(new JTable(plugins)));
+		tabs.addTab("Timers", new JScrollPane(new JTable(timers)));
+		tabs.addTab("Slow frames", new JScrollPane(new JTable(slowFrames)));
+		tabs.setPreferredSize(new Dimension(900, 400));
+		add(tabs, BorderLayout.CENTER);
+
+		pack();
+	}
+
+	private void refresh()
+	{
+		enabled.setSelected(profiler.isEnabled());
+
+		final List<PluginStats> pluginStats = profiler.getPluginStats();
+		plugins.setRowCount(0);
+		for (PluginStats stats : pluginStats)
+		{
+			plugins.addRow(new Object[]{
+				stats.getName(), stats.getFrames(), formatMillis(stats.getP50()), formatMillis(stats.getP99()),
+				formatMillis(stats.getMax()), formatMillis(stats.getTotal())
+			});
+		}
+
+		final List<TimerStats> timerStats = profiler.getTimerStats();
+		timers.setRowCount(0);
+		for (TimerStats stats : timerStats)
+		{
+			timers.addRow(new Object[]{
+				stats.getType().getName(), stats.getOwner(), stats.getName(), stats.getCount(), formatMillis(stats.getP50()),
+				formatMillis(stats.getP99()), formatMillis(stats.getMax()), formatMillis(stats.getTotal())
+			});
+		}
+
+		final List<SlowFrame> frames = profiler.getSlowFrames();
+		slowFrames.setRowCount(0);
+		for (int i = frames.size() - 1; i >= 0; --i)
+		{
+			final SlowFrame frame = frames.get(i);
+			slowFrames.addRow(new Object[]{
+				Instant.ofEpochMilli(frame.getTime()), formatMillis(frame.getUsed()), formatMillis(frame.getLength()),
+				String.join(", ", frame.getTop())
+			});
+		}
+
+		if (profiler.isEnabled())
+		{
+			status.setText(profiler.getSlowFrameCount() + " frames over " + formatMillis(profiler.getFrameBudget()) + "ms");
+		}
+	}
+
+	public void open()
+	{
+		refresh();
+		refreshTimer.start();
+		setVisible(true);
+		toFront();
+		repaint();
+	}
+
+	public void close()
+	{
+		refreshTimer.stop();
+		setVisible(false);
+	}
+
+	private static class ReadOnlyTableModel extends DefaultTableModel
+	{
+		ReadOnlyTableModel(String[] columns)
+		{
+			super(columns, 0);
+		}
+
+		@Override
+		public boolean isCellEditable(int row, int column)
+		{
+			return false;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.profiler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size histogram of nanosecond durations. Values are counted in
+ * log-linear buckets with 16 sub-buckets per power of two, so any recorded
+ * value is reported to within about 6%. Recording does not allocate or lock.
+ */
+public class Histogram
+{
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/**
+	 * largest value which can be distinguished, about 68 seconds
+	 */
+	static final long MAX_VALUE = (1L << 36) - 1;
+	static final int BUCKETS = index(MAX_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long value)
+	{
+		if (value < 0)
+		{
+			value = 0;
+		}
+
+		counts.incrementAndGet(index(Math.min(value, MAX_VALUE)));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		updateMax(value);
+	}
+
+	public void reset()
+	{
+		for (int i = 0; i < BUCKETS; ++i)
+		{
+			counts.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Add the values of another histogram to this histogram
+	 */
+	public void add(Histogram other)
+	{
+		for (int i = 0; i < BUCKETS; ++i)
+		{
+			long c = other.counts.get(i);
+			if (c != 0)
+			{
+				counts.addAndGet(i, c);
+			}
+		}
+		count.addAndGet(other.count.get());
+		total.addAndGet(other.total.get());
+		updateMax(other.max.get());
+	}
+
+	private void updateMax(long value)
+	{
+		while (true)
+		{
+			final long current = max.get();
+			if (value <= current || max.compareAndSet(current, value))
+			{
+				return;
+			}
+		}
+	}
+
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	public long getTotal()
+	{
+		return total.get();
+	}
+
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	public long getMean()
+	{
+		long c = count.get();
+		return c == 0 ? 0 : total.get() / c;
+	}
+
+	/**
+	 * Get the value at the given percentile
+	 *
+	 * @param percentile percentile, between 0 and 100
+	 * @return the highest value equivalent to the value at the percentile
+	 */
+	public long getValueAtPercentile(double percentile)
+	{
+		long c = 0;
+		for (int i = 0; i < BUCKETS; ++i)
+		{
+			c += counts.get(i);
+		}
+
+		if (c == 0)
+		{
+			return 0;
+		}
+
+		final long target = Math.max(1, (long) Math.ceil(c * Math.min(percentile, 100.0) / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; ++i)
+		{
+			seen += counts.get(i);
+			if (seen >= target)
+			{
+				return Math.min(highestEquivalentValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	static int index(long value)
+	{
+		if (value < SUB_BUCKETS * 2)
+		{
+			return (int) value;
+		}
+
+		final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	static long highestEquivalentValue(int index)
+	{
+		if (index < SUB_BUCKETS * 2)
+		{
+			return index;
+		}
+
+		final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		final long subBucket = (index & (SUB_BUCKETS - 1)) | SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.profiler;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.eventbus.EventBus;
+
+/**
+ * Measures the time spent in event subscribers, overlays, scheduled methods and
+ * invokes, and attributes it to the plugins they belong to.
+ * <p>
+ * Call sites check {@link #isEnabled()} and only then time their work with
+ * {@link #start()} and {@link #stop(ProfilerTimer, long)}, so the profiler
+ * costs a volatile read when it is disabled. Time is attributed exclusively,
+ * so an event subscriber which posts another event is not charged for the
+ * subscribers of that event.
+ */
+@Singleton
+@Slf4j
+public class Profiler
+{
+	private static final String PLUGIN_PACKAGE = "net.runelite.client.plugins.";
+	private static final String CLIENT_OWNER = "client";
+	private static final String TOTAL = "(all plugins)";
+	private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+	private static final int MAX_DEPTH = 64;
+	private static final int MAX_SLOW_FRAMES = 64;
+	private static final int SLOW_FRAME_TOP = 3;
+	private static final long DEFAULT_FRAME_BUDGET = TimeUnit.MILLISECONDS.toNanos(5);
+
+	private final EventBus eventBus;
+
+	private final Map<TimerType, Map<Object, ProfilerTimer>> timers = new EnumMap<>(TimerType.class);
+	private final Map<String, PluginTimes> plugins = new ConcurrentHashMap<>();
+	private final RollingHistogram frameTimes = new RollingHistogram();
+	private final Deque<SlowFrame> slowFrames = new ArrayDeque<>();
+
+	@Getter
+	private volatile boolean enabled;
+	@Getter
+	private volatile long frameBudget = DEFAULT_FRAME_BUDGET;
+	@Getter
+	private volatile long slowFrameCount;
+	private volatile boolean reset;
+
+	// frame state, only accessed from the frame thread
+	private Thread frameThread;
+	private long frameStart;
+	private long frameUsed;
+	private long lastRotate;
+	private int depth;
+	private final long[] childNanos = new long[MAX_DEPTH];
+	private final List<PluginTimes> framePlugins = new ArrayList<>();
+
+	@Inject
+	private Profiler(EventBus eventBus)
+	{
+		this.eventBus = eventBus;
+		for (TimerType type : TimerType.values())
+		{
+			timers.put(type, new ConcurrentHashMap<>());
+		}
+	}
+
+	/**
+	 * Start or stop profiling. Starting discards the previous measurements.
+	 */
+	public synchronized void setEnabled(boolean enabled)
+	{
+		if (enabled == this.enabled)
+		{
+			return;
+		}
+
+		if (enabled)
+		{
+			for (Map<Object, ProfilerTimer> typeTimers : timers.values())
+			{
+				typeTimers.clear();
+			}
+			plugins.clear();
+			frameTimes.reset();
+			synchronized (slowFrames)
+			{
+				slowFrames.clear();
+			}
+			slowFrameCount = 0;
+			reset = true;
+		}
+
+		this.enabled = enabled;
+		eventBus.setProfiler(enabled ? this : null);
+		log.debug("Profiler {}", enabled ? "enabled" : "disabled");
+	}
+
+	/**
+	 * Set how much time plugins may use per frame before the frame is
+	 * recorded as slow
+	 */
+	public void setFrameBudget(long time, TimeUnit unit)
+	{
+		frameBudget = unit.toNanos(time);
+	}
+
+	/**
+	 * Get the timer for an object
+	 *
+	 * @param type what is being timed
+	 * @param key the object being timed, for example the overlay or subscriber
+	 * @param ownerClass a class of the plugin which the object belongs to
+	 * @param name function to name a new timer for the object
+	 */
+	public <T> ProfilerTimer getTimer(TimerType type, T key, Class<?> ownerClass, Function<T, String> name)
+	{
+		final Map<Object, ProfilerTimer> typeTimers = timers.get(type);
+		final ProfilerTimer timer = typeTimers.get(key);
+		if (timer != null)
+		{
+			return timer;
+		}
+
+		final PluginTimes pluginTimes = plugins.computeIfAbsent(getOwner(ownerClass), PluginTimes::new);
+		return typeTimers.computeIfAbsent(key, k -> new ProfilerTimer(type, pluginTimes, name.apply(key)));
+	}
+
+	public long start()
+	{
+		if (Thread.currentThread() == frameThread && ++depth < MAX_DEPTH)
+		{
+			childNanos[depth] = 0;
+		}
+		return System.nanoTime();
+	}
+
+	public void stop(ProfilerTimer timer, long start)
+	{
+		final long elapsed = System.nanoTime() - start;
+		timer.histogram.record(elapsed);
+
+		if (Thread.currentThread() != frameThread || depth <= 0)
+		{
+			return;
+		}
+
+		final int d = depth--;
+		if (d >= MAX_DEPTH)
+		{
+			return;
+		}
+
+		final long self = elapsed - childNanos[d];
+		if (d > 1)
+		{
+			childNanos[d - 1] += elapsed;
+		}
+
+		final PluginTimes pluginTimes = timer.pluginTimes;
+		if (pluginTimes.frameNanos == 0)
+		{
+			framePlugins.add(pluginTimes);
+		}
+		pluginTimes.frameNanos += self;
+		frameUsed += self;
+	}
+
+	/**
+	 * Called at the start of each frame from the client thread
+	 */
+	public void frame()
+	{
+		if (!enabled)
+		{
+			return;
+		}
+
+		final long now = System.nanoTime();
+
+		if (reset)
+		{
+			reset = false;
+			frameStart = 0;
+			framePlugins.clear();
+		}
+
+		if (frameStart != 0)
+		{
+			endFrame(now);
+		}
+
+		frameThread = Thread.currentThread();
+		frameStart = now;
+		frameUsed = 0;
+		depth = 0;
+
+		if (now - lastRotate > WINDOW_NANOS)
+		{
+			lastRotate = now;
+			rotate();
+		}
+	}
+
+	private void endFrame(long now)
+	{
+		if (frameUsed > 0)
+		{
+			frameTimes.record(frameUsed);
+		}
+
+		if (frameUsed > frameBudget)
+		{
+			framePlugins.sort(Comparator.comparingLong((PluginTimes p) -> p.frameNanos).reversed());
+
+			final List<String> top = new ArrayList<>(SLOW_FRAME_TOP);
+			for (int i = 0; i < framePlugins.size() && i < SLOW_FRAME_TOP; ++i)
+			{
+				final PluginTimes pluginTimes = framePlugins.get(i);
+				top.add(pluginTimes.getName() + " " + formatMillis(pluginTimes.frameNanos) + "ms");
+			}
+
+			final SlowFrame slowFrame = new SlowFrame(System.currentTimeMillis(), frameUsed, now - frameStart, top);
+			synchronized (slowFrames)
+			{
+				if (slowFrames.size() >= MAX_SLOW_FRAMES)
+				{
+					slowFrames.removeFirst();
+				}
+				slowFrames.addLast(slowFrame);
+			}
+			++slowFrameCount;
+		}
+
+		for (int i = 0; i < framePlugins.size(); ++i)
+		{
+			final PluginTimes pluginTimes = framePlugins.get(i);
+			pluginTimes.histogram.record(pluginTimes.frameNanos);
+			pluginTimes.frameNanos = 0;
+		}
+		framePlugins.clear();
+	}
+
+	private void rotate()
+	{
+		for (Map<Object, ProfilerTimer> typeTimers : timers.values())
+		{
+			for (ProfilerTimer timer : typeTimers.values())
+			{
+				timer.histogram.rotate();
+			}
+		}
+		for (PluginTimes pluginTimes : plugins.values())
+		{
+			pluginTimes.histogram.rotate();
+		}
+		frameTimes.rotate();
+	}
+
+	/**
+	 * Get the recent durations of every timer, slowest first
+	 */
+	public List<TimerStats> getTimerStats()
+	{
+		final List<TimerStats> stats = new ArrayList<>();
+		for (Map<Object, ProfilerTimer> typeTimers : timers.values())
+		{
+			for (ProfilerTimer timer : typeTimers.values())
+			{
+				final Histogram h = timer.histogram.snapshot();
+				stats.add(new TimerStats(timer.getType(), timer.getOwner(), timer.getName(), h.getCount(),
+					h.getValueAtPercentile(50), h.getValueAtPercentile(99), h.getMax(), h.getTotal()));
+			}
+		}
+		stats.sort(Comparator.comparingLong(TimerStats::getTotal).reversed());
+		return stats;
+	}
+
+	/**
+	 * Get the recent time per frame of every plugin, slowest first. The first
+	 * entry is the total of all plugins.
+	 */
+	public List<PluginStats> getPluginStats()
+	{
+		final List<PluginStats> stats = new ArrayList<>();
+		for (PluginTimes pluginTimes : plugins.values())
+		{
+			stats.add(toStats(pluginTimes.getName(), pluginTimes.histogram.snapshot()));
+		}
+		stats.sort(Comparator.comparingLong(PluginStats::getTotal).reversed());
+		stats.add(0, toStats(TOTAL, frameTimes.snapshot()));
+		return stats;
+	}
+
+	/**
+	 * Get the most recent slow frames, oldest first
+	 */
+	public List<SlowFrame> getSlowFrames()
+	{
+		synchronized (slowFrames)
+		{
+			return new ArrayList<>(slowFrames);
+		}
+	}
+
+	/**
+	 * Write a report of the current measurements to a file
+	 */
+	public void dump(File file) throws IOException
+	{
+		try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+			PrintWriter out = new PrintWriter(writer))
+		{
+			out.printf("Profile at %s, frame budget %sms, %d slow frames%n%n",
+				Instant.now(), formatMillis(frameBudget), slowFrameCount);
+
+			out.println("Plugin time per frame (ms)");
+			out.printf("%-32s %10s %10s %10s %10s %12s%n", "Plugin", "Frames", "p50", "p99", "Max", "Total");
+			for (PluginStats stats : getPluginStats())
+			{
+				out.printf("%-32s %10d %10s %10s %10s %12s%n", stats.getName(), stats.getFrames(),
+					formatMillis(stats.getP50()), formatMillis(stats.getP99()), formatMillis(stats.getMax()),
+					formatMillis(stats.getTotal()));
+			}
+
+			out.println();
+			out.println("Timers (ms)");
+			out.printf("%-10s %-24s %-48s %10s %10s %10s %10s %12s%n", "Type", "Plugin", "Name", "Count", "p50", "p99", "Max", "Total");
+			for (TimerStats stats : getTimerStats())
+			{
+				out.printf("%-10s %-24s %-48s %10d %10s %10s %10s %12s%n", stats.getType().getName(), stats.getOwner(),
+					stats.getName(), stats.getCount(), formatMillis(stats.getP50()), formatMillis(stats.getP99()),
+					formatMillis(stats.getMax()), formatMillis(stats.getTotal()));
+			}
+
+			out.println();
+			out.println("Slow frames");
+			for (SlowFrame frame : getSlowFrames())
+			{
+				out.printf("%s used %sms of %sms: %s%n", Instant.ofEpochMilli(frame.getTime()),
+					formatMillis(frame.getUsed()), formatMillis(frame.getLength()), String.join(", ", frame.getTop()));
+			}
+		}
+	}
+
+	public static String formatMillis(long nanos)
+	{
+		return String.format("%.3f", nanos / 1_000_000.0);
+	}
+
+	/**
+	 * Get the name of a class, without the suffix given to lambda classes
+	 */
+	public static String getClassName(Class<?> clazz)
+	{
+		String name = clazz.getSimpleName();
+		if (name.isEmpty())
+		{
+			// anonymous classes
+			name = clazz.getName().substring(clazz.getName().lastIndexOf('.') + 1);
+		}
+
+		final int lambda = name.indexOf("$$Lambda");
+		return lambda == -1 ? name : name.substring(0, lambda);
+	}
+
+	private static PluginStats toStats(String name, Histogram h)
+	{
+		return new PluginStats(name, h.getCount(), h.getValueAtPercentile(50), h.getValueAtPercentile(99),
+			h.getMax(), h.getTotal());
+	}
+
+	/**
+	 * Get the plugin a class belongs to, from its package
+	 */
+	static String getOwner(Class<?> clazz)
+	{
+		final String name = clazz.getName();
+		if (name.startsWith(PLUGIN_PACKAGE))
+		{
+			final int end = name.indexOf('.', PLUGIN_PACKAGE.length());
+			if (end != -1)
+			{
+				return name.substring(PLUGIN_PACKAGE.length(), end);
+			}
+		}
+		return CLIENT_OWNER;
+	}
+}
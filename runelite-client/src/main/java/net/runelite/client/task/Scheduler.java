@@ -35,6 +35,9 @@ import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.profiler.Profiler;
+import net.runelite.client.profiler.ProfilerTimer;
+import net.runelite.client.profiler.TimerType;
 
 @Singleton
 @Slf4j
@@ -45,6 +48,9 @@ public class Scheduler
 	@Inject
 	ScheduledExecutorService executor;
 
+	@Inject
+	Profiler profiler;
+
 	public void addScheduledMethod(ScheduledMethod method)
 	{
 		scheduledMethods.add(method);
@@ -92,6 +98,28 @@ public class Scheduler
 	}
 
 	private void run(ScheduledMethod scheduledMethod)
+	{
+		if (profiler.isEnabled())
+		{
+			final ProfilerTimer timer = profiler.getTimer(TimerType.SCHEDULE, scheduledMethod, scheduledMethod.getObject().getClass(),
+				m -> Profiler.getClassName(m.getObject().getClass()) + "." + m.getMethod().getName());
+			final long start = profiler.start();
+			try
+			{
+				invoke(scheduledMethod);
+			}
+			finally
+			{
+				profiler.stop(timer, start);
+			}
+		}
+		else
+		{
+			invoke(scheduledMethod);
+		}
+	}
+
+	private void invoke(ScheduledMethod scheduledMethod)
 	{
 		Method method = scheduledMethod.getMethod();
 
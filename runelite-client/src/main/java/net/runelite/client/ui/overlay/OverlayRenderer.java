@@ -52,6 +52,9 @@ import net.runelite.client.input.KeyListener;
 import net.runelite.client.input.KeyManager;
 import net.runelite.client.input.MouseAdapter;
 import net.runelite.client.input.MouseManager;
+import net.runelite.client.profiler.Profiler;
+import net.runelite.client.profiler.ProfilerTimer;
+import net.runelite.client.profiler.TimerType;
 import net.runelite.client.ui.JagexColors;
 import net.runelite.client.util.ColorUtil;
 
@@ -69,6 +72,7 @@ public class OverlayRenderer extends MouseAdapter implements KeyListener
 	private final Client client;
 	private final OverlayManager overlayManager;
 	private final RuneLiteConfig runeLiteConfig;
+	private final Profiler profiler;
 
 	// Overlay movement variables
 	private final Point overlayOffset = new Point();
@@ -92,11 +96,13 @@ public class OverlayRenderer extends MouseAdapter implements KeyListener
 		final OverlayManager overlayManager,
 		final RuneLiteConfig runeLiteConfig,
 		final MouseManager mouseManager,
-		final KeyManager keyManager)
+		final KeyManager keyManager,
+		final Profiler profiler)
 	{
 		this.client = client;
 		this.overlayManager = overlayManager;
 		this.runeLiteConfig = runeLiteConfig;
+		this.profiler = profiler;
 		keyManager.registerKeyListener(this);
 		mouseManager.registerMouseListener(this);
 	}
@@ -458,11 +464,31 @@ public class OverlayRenderer extends MouseAdapter implements KeyListener
 		}
 
 		subGraphics.translate(point.x, point.y);
-		final Dimension dimension = MoreObjects.firstNonNull(overlay.render(subGraphics), new Dimension());
+		final Dimension dimension = MoreObjects.firstNonNull(render(overlay, subGraphics), new Dimension());
 		subGraphics.dispose();
 		overlay.setBounds(new Rectangle(point, dimension));
 	}
 
+	private Dimension render(Overlay overlay, Graphics2D graphics)
+	{
+		if (!profiler.isEnabled())
+		{
+			return overlay.render(graphics);
+		}
+
+		final Class<?> owner = overlay.getPlugin() != null ? overlay.getPlugin().getClass() : overlay.getClass();
+		final ProfilerTimer timer = profiler.getTimer(TimerType.OVERLAY, overlay, owner, o -> Profiler.getClassName(o.getClass()));
+		final long start = profiler.start();
+		try
+		{
+			return overlay.render(graphics);
+		}
+		finally
+		{
+			profiler.stop(timer, start);
+		}
+	}
+
 	private boolean shouldInvalidateBounds()
 	{
 		final Widget chatbox = client.getWidget(WidgetInfo.CHATBOX);
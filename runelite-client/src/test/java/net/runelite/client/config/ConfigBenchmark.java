@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.config;
+
+import java.awt.Color;
+import java.lang.reflect.Method;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import net.runelite.client.eventbus.EventBus;
+import static org.mockito.Mockito.mock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of config proxy getters. The uncached benchmarks repeat the
+ * lookups and parsing every getter call did before values were cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConfigBenchmark
+{
+	public enum BenchmarkEnum
+	{
+		FIRST,
+		SECOND
+	}
+
+	@ConfigGroup("benchmark")
+	public interface BenchmarkConfig
+	{
+		@ConfigItem(
+			keyName = "number",
+			name = "",
+			description = ""
+		)
+		default int number()
+		{
+			return 0;
+		}
+
+		@ConfigItem(
+			keyName = "color",
+			name = "",
+			description = ""
+		)
+		default Color color()
+		{
+			return Color.WHITE;
+		}
+
+		@ConfigItem(
+			keyName = "type",
+			name = "",
+			description = ""
+		)
+		default BenchmarkEnum type()
+		{
+			return BenchmarkEnum.FIRST;
+		}
+
+		@ConfigItem(
+			keyName = "unset",
+			name = "",
+			description = ""
+		)
+		default int unset()
+		{
+			return 42;
+		}
+	}
+
+	private ConfigManager manager;
+	private BenchmarkConfig config;
+	private Method number;
+	private Method color;
+	private Method type;
+
+	@Setup(Level.Trial)
+	public void setup() throws NoSuchMethodException
+	{
+		manager = new ConfigManager(mock(ScheduledExecutorService.class));
+		manager.eventBus = new EventBus();
+		manager.setConfiguration("benchmark", "number", 1234);
+		manager.setConfiguration("benchmark", "color", Color.GREEN);
+		manager.setConfiguration("benchmark", "type", BenchmarkEnum.SECOND);
+
+		config = manager.getConfig(BenchmarkConfig.class);
+		number = BenchmarkConfig.class.getMethod("number");
+		color = BenchmarkConfig.class.getMethod("color");
+		type = BenchmarkConfig.class.getMethod("type");
+	}
+
+	@Benchmark
+	public int number()
+	{
+		return config.number();
+	}
+
+	@Benchmark
+	public Color color()
+	{
+		return config.color();
+	}
+
+	@Benchmark
+	public BenchmarkEnum type()
+	{
+		return config.type();
+	}
+
+	@Benchmark
+	public int unset()
+	{
+		return config.unset();
+	}
+
+	@Benchmark
+	public Object numberUncached()
+	{
+		return uncached(number);
+	}
+
+	@Benchmark
+	public Object colorUncached()
+	{
+		return uncached(color);
+	}
+
+	@Benchmark
+	public Object typeUncached()
+	{
+		return uncached(type);
+	}
+
+	private Object uncached(Method method)
+	{
+		final ConfigGroup group = BenchmarkConfig.class.getAnnotation(ConfigGroup.class);
+		final ConfigItem item = method.getAnnotation(ConfigItem.class);
+		final String value = manager.getConfiguration(group.value(), item.keyName());
+		return ConfigManager.stringToObject(value, method.getReturnType());
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+			.include(ConfigBenchmark.class.getSimpleName())
+			.build()).run();
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.mockito.Mockito.mock;
+
+public class ConfigPersisterTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+	private File file;
+	private File journal;
+
+	@Before
+	public void before() throws IOException
+	{
+		file = new File(folder.newFolder(), "settings.properties");
+		journal = new File(file.getParentFile(), "settings.properties.journal");
+	}
+
+	private Properties load()
+	{
+		final Properties properties = new Properties();
+		final ConfigPersister persister = new ConfigPersister(executor, properties);
+		persister.setFile(file);
+		persister.load();
+		return properties;
+	}
+
+	@Test
+	public void testJournal() throws IOException
+	{
+		final Properties properties = new Properties();
+		final ConfigPersister persister = new ConfigPersister(executor, properties);
+		persister.setFile(file);
+
+		properties.setProperty("test.a", "1");
+		persister.changed("test.a");
+		properties.setProperty("test.b", "line\none\twith \\");
+		persister.changed("test.b");
+		properties.setProperty("test.a", "2");
+		persister.changed("test.a");
+		persister.save();
+
+		assertFalse(file.exists());
+		assertEquals(2, Files.readAllLines(journal.toPath()).size());
+
+		properties.remove("test.a");
+		persister.changed("test.a");
+		persister.save();
+
+		final Properties loaded = load();
+		assertNull(loaded.getProperty("test.a"));
+		assertEquals("line\none\twith \\", loaded.getProperty("test.b"));
+
+		// loading compacts the journal into the settings file
+		assertTrue(file.exists());
+		assertFalse(journal.exists());
+		assertEquals(loaded, load());
+	}
+
+	@Test
+	public void testPartialRecord() throws IOException
+	{
+		final Properties properties = new Properties();
+		final ConfigPersister persister = new ConfigPersister(executor, properties);
+		persister.setFile(file);
+
+		properties.setProperty("test.a", "1");
+		persister.changed("test.a");
+		persister.save();
+
+		Files.write(journal.toPath(), "S\ttest.b\t2".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		final Properties loaded = load();
+		assertEquals("1", loaded.getProperty("test.a"));
+		assertNull(loaded.getProperty("test.b"));
+	}
+
+	@Test
+	public void testCompact() throws IOException
+	{
+		final Properties properties = new Properties();
+		final ConfigPersister persister = new ConfigPersister(executor, properties);
+		persister.setFile(file);
+
+		properties.setProperty("test.a", "1");
+		persister.changed("test.a");
+		persister.save();
+		assertTrue(journal.exists());
+
+		persister.compactJournal();
+		assertFalse(journal.exists());
+		assertEquals(properties, load());
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventBusTest
+{
+	private static class TestEvent
+	{
+	}
+
+	private static class SubTestEvent extends TestEvent
+	{
+	}
+
+	private static class NumberedEvent
+	{
+		private final int number;
+
+		NumberedEvent(int number)
+		{
+			this.number = number;
+		}
+	}
+
+	private final List<String> calls = new ArrayList<>();
+	private final List<Throwable> exceptions = new ArrayList<>();
+	private EventBus eventBus;
+
+	@Before
+	public void before()
+	{
+		eventBus = new EventBus(exceptions::add);
+	}
+
+	private class Subscriber
+	{
+		private final String name;
+
+		Subscriber(String name)
+		{
+			this.name = name;
+		}
+
+		@Subscribe
+		private void onTestEvent(TestEvent event)
+		{
+			calls.add(name);
+		}
+	}
+
+	private class HighPriority
+	{
+		@Subscribe(priority = 10)
+		public void onTestEvent(TestEvent event)
+		{
+			calls.add("high");
+		}
+	}
+
+	private class LowPriority
+	{
+		@Subscribe(priority = -10)
+		public void onTestEvent(TestEvent event)
+		{
+			calls.add("low");
+			throw new IllegalStateException();
+		}
+	}
+
+	private class SubEventSubscriber
+	{
+		@Subscribe
+		public void onSubTestEvent(SubTestEvent event)
+		{
+		}
+	}
+
+	private static class AsyncSubscriber
+	{
+		private final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+		private volatile Thread thread;
+
+		@Subscribe(async = true)
+		public void onNumberedEvent(NumberedEvent event)
+		{
+			thread = Thread.currentThread();
+			received.add(event.number);
+		}
+	}
+
+	private static class BlockedSubscriber
+	{
+		private final CountDownLatch latch = new CountDownLatch(1);
+		private final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+
+		// events are dropped by default
+		@Subscribe(async = true)
+		public void onNumberedEvent(NumberedEvent event) throws InterruptedException
+		{
+			latch.await();
+			received.add(event.number);
+		}
+	}
+
+	@Test
+	public void testPriority()
+	{
+		eventBus.register(new LowPriority());
+		eventBus.register(new Subscriber("a"));
+		eventBus.register(new HighPriority());
+		eventBus.register(new Subscriber("b"));
+
+		eventBus.post(new TestEvent());
+
+		assertEquals(Arrays.asList("high", "a", "b", "low"), calls);
+		assertEquals(1, exceptions.size());
+		assertTrue(exceptions.get(0) instanceof IllegalStateException);
+	}
+
+	@Test
+	public void testUnregister()
+	{
+		Subscriber a = new Subscriber("a");
+		Subscriber b = new Subscriber("b");
+		eventBus.register(a);
+		eventBus.register(b);
+
+		eventBus.unregister(a);
+		eventBus.post(new TestEvent());
+		assertEquals(Arrays.asList("b"), calls);
+
+		eventBus.unregister(b);
+		eventBus.post(new TestEvent());
+		assertEquals(Arrays.asList("b"), calls);
+	}
+
+	@Test
+	public void testUnsubscribedEvent()
+	{
+		eventBus.register(new Subscriber("a"));
+		eventBus.post(new Object());
+		assertTrue(calls.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSubclassOfSubscribedEvent()
+	{
+		eventBus.register(new Subscriber("a"));
+		eventBus.register(new SubEventSubscriber());
+	}
+
+	@Test
+	public void testAsync()
+	{
+		final AsyncSubscriber subscriber = new AsyncSubscriber();
+		final List<Integer> expected = new ArrayList<>();
+		eventBus.register(subscriber);
+
+		for (int i = 0; i < 100; ++i)
+		{
+			eventBus.post(new NumberedEvent(i));
+			expected.add(i);
+		}
+
+		// unregister waits for the queued events
+		eventBus.unregister(subscriber);
+
+		assertEquals(expected, subscriber.received);
+		assertNotEquals(Thread.currentThread(), subscriber.thread);
+	}
+
+	@Test
+	public void testAsyncDrop()
+	{
+		final BlockedSubscriber subscriber = new BlockedSubscriber();
+		eventBus.register(subscriber);
+
+		for (int i = 0; i < AsyncDispatcher.QUEUE_SIZE + 10; ++i)
+		{
+			eventBus.post(new NumberedEvent(i));
+		}
+
+		subscriber.latch.countDown();
+		eventBus.unregister(subscriber);
+
+		assertEquals(AsyncDispatcher.QUEUE_SIZE, subscriber.received.size());
+		assertEquals(AsyncDispatcher.QUEUE_SIZE - 1, (int) subscriber.received.get(AsyncDispatcher.QUEUE_SIZE - 1));
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class HistogramTest
+{
+	@Test
+	public void testBuckets()
+	{
+		int previous = -1;
+		for (long value = 0; value <= Histogram.MAX_VALUE; value += Math.max(1, value / 1000))
+		{
+			final int index = Histogram.index(value);
+			assertTrue("bucket index of " + value + " is not contiguous", index == previous || index == previous + 1);
+
+			final long highest = Histogram.highestEquivalentValue(index);
+			assertTrue(highest >= value);
+			assertTrue("bucket of " + value + " is too wide", highest - value <= Math.max(1, value / 15));
+			previous = index;
+		}
+		assertEquals(Histogram.BUCKETS - 1, previous);
+	}
+
+	@Test
+	public void testPercentiles()
+	{
+		final Histogram histogram = new Histogram();
+		for (int i = 1; i <= 1000; ++i)
+		{
+			histogram.record(i * 1000L);
+		}
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1_000_000, histogram.getMax());
+		assertEquals(500_500, histogram.getMean());
+		assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 16);
+		assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 16);
+		assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void testAddAndReset()
+	{
+		final Histogram a = new Histogram();
+		final Histogram b = new Histogram();
+		a.record(10);
+		b.record(20);
+		b.record(30);
+
+		a.add(b);
+		assertEquals(3, a.getCount());
+		assertEquals(60, a.getTotal());
+		assertEquals(30, a.getMax());
+		assertEquals(20, a.getValueAtPercentile(50));
+
+		a.reset();
+		assertEquals(0, a.getCount());
+		assertEquals(0, a.getMax());
+		assertEquals(0, a.getValueAtPercentile(50));
+	}
+}